@@ -0,0 +1,60 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+* Runs the JMH benchmarks of ALCOMO with the GC profiler, which reports the allocation rate
+* and the allocated bytes per operation next to the runtime. Has to be started in the directory
+* that contains the testdata. All JMH command line options can be used, e.g. to produce
+* a scaling curve of the A* search on an anatomy alignment:
+*
+* AlcomoBenchmarks aStarSearch -p track=anatomy -p alignment=AgrMaker -p percent=10,20,40,80
+*
+* The benchmarks can also be started with the bench target of the ant build file, the
+* options are passed with -Dbench.args="...".
+*/
+public class AlcomoBenchmarks {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLineOptions);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			builder.include(AlcomoBenchmarks.class.getPackage().getName() + ".");
+		}
+		builder.addProfiler(GCProfiler.class);
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,147 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.algorithms.AStarSearch;
+import de.unima.alcomox.algorithms.AlcomoExtraction;
+import de.unima.alcomox.algorithms.ConflictStore;
+import de.unima.alcomox.algorithms.Greedy;
+import de.unima.alcomox.algorithms.HungarianSearch;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.CompleteReasoner;
+import de.unima.alcomox.ontology.EfficientReasoner;
+
+/**
+* Measures the algorithms and reasoning components on a sample of an alignment, see
+* {@link ExtractionState} for the parameters. Each benchmark returns its result, thus,
+* the computation cannot be removed as dead code.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExtractionBenchmark {
+
+	/**
+	* A complete reasoner on the merged ontologies of the problem, created once per trial.
+	* The coherence cache is switched off and the reasoning session is closed after each call,
+	* otherwise each call after the first one would only measure a lookup in the cache or
+	* find the axioms of the sample already loaded and classified by the incremental session.
+	*/
+	@State(Scope.Benchmark)
+	public static class ReasonerState {
+
+		CompleteReasoner reasoner;
+
+		@Setup(Level.Trial)
+		public void setup(ExtractionState state) throws AlcomoException {
+			this.reasoner = new CompleteReasoner(state.sourceOnt, state.targetOnt, state.completeProblem);
+			this.reasoner.setCoherenceCache(null);
+		}
+
+		@TearDown(Level.Invocation)
+		public void closeSession() throws AlcomoException {
+			this.reasoner.dispose();
+		}
+	}
+
+
+	/**
+	* Precomputes the conflicts of the sample detected by efficient reasoning.
+	*/
+	@Benchmark
+	public ConflictStore conflictStore(ExtractionState state) {
+		EfficientReasoner reasoner = new EfficientReasoner(state.sourceOnt, state.targetOnt, state.efficientProblem);
+		return new ConflictStore(reasoner, state.sample);
+	}
+
+	/**
+	* Extracts from the sample with the greedy algorithm and efficient (incomplete) reasoning.
+	*/
+	@Benchmark
+	public Mapping greedyEfficient(ExtractionState state) throws AlcomoException {
+		return run(new Greedy(state.efficientProblem), state);
+	}
+
+	/**
+	* Extracts from the sample with the greedy algorithm and complete reasoning.
+	*/
+	@Benchmark
+	public Mapping greedyComplete(ExtractionState state) throws AlcomoException {
+		return run(new Greedy(state.completeProblem), state);
+	}
+
+	/**
+	* Extracts from the sample with the A* search and efficient reasoning.
+	*/
+	@Benchmark
+	public Mapping aStarSearch(ExtractionState state) throws AlcomoException {
+		return run(new AStarSearch(state.efficientProblem), state);
+	}
+
+	/**
+	* Extracts from the sample with the hungarian search and efficient reasoning.
+	*/
+	@Benchmark
+	public Mapping hungarianSearch(ExtractionState state) throws AlcomoException {
+		return run(new HungarianSearch(state.efficientProblem), state);
+	}
+
+	/**
+	* Checks with complete reasoning whether the sample is incoherent.
+	*/
+	@Benchmark
+	public boolean isConflictSet(ExtractionState state, ReasonerState reasonerState) throws AlcomoException {
+		return reasonerState.reasoner.isConflictSet(state.sample);
+	}
+
+
+	private static Mapping run(AlcomoExtraction algorithm, ExtractionState state) throws AlcomoException {
+		algorithm.setSourceOntology(state.sourceOnt);
+		algorithm.setTargetOntology(state.targetOnt);
+		algorithm.setMapping(state.sample);
+		algorithm.run();
+		return algorithm.getActiveMapping();
+	}
+
+}
@@ -0,0 +1,187 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.exceptions.PCFException;
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.IOntology;
+
+/**
+* The input of the benchmarks, i.e., two classified ontologies of the bundled testdata and a
+* sample of an alignment between them. The sample consists of the given percentage of the
+* correspondences that refer to the ontologies. It is drawn with a fixed seed, thus, each sample
+* is contained in the samples of higher percentages and the runtimes of all percentages form
+* a scaling curve on the same data.
+*
+* The ontologies are loaded and classified once per trial, they are not part of the measurement.
+* Two problems are bound to them, one for efficient and one for complete reasoning.
+*/
+@State(Scope.Benchmark)
+public class ExtractionState {
+
+	/**
+	* The track of the testdata, either conference or anatomy.
+	*/
+	@Param({"conference"})
+	public String track;
+
+	/**
+	* The pair of conference ontologies, e.g. cmt-ekaw, ignored for the anatomy track.
+	*/
+	@Param({"cmt-ekaw"})
+	public String pair;
+
+	/**
+	* The alignment that is sampled, either the reference alignment or the name of a
+	* matcher with an alignment in the testdata (e.g. aroma for conference, AgrMaker for anatomy).
+	*/
+	@Param({"reference"})
+	public String alignment;
+
+	/**
+	* The size of the sample as percentage of the alignment.
+	*/
+	@Param({"25", "50", "75", "100"})
+	public int percent;
+
+	// just the seed, no need to worry ;-)
+	private static final int NUMBER_OF_THE_BEAST = 666;
+
+	String sourceFile;
+	String targetFile;
+	String alignmentFile;
+
+	IOntology sourceOnt;
+	IOntology targetOnt;
+	ExtractionProblem efficientProblem;
+	ExtractionProblem completeProblem;
+	Mapping sample;
+
+
+	/**
+	* Loads and classifies the ontologies and draws the sample from the alignment.
+	*
+	* @throws AlcomoException Thrown if the testdata cannot be loaded.
+	*/
+	@Setup(Level.Trial)
+	public void setup() throws AlcomoException {
+		Settings.BLACKBOX_REASONER = Settings.BlackBoxReasoner.PELLET;
+		this.resolveFiles();
+		this.sourceOnt = new IOntology(this.sourceFile);
+		this.targetOnt = new IOntology(this.targetFile);
+		this.efficientProblem = this.createProblem(ExtractionProblem.REASONING_EFFICIENT);
+		this.completeProblem = this.createProblem(ExtractionProblem.REASONING_COMPLETE);
+		this.sample = this.drawSample(this.efficientProblem.getReferingInputMapping());
+	}
+
+
+	// ****************************************
+	// ********** PRIVATE PLAYGROUND **********
+	// ****************************************
+
+	private ExtractionProblem createProblem(int reasoning) throws AlcomoException {
+		ExtractionProblem ep = new ExtractionProblem(
+			ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+			ExtractionProblem.METHOD_OPTIMAL,
+			reasoning
+		);
+		ep.bindSourceOntology(this.sourceOnt);
+		ep.bindTargetOntology(this.targetOnt);
+		ep.bindMapping(new Mapping(this.alignmentFile));
+		ep.init();
+		return ep;
+	}
+
+	private Mapping drawSample(Mapping mapping) {
+		ArrayList<Correspondence> correspondences = new ArrayList<Correspondence>(mapping.getCorrespondences());
+		Collections.shuffle(correspondences, new Random(NUMBER_OF_THE_BEAST));
+		int size = (int)Math.ceil(correspondences.size() * this.percent / 100.0);
+		Mapping sample = new Mapping();
+		for (int i = 0; i < size && i < correspondences.size(); i++) {
+			sample.push(correspondences.get(i));
+		}
+		sample.sortDescending();
+		return sample;
+	}
+
+	private void resolveFiles() throws PCFException {
+		if (this.percent < 1 || this.percent > 100) {
+			throw new PCFException(PCFException.INVALID_PARAM, "sample percentage " + this.percent + " not in [1, 100]");
+		}
+		if (this.track.equals("anatomy")) {
+			this.sourceFile = "testdata/anatomy/mouse.owl";
+			this.targetFile = "testdata/anatomy/human.owl";
+			if (this.alignment.equals("reference")) { this.alignmentFile = "testdata/anatomy/reference_2011.rdf"; }
+			else { this.alignmentFile = "testdata/anatomy/alignments/" + this.alignment + "/anatomy-track1.rdf"; }
+		}
+		else if (this.track.equals("conference")) {
+			String[] names = this.pair.split("-");
+			if (names.length != 2) {
+				throw new PCFException(PCFException.INVALID_PARAM, "conference pair " + this.pair + " is not of the form source-target");
+			}
+			this.sourceFile = this.findFile("testdata/conference/ontologies", names[0] + ".owl");
+			this.targetFile = this.findFile("testdata/conference/ontologies", names[1] + ".owl");
+			if (this.alignment.equals("reference")) {
+				this.alignmentFile = this.findFile("testdata/conference/references", this.pair + ".rdf");
+			}
+			else {
+				this.alignmentFile = this.findFile("testdata/conference/alignments", this.alignment + "-" + this.pair + ".rdf");
+			}
+		}
+		else {
+			throw new PCFException(PCFException.INVALID_PARAM, "unknown track " + this.track + ", use conference or anatomy");
+		}
+		if (!new File(this.alignmentFile).exists()) {
+			throw new PCFException(PCFException.INVALID_PARAM, "alignment " + this.alignmentFile + " does not exist");
+		}
+	}
+
+	// the file names of the conference testdata differ in case, e.g. confOf.owl and confof in the alignments
+	private String findFile(String dir, String name) throws PCFException {
+		String[] files = new File(dir).list();
+		if (files != null) {
+			for (String file : files) {
+				if (file.equalsIgnoreCase(name)) { return dir + "/" + file; }
+			}
+		}
+		throw new PCFException(PCFException.INVALID_PARAM, "could not find " + name + " in " + dir);
+	}
+
+}
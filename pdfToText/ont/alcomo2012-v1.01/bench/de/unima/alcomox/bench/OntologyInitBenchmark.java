@@ -0,0 +1,95 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.ontology.IOntology;
+import de.unima.alcomox.ontology.LocalOntology;
+
+/**
+* Measures the initialization of an ontology, i.e., its classification and the indexing of its
+* entities. An ontology is initialized only once, thus, each invocation gets an ontology that has
+* been parsed freshly before. Parsing is not part of the measurement.
+*/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class OntologyInitBenchmark {
+
+	/**
+	* The ontology file, relative to the directory that contains the testdata.
+	*/
+	@Param({"testdata/conference/ontologies/ekaw.owl", "testdata/anatomy/mouse.owl"})
+	public String ontology;
+
+	private ExtractionProblem extractionProblem;
+	private LocalOntology localOntology;
+
+
+	@Setup(Level.Trial)
+	public void setupProblem() throws AlcomoException {
+		Settings.BLACKBOX_REASONER = Settings.BlackBoxReasoner.PELLET;
+		this.extractionProblem = new ExtractionProblem(
+			ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+			ExtractionProblem.METHOD_OPTIMAL,
+			ExtractionProblem.REASONING_EFFICIENT
+		);
+	}
+
+	@Setup(Level.Iteration)
+	public void parseOntology() throws AlcomoException {
+		this.localOntology = new IOntology(this.ontology);
+	}
+
+	/**
+	* Initializes the ontology that has been parsed for this iteration.
+	*/
+	@Benchmark
+	public LocalOntology init() throws AlcomoException {
+		this.localOntology.init(this.extractionProblem);
+		return this.localOntology;
+	}
+
+}
@@ -0,0 +1,126 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox;
+
+import de.unima.alcomox.mapping.Mapping;
+
+/**
+* A coherent solution of an extraction problem found by an anytime extraction method, together
+* with a proven upper bound for the trust of an optimal solution. Objects of this class are
+* immutable and can be passed between threads.
+*/
+public class AnytimeSolution {
+	
+	private Mapping extractedMapping;
+	private Mapping discardedMapping;
+	private double trust;
+	private double upperBound;
+	private long elapsedMillis;
+	
+	/**
+	* Constructs a solution.
+	* 
+	* @param extractedMapping The extracted (active) mapping.
+	* @param discardedMapping The discarded (inactive) mapping.
+	* @param trust The total confidence of the extracted mapping.
+	* @param upperBound An upper bound for the total confidence of an optimal solution.
+	* @param elapsedMillis The time passed since the search started.
+	*/
+	public AnytimeSolution(Mapping extractedMapping, Mapping discardedMapping, double trust, double upperBound, long elapsedMillis) {
+		this.extractedMapping = extractedMapping;
+		this.discardedMapping = discardedMapping;
+		this.trust = trust;
+		this.upperBound = Math.max(trust, upperBound);
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	/**
+	* Returns the same solution with a tighter upper bound.
+	* 
+	* @param upperBound The new upper bound.
+	* @param elapsedMillis The time passed since the search started.
+	* @return The solution with the new bound.
+	*/
+	public AnytimeSolution withUpperBound(double upperBound, long elapsedMillis) {
+		return new AnytimeSolution(this.extractedMapping, this.discardedMapping, this.trust, upperBound, elapsedMillis);
+	}
+
+	/**
+	* @return The extracted mapping. It should not be modified.
+	*/
+	public Mapping getExtractedMapping() {
+		return this.extractedMapping;
+	}
+
+	/**
+	* @return The discarded mapping. It should not be modified.
+	*/
+	public Mapping getDiscardedMapping() {
+		return this.discardedMapping;
+	}
+
+	/**
+	* @return The total confidence of the extracted mapping.
+	*/
+	public double getTrust() {
+		return this.trust;
+	}
+
+	/**
+	* @return An upper bound for the total confidence of an optimal solution.
+	*/
+	public double getUpperBound() {
+		return this.upperBound;
+	}
+	
+	/**
+	* Returns the difference between the upper bound and the trust of this solution, i.e.
+	* the maximal amount of confidence that an optimal solution might retain in addition.
+	* 
+	* @return The absolute gap, 0 if this solution is optimal.
+	*/
+	public double getGap() {
+		return this.upperBound - this.trust;
+	}
+	
+	/**
+	* @return True if the solution is proven to be optimal; false otherwise.
+	*/
+	public boolean isOptimal() {
+		return this.getGap() <= 0.0;
+	}
+
+	/**
+	* @return The time in milliseconds passed since the search started.
+	*/
+	public long getElapsedMillis() {
+		return this.elapsedMillis;
+	}
+	
+	public String toString() {
+		return "trust=" + this.trust + " upperBound=" + this.upperBound + " gap=" + this.getGap() + " after " + this.elapsedMillis + "ms";
+	}
+
+}
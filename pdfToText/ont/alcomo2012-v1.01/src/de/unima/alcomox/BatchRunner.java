@@ -0,0 +1,362 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.exceptions.PCFException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.LocalOntology;
+import de.unima.alcomox.ontology.OntologyRegistry;
+import de.unima.alcomox.util.AlcomoLogger;
+
+/**
+* Solves a batch of extraction problems, each specified by a source ontology, a target ontology, and
+* an alignment between them. Each ontology is loaded and classified only once and shared by all problems
+* that refer to it. The problems are solved by a pool of worker threads. As soon as a problem is solved 
+* its extracted mapping is written to the output directory and a line with the results and the time 
+* required to solve it is appended to the file {@link #RESULTS_FILE}.
+* 
+* A manifest lists one problem per line as whitespace separated paths of source ontology, target
+* ontology, and alignment. Relative paths are resolved against the directory of the manifest, empty lines
+* and lines starting with # are ignored.
+*/
+public class BatchRunner {
+	
+	/**
+	* The name of the file in the output directory that contains one line of results per problem.
+	*/
+	public static final String RESULTS_FILE = "results.tsv";
+	
+	private static final String SEPARATOR = "\t";
+	
+	private AlcomoLogger log;
+	
+	private int method;
+	private int reasoning;
+	private int parallelism = 1;
+	
+	private OntologyRegistry registry;
+	private ArrayList<String[]> problems;
+	
+	/**
+	* Constructs a batch runner which solves all problems in the same way.
+	* 
+	* @param entities Value of the parameter {@link ExtractionProblem#ENTITIES}.
+	* @param method Value of the parameter {@link ExtractionProblem#METHOD}.
+	* @param reasoning Value of the parameter {@link ExtractionProblem#REASONING}.
+	* @throws PCFException Thrown if one of the values is not valid.
+	*/
+	public BatchRunner(int entities, int method, int reasoning) throws PCFException {
+		// fail early on invalid combinations
+		new ExtractionProblem(entities, method, reasoning);
+		this.log = new AlcomoLogger(this.getClass());
+		this.method = method;
+		this.reasoning = reasoning;
+		this.registry = new OntologyRegistry(entities);
+		this.problems = new ArrayList<String[]>();
+	}
+	
+	/**
+	* Sets the number of problems that are solved concurrently. Default value is 1.
+	* 
+	* @param parallelism The number of worker threads.
+	* @throws PCFException Thrown if the number is less than 1.
+	*/
+	public void setParallelism(int parallelism) throws PCFException {
+		if (parallelism < 1) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"parallelism has to be at least 1, but is " + parallelism
+			);
+		}
+		this.parallelism = parallelism;
+	}
+	
+	public int getParallelism() {
+		return this.parallelism;
+	}
+	
+	/**
+	* Returns the registry that stores the ontologies loaded so far.
+	* 
+	* @return The ontology registry.
+	*/
+	public OntologyRegistry getRegistry() {
+		return this.registry;
+	}
+	
+	/**
+	* Adds an extraction problem to the batch.
+	* 
+	* @param sourcePath The filepath or URL of the source ontology.
+	* @param targetPath The filepath or URL of the target ontology.
+	* @param alignmentPath The filepath of the alignment.
+	*/
+	public void addProblem(String sourcePath, String targetPath, String alignmentPath) {
+		this.problems.add(new String[] {sourcePath, targetPath, alignmentPath});
+	}
+	
+	/**
+	* Adds all extraction problems listed in a manifest to the batch.
+	* 
+	* @param manifestPath The filepath of the manifest.
+	* @throws PCFException Thrown if the manifest cannot be read or a line does not specify three paths.
+	*/
+	public void readManifest(String manifestPath) throws PCFException {
+		File manifest = new File(manifestPath);
+		File baseDir = manifest.getAbsoluteFile().getParentFile();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(manifest));
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) { continue; }
+				String[] paths = line.split("\\s+");
+				if (paths.length != 3) {
+					throw new PCFException(
+							PCFException.INVALID_PARAM,
+							"line " + lineNumber + " of manifest " + manifestPath + " does not specify source, target, and alignment"
+					);
+				}
+				this.addProblem(resolve(baseDir, paths[0]), resolve(baseDir, paths[1]), resolve(baseDir, paths[2]));
+			}
+		}
+		catch (IOException e) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"could not read manifest " + manifestPath + ": " + e.getMessage()
+			);
+		}
+		finally {
+			if (reader != null) {
+				try { reader.close(); }
+				catch (IOException e) { }
+			}
+		}
+	}
+	
+	/**
+	* Solves all problems of the batch. The ontologies are loaded before the first problem is solved, 
+	* a problem that refers to an ontology that cannot be loaded is reported as failed. 
+	* 
+	* @param outputDir The directory where the extracted mappings and the results file are written to.
+	* @return The number of problems that have been solved successfully.
+	* @throws PCFException Thrown if the output directory cannot be created or written.
+	*/
+	public int run(String outputDir) throws PCFException {
+		File dir = new File(outputDir);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"could not create output directory " + outputDir
+			);
+		}
+		// all loading and classification is done in advance, afterwards the ontologies are only read
+		for (String[] problem : this.problems) {
+			for (int i = 0; i < 2; i++) {
+				if (this.registry.contains(problem[i])) { continue; }
+				try { this.registry.get(problem[i]); }
+				catch (AlcomoException e) { this.log.warnS("could not load ontology " + problem[i] + ": " + clean(e.toString().trim())); }
+				catch (RuntimeException e) { this.log.warnS("could not load ontology " + problem[i] + ": " + e); }
+			}
+		}
+		this.log.infoS("solving " + this.problems.size() + " problems on " + this.registry.size() + " ontologies with " + this.parallelism + " thread(s) ...");
+		ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+		CompletionService<Result> completion = new ExecutorCompletionService<Result>(pool);
+		for (int i = 0; i < this.problems.size(); i++) {
+			final int problemId = i;
+			final String[] problem = this.problems.get(i);
+			final File mappingFile = new File(dir, getOutputName(problemId, problem[2]));
+			completion.submit(new Callable<Result>() {
+				public Result call() {
+					return solve(problemId, problem, mappingFile);
+				}
+			});
+		}
+		pool.shutdown();
+		int solved = 0;
+		BufferedWriter writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(new File(dir, RESULTS_FILE)));
+			writer.write("id" + SEPARATOR + "source" + SEPARATOR + "target" + SEPARATOR + "alignment" + SEPARATOR + "status" + SEPARATOR);
+			writer.write("input" + SEPARATOR + "extracted" + SEPARATOR + "confidence" + SEPARATOR + "ms" + SEPARATOR + "output" + SEPARATOR + "error");
+			writer.newLine();
+			writer.flush();
+			for (int i = 0; i < this.problems.size(); i++) {
+				Result result;
+				try { result = completion.take().get(); }
+				catch (InterruptedException e) {
+					pool.shutdownNow();
+					Thread.currentThread().interrupt();
+					break;
+				}
+				catch (ExecutionException e) {
+					// solve catches everything, thus this should not happen
+					this.log.warnS("unexpected failure: " + e.getCause());
+					continue;
+				}
+				if (result.error == null) { solved++; }
+				writer.write(result.toString());
+				writer.newLine();
+				writer.flush();
+				this.log.infoS("[" + (i + 1) + "/" + this.problems.size() + "] " + result.toShortString());
+			}
+		}
+		catch (IOException e) {
+			pool.shutdownNow();
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"could not write results to " + outputDir + ": " + e.getMessage()
+			);
+		}
+		finally {
+			if (writer != null) {
+				try { writer.close(); }
+				catch (IOException e) { }
+			}
+		}
+		this.log.infoS("... done, solved " + solved + " of " + this.problems.size() + " problems");
+		return solved;
+	}
+	
+	/**
+	* Runs a batch from the command line.
+	* 
+	* @param args Manifest, output directory and optionally the values of the parameters 
+	* {@link ExtractionProblem#METHOD}, {@link ExtractionProblem#REASONING}, and the number of threads. 
+	*/
+	public static void main(String[] args) throws AlcomoException {
+		if (args.length < 2) {
+			System.err.println("usage: BatchRunner <manifest> <output dir> [method] [reasoning] [threads]");
+			System.exit(1);
+		}
+		int method = (args.length > 2) ? Integer.parseInt(args[2]) : ExtractionProblem.METHOD_GREEDY;
+		int reasoning = (args.length > 3) ? Integer.parseInt(args[3]) : ExtractionProblem.REASONING_EFFICIENT;
+		int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		BatchRunner runner = new BatchRunner(ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES, method, reasoning);
+		runner.setParallelism(threads);
+		runner.readManifest(args[0]);
+		runner.run(args[1]);
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private Result solve(int problemId, String[] problem, File mappingFile) {
+		Result result = new Result(problemId, problem);
+		long start = System.currentTimeMillis();
+		try {
+			LocalOntology sourceOntology = this.registry.get(problem[0]);
+			LocalOntology targetOntology = this.registry.get(problem[1]);
+			Mapping mapping = new Mapping(problem[2]);
+			result.input = mapping.size();
+			ExtractionProblem ep = new ExtractionProblem(this.registry.getEntities(), this.method, this.reasoning);
+			ep.bindSourceOntology(sourceOntology);
+			ep.bindTargetOntology(targetOntology);
+			ep.bindMapping(mapping);
+			ep.solve();
+			Mapping extracted = ep.getExtractedMapping();
+			result.extracted = extracted.size();
+			result.confidence = extracted.getConfidenceTotal();
+			result.millis = System.currentTimeMillis() - start;
+			extracted.write(mappingFile.getPath());
+			result.output = mappingFile.getName();
+		}
+		catch (AlcomoException e) {
+			result.error = e.toString().trim();
+		}
+		catch (RuntimeException e) {
+			result.error = e.toString();
+		}
+		if (result.millis < 0) { result.millis = System.currentTimeMillis() - start; }
+		return result;
+	}
+	
+	private static String resolve(File baseDir, String path) {
+		File file = new File(path);
+		if (file.isAbsolute() || path.contains("://")) { return path; }
+		return new File(baseDir, path).getPath();
+	}
+	
+	private static String getOutputName(int problemId, String alignmentPath) {
+		String name = new File(alignmentPath).getName();
+		if (name.endsWith(".rdf")) { name = name.substring(0, name.length() - 4); }
+		return problemId + "-" + name + ".rdf";
+	}
+	
+	private static String clean(String s) {
+		return (s == null) ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+	}
+	
+	/**
+	* The outcome of solving one problem of the batch.
+	*/
+	private static class Result {
+		
+		private int id;
+		private String[] problem;
+		private int input = -1;
+		private int extracted = -1;
+		private double confidence = 0.0;
+		// time for solving, not including writing the mapping
+		private long millis = -1;
+		private String output = null;
+		private String error = null;
+		
+		private Result(int id, String[] problem) {
+			this.id = id;
+			this.problem = problem;
+		}
+		
+		public String toString() {
+			return 
+				this.id + SEPARATOR + clean(this.problem[0]) + SEPARATOR + clean(this.problem[1]) + SEPARATOR + clean(this.problem[2]) + SEPARATOR +
+				((this.error == null) ? "OK" : "FAILED") + SEPARATOR + this.input + SEPARATOR + this.extracted + SEPARATOR + 
+				this.confidence + SEPARATOR + this.millis + SEPARATOR + clean(this.output) + SEPARATOR + clean(this.error);
+		}
+		
+		public String toShortString() {
+			if (this.error != null) { return new File(this.problem[2]).getName() + " failed: " + this.error; }
+			return new File(this.problem[2]).getName() + " " + this.input + " -> " + this.extracted + " in " + this.millis + "ms";
+		}
+	}
+
+}
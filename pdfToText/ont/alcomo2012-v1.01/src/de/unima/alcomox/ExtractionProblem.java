@@ -98,6 +98,54 @@ public class ExtractionProblem extends AlcomoProblem {
 	*/
 	public static final int METHOD_GREEDY_MINIMIZE = 4;	
 	
+	/**
+	* Method to find an optimal solution like {@link #METHOD_OPTIMAL} that stores a bounded number
+	* of search nodes (see {@link #setNodeBudget(int)}). If the budget is exceeded, the search continues as
+	* iterative deepening search. This requires memory linear in the depth of the search tree only, but
+	* might expand nodes several times. The solution is optimal in both cases. If the budget is never
+	* exceeded, the solution is the same as the one of {@link #METHOD_OPTIMAL}.
+	*/
+	public static final int METHOD_OPTIMAL_BOUNDED = 5;
+	
+	/**
+	* Method to find an optimal solution like {@link #METHOD_OPTIMAL} with a parallel search that
+	* uses as many threads as specified by {@link #setParallelism(int)}. Can only be used together
+	* with efficient reasoning. If there are several optimal solutions, it depends on the scheduling of
+	* the threads which of them is returned.
+	*/
+	public static final int METHOD_OPTIMAL_PARALLEL = 6;
+	
+	/**
+	* Anytime method that quickly finds a first solution and improves it until an optimal solution
+	* has been found or the time budget ({@link #setTimeBudget(long)}) is exceeded. Each solution is
+	* published together with an upper bound for the trust of an optimal solution, see
+	* {@link #setSolutionListener(SolutionListener)} and {@link #getCurrentSolution()}. Can only be used
+	* together with efficient reasoning.
+	*/
+	public static final int METHOD_OPTIMAL_ANYTIME = 7;
+	
+	/**
+	* Method to find an optimal solution like {@link #METHOD_OPTIMAL} that decomposes the problem into
+	* independent components of conflicting correspondences. The components are solved on as many threads as
+	* specified by {@link #setParallelism(int)}. Conflicts detected by complete reasoning merge the affected
+	* components, which are solved again. If there are several optimal solutions, another one than the one
+	* of {@link #METHOD_OPTIMAL} might be returned.
+	*/
+	public static final int METHOD_OPTIMAL_COMPONENTS = 8;
+	
+	/**
+	* A minimal conflict set is computed by removing one correspondence after the other and checking
+	* whether the remaining correspondences are still conflicting. Requires one reasoner call for each
+	* correspondence of the conflicting mapping.
+	*/
+	public static final int CONFLICT_SEARCH_LINEAR = 1;
+	
+	/**
+	* A minimal conflict set is computed by recursively splitting the conflicting mapping (QuickXplain).
+	* Requires O(k log(n/k)) reasoner calls for a conflict set of size k in a mapping of size n.
+	*/
+	public static final int CONFLICT_SEARCH_QUICKXPLAIN = 2;
+	
 	/**
 	* Only concepts correspondences.
 	*/
@@ -145,10 +193,28 @@ public class ExtractionProblem extends AlcomoProblem {
 	private Mapping extractedMapping;
 	private Mapping discardedMapping;
 	
-	private AlcomoExtraction algorithm;
+	private volatile AlcomoExtraction algorithm;
 
 	private boolean partOfAsDisjointness = false;
 	
+	private int parallelism = 1;
+	
+	private int nodeBudget = 100000;
+	
+	private double anytimeWeight = 2.0;
+	
+	private long timeBudget = 0;
+	
+	private SolutionListener solutionListener = null;
+	
+	private volatile long deadline = 0;
+	
+	private volatile boolean cancelled = false;
+	
+	private ExtractionMetrics metrics = new ExtractionMetrics();
+	
+	private int conflictSearch = CONFLICT_SEARCH_QUICKXPLAIN;
+	
 	/**
 	* Constructs an extraction problem and specifies the way it will be solved.
 	* 
@@ -222,6 +288,218 @@ public class ExtractionProblem extends AlcomoProblem {
 		this.partOfAsDisjointness  = true;		
 	}
 	
+	/**
+	* Sets the number of threads used to solve the problem. The number is used for precomputing the
+	* conflicts detectable by efficient reasoning, as the number of workers of {@link #METHOD_OPTIMAL_PARALLEL},
+	* and as the size of the pool that solves the components of {@link #METHOD_OPTIMAL_COMPONENTS}.
+	* The trust of the result does not depend on this number. Parallel precomputation requires a taxonomy
+	* index for both ontologies, which is built if {@link Settings#TAXONOMY_INDEX} is activated,
+	* otherwise the precomputation falls back to one thread.
+	* 
+	* @param parallelism The number of threads, 1 by default.
+	* @throws PCFException Thrown if the number of threads is less than 1.
+	*/
+	public void setParallelism(int parallelism) throws PCFException {
+		if (parallelism < 1) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"parallelism has to be at least 1, but is " + parallelism
+			);
+		}
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	* Returns the number of threads used to solve the problem, see {@link #setParallelism(int)}.
+	* 
+	* @return The number of threads.
+	*/
+	public int getParallelism() {
+		return this.parallelism;
+	}
+	
+	/**
+	* Sets the maximal number of search nodes stored by {@link #METHOD_OPTIMAL_BOUNDED}.
+	* 
+	* @param nodeBudget The maximal number of nodes, 100000 by default.
+	* @throws PCFException Thrown if the budget is less than 1.
+	*/
+	public void setNodeBudget(int nodeBudget) throws PCFException {
+		if (nodeBudget < 1) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"node budget has to be at least 1, but is " + nodeBudget
+			);
+		}
+		this.nodeBudget = nodeBudget;
+	}
+	
+	/**
+	* Returns the maximal number of search nodes stored by {@link #METHOD_OPTIMAL_BOUNDED}.
+	* 
+	* @return The node budget.
+	*/
+	public int getNodeBudget() {
+		return this.nodeBudget;
+	}
+	
+	/**
+	* Sets the strategy used by complete reasoning to compute a minimal conflict set within a conflicting mapping.
+	* 
+	* @param conflictSearch {@link #CONFLICT_SEARCH_QUICKXPLAIN} (default) or {@link #CONFLICT_SEARCH_LINEAR}.
+	* @throws PCFException Thrown if the strategy is unknown.
+	*/
+	public void setConflictSearch(int conflictSearch) throws PCFException {
+		if (conflictSearch != CONFLICT_SEARCH_LINEAR && conflictSearch != CONFLICT_SEARCH_QUICKXPLAIN) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"value " + conflictSearch + " of conflict search is invalid"
+			);
+		}
+		this.conflictSearch = conflictSearch;
+	}
+	
+	/**
+	* Returns the strategy used by complete reasoning to compute a minimal conflict set.
+	* 
+	* @return The conflict search strategy.
+	*/
+	public int getConflictSearch() {
+		return this.conflictSearch;
+	}
+	
+	/**
+	* Sets the weight of the estimated trust loss used by {@link #METHOD_OPTIMAL_ANYTIME}. A higher weight
+	* leads faster to a first solution, a weight of 1.0 makes the search behave like an A* search. 
+	* 
+	* @param anytimeWeight The weight, 2.0 by default.
+	* @throws PCFException Thrown if the weight is less than 1.0.
+	*/
+	public void setAnytimeWeight(double anytimeWeight) throws PCFException {
+		if (anytimeWeight < 1.0) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"anytime weight has to be at least 1.0, but is " + anytimeWeight
+			);
+		}
+		this.anytimeWeight = anytimeWeight;
+	}
+	
+	/**
+	* Returns the weight of the estimated trust loss used by {@link #METHOD_OPTIMAL_ANYTIME}.
+	* 
+	* @return The weight.
+	*/
+	public double getAnytimeWeight() {
+		return this.anytimeWeight;
+	}
+	
+	/**
+	* Sets the time after which {@link #METHOD_OPTIMAL_ANYTIME} stops and returns the best solution
+	* found so far. The time required to load and classify the ontologies is not included.
+	* 
+	* @param timeBudget The time budget in milliseconds, 0 (unbounded) by default.
+	* @throws PCFException Thrown if the budget is negative.
+	*/
+	public void setTimeBudget(long timeBudget) throws PCFException {
+		if (timeBudget < 0) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"time budget must not be negative, but is " + timeBudget
+			);
+		}
+		this.timeBudget = timeBudget;
+	}
+	
+	/**
+	* Returns the time budget of {@link #METHOD_OPTIMAL_ANYTIME}.
+	* 
+	* @return The time budget in milliseconds, 0 if unbounded.
+	*/
+	public long getTimeBudget() {
+		return this.timeBudget;
+	}
+	
+	/**
+	* Sets a listener that is notified about each improved solution found by {@link #METHOD_OPTIMAL_ANYTIME}.
+	* 
+	* @param solutionListener The listener, null to remove the listener.
+	*/
+	public void setSolutionListener(SolutionListener solutionListener) {
+		this.solutionListener = solutionListener;
+	}
+	
+	/**
+	* Returns the best solution found so far by {@link #METHOD_OPTIMAL_ANYTIME}. This method can be
+	* called by another thread while the problem is being solved.
+	* 
+	* @return The current solution, or null if there is none yet or another method has been chosen.
+	*/
+	public AnytimeSolution getCurrentSolution() {
+		AlcomoExtraction current = this.algorithm;
+		if (current instanceof AnytimeSearch) {
+			return ((AnytimeSearch)current).getCurrentSolution();
+		}
+		return null;
+	}
+	
+	/**
+	* Sets a point in time after which the algorithm stops as if it had been interrupted and returns the
+	* result computed so far. The algorithm checks the deadline at the same points where it checks for an
+	* interrupt, thus, a long running reasoner call is not aborted.
+	* 
+	* @param deadline The deadline in milliseconds as returned by System.currentTimeMillis(), 0 (none) by default.
+	* @throws PCFException Thrown if the deadline is negative.
+	*/
+	public void setDeadline(long deadline) throws PCFException {
+		if (deadline < 0) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"deadline must not be negative, but is " + deadline
+			);
+		}
+		this.deadline = deadline;
+	}
+	
+	/**
+	* Returns the point in time after which the algorithm stops.
+	* 
+	* @return The deadline in milliseconds, 0 if there is none.
+	*/
+	public long getDeadline() {
+		return this.deadline;
+	}
+	
+	/**
+	* Requests the algorithm to stop at the next point where it checks for an interrupt. In contrast
+	* to an interrupt, this method can be called by any thread and does not affect the solving thread
+	* or the threads used by the algorithm otherwise.
+	*/
+	public void cancel() {
+		this.cancelled = true;
+	}
+	
+	/**
+	* Checks whether the algorithm is asked to stop.
+	* 
+	* @return True if the problem has been cancelled or its deadline has passed; false otherwise.
+	*/
+	public boolean isCancelled() {
+		if (this.cancelled) { return true; }
+		long deadline = this.deadline;
+		return deadline > 0 && System.currentTimeMillis() >= deadline;
+	}
+	
+	/**
+	* Returns the times and counts measured while this problem is initialized and solved. The metrics
+	* can be read while the problem is being solved, they are accumulated if the problem is solved again.
+	* 
+	* @return The metrics of this problem.
+	*/
+	public ExtractionMetrics getMetrics() {
+		return this.metrics;
+	}
+	
 	/**
 	* Solves the extraction problem.
 	*
@@ -245,18 +523,33 @@ public class ExtractionProblem extends AlcomoProblem {
 		else if (params.get(METHOD) == METHOD_GREEDY_MINIMIZE) {
 			algorithm = new GreedyMinimize(this);
 		}	
+		else if (params.get(METHOD) == METHOD_OPTIMAL_BOUNDED) {
+			algorithm = new AStarSearch(this, this.nodeBudget);
+		}
+		else if (params.get(METHOD) == METHOD_OPTIMAL_PARALLEL) {
+			algorithm = new ParallelAStarSearch(this);
+		}
+		else if (params.get(METHOD) == METHOD_OPTIMAL_ANYTIME) {
+			algorithm = new AnytimeSearch(this, this.anytimeWeight, this.timeBudget, this.solutionListener);
+		}
+		else if (params.get(METHOD) == METHOD_OPTIMAL_COMPONENTS) {
+			algorithm = new ComponentSearch(this);
+		}
 		this.algorithm.setSourceOntology(this.sourceOntology);
 		this.algorithm.setTargetOntology(this.targetOntology);
 		this.algorithm.setMapping(this.inputMapping);
 		
 		// DataStorage.mirror.startClock();
 		AlcomoLogger.takeTime("running the algorithm");
+		long start = ExtractionMetrics.startTimer();
 		this.algorithm.run();
+		this.metrics.stopTimer(ExtractionMetrics.Phase.SEARCH, start);
 		AlcomoLogger.takeTime("algorithm finished");
 		// DataStorage.mirror.takeTime();
 		
 		this.extractedMapping = this.algorithm.getActiveMapping();
 		this.discardedMapping = this.algorithm.getInactiveMapping();
+		this.metrics.emitSummary(params.get(METHOD), params.get(REASONING), this.inputMapping.size(), this.extractedMapping.size());
 		return this.algorithm.terminatedCorrectly();
 	}
 	
@@ -275,7 +568,8 @@ public class ExtractionProblem extends AlcomoProblem {
 			);
 		}
 		CompleteReasoner reasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this);
-		return (!(reasoner.isConflictSet(this.extractedMapping)));
+		try { return (!(reasoner.isConflictSet(this.extractedMapping))); }
+		finally { reasoner.dispose(); }
 	}	
 	
 	/**
@@ -355,12 +649,14 @@ public class ExtractionProblem extends AlcomoProblem {
 		super.init();
 		// load both ontologies for connecting with the mapping and reasoning
 		// DataStorage.mirror.startClock();
+		long start = ExtractionMetrics.startTimer();
 		AlcomoLogger.takeTime("load source ontology");
 		this.sourceOntology.init(this);
 		// DataStorage.mirror.takeTime();
 		AlcomoLogger.takeTime("load target ontology");
 		this.targetOntology.init(this);
 		// DataStorage.mirror.takeTime();
+		this.metrics.stopTimer(ExtractionMetrics.Phase.LOAD, start);
 		this.nonReferingInputMapping = this.inputMapping.bind(this.sourceOntology, this.targetOntology);
 
 	}
@@ -386,7 +682,7 @@ public class ExtractionProblem extends AlcomoProblem {
 			);
 		}
 		// valid values chosen ?
-		if ((this.params.get(METHOD) != METHOD_GREEDY) && (this.params.get(METHOD) != METHOD_OPTIMAL) && (this.params.get(METHOD) != METHOD_OPTIMAL_HUN)  && (this.params.get(METHOD) != METHOD_GREEDY_MINIMIZE)) {
+		if ((this.params.get(METHOD) != METHOD_GREEDY) && (this.params.get(METHOD) != METHOD_OPTIMAL) && (this.params.get(METHOD) != METHOD_OPTIMAL_HUN)  && (this.params.get(METHOD) != METHOD_GREEDY_MINIMIZE) && (this.params.get(METHOD) != METHOD_OPTIMAL_BOUNDED) && (this.params.get(METHOD) != METHOD_OPTIMAL_PARALLEL) && (this.params.get(METHOD) != METHOD_OPTIMAL_ANYTIME) && (this.params.get(METHOD) != METHOD_OPTIMAL_COMPONENTS)) {
 			throw new PCFException(
 					PCFException.INVALID_PARAM,
 					"value of " + METHOD + " is invalid"
@@ -445,6 +741,38 @@ public class ExtractionProblem extends AlcomoProblem {
 			break;
 		case 124:
 			break;
+		case 115:
+			break;
+		case 125:
+			break;
+		case 215:
+			break;
+		case 225:
+			break;
+		case 315:
+			break;
+		case 325:
+			break;
+		case 116:
+			break;
+		case 126:
+			break;
+		case 117:
+			break;
+		case 127:
+			break;
+		case 118:
+			break;
+		case 128:
+			break;
+		case 218:
+			break;
+		case 228:
+			break;
+		case 318:
+			break;
+		case 328:
+			break;
 		default:
 			throw new PCFException(
 					PCFException.INVALID_PARAM_COMBINATION,
@@ -517,9 +845,12 @@ public class ExtractionProblem extends AlcomoProblem {
 		if (this.initialized) {
 			HashSet<String> mergedUnsatisfiableEntityURIs = new HashSet<String>();
 			CompleteReasoner cr = new CompleteReasoner(this.sourceOntology, this.targetOntology, this);
-			for (OWLClass c : cr.getUnsatisfiableClasses(this.inputMapping)) {
-				mergedUnsatisfiableEntityURIs.add(c.getIRI().toURI().toString());
+			try {
+				for (OWLClass c : cr.getUnsatisfiableClasses(this.inputMapping)) {
+					mergedUnsatisfiableEntityURIs.add(c.getIRI().toURI().toString());
+				}
 			}
+			finally { cr.dispose(); }
 			return mergedUnsatisfiableEntityURIs;	
 		}
 		else {
@@ -80,6 +80,53 @@ public class Settings {
 	*/
 	public static boolean PRE_CLASSIFY = true;
 	
+	/**
+	* If activated each local ontology builds an interval based taxonomy index after classification,
+	* which is used to answer all subsumption and disjointness queries of the efficient reasoning
+	* without calling the reasoner. An IOntology builds the index in any case.
+	*/
+	public static boolean TAXONOMY_INDEX = true;
+	
+	/**
+	* The directory where classification snapshots of the local ontologies are stored. If an ontology file
+	* has not changed since its snapshot has been written, the taxonomy index and the unsatisfiable classes
+	* are read from the snapshot and the ontology is classified only if the reasoner is queried directly.
+	* Requires TAXONOMY_INDEX. Use null to deactivate snapshots.
+	*/
+	public static String SNAPSHOT_DIRECTORY = null;
+	
+	/**
+	* If activated the complete reasoner keeps one reasoner alive over the merged ontology and
+	* passes only the changes of the mapping axioms from one check to the next to the reasoner,
+	* which applies them incrementally if possible. Deactivate to create a new reasoner for each check.
+	* If activated, Pellet is run with tracing (PelletOptions.USE_TRACING), which is required to remove
+	* axioms without reloading. As this option is global, it is also active for other reasoners created
+	* while a complete reasoner is alive. It is set back when the last complete reasoner is disposed.
+	*/
+	public static boolean INCREMENTAL_REASONING = true;
+	
+	/**
+	* The maximal number of coherent and of incoherent mappings whose complete reasoning results are
+	* cached by each complete reasoner. Checks of subsets of coherent and supersets of incoherent mappings
+	* are answered by the cache. Use 0 to deactivate the cache.
+	*/
+	public static int COHERENCE_CACHE_SIZE = 1000;
+	
+	
+	/**
+	* The uniform cost search of the optimal method solves the assignment problems of a mapping matrix
+	* with a sparse solver, if the fraction of its cells that contain a correspondence is lower than this value.
+	* Use 0.0 to solve always on the dense matrix, which requires memory in the number of source times target entities.
+	*/
+	public static double SPARSE_ASSIGNMENT_DENSITY = 0.1;
+	
+	/**
+	* If activated the metrics of each extraction problem are emitted as Java Flight Recorder events
+	* (de.unima.alcomox.Phase and de.unima.alcomox.Extraction), which are recorded only if a recording
+	* is running. Requires Java 11 or later, otherwise no events are emitted.
+	*/
+	public static boolean JFR_EVENTS = true;
+	
 	
 	/**
 	* If activated only strict one to one alignments are extracted. In standard settings this should not be
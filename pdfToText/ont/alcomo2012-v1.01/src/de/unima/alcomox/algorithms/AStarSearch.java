@@ -25,7 +25,9 @@
 package de.unima.alcomox.algorithms;
 
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.PriorityQueue;
 import java.util.Set;
 
@@ -34,17 +36,23 @@ import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.mapping.Mapping;
 import de.unima.alcomox.ontology.CompleteReasoner;
 import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.util.ExtractionMetrics;
 // import de.unima.alcomox.util.DataStorage;
 
 /**
 * A uniform cost search to solve an extraction problem. . 
+* 
+* The number of nodes stored in the queue can be bounded. If the bound is exceeded, the queue is
+* dropped and the search continues as iterative deepening search on the estimated trust. This search
+* stores only the nodes along the current path and their siblings, but might expand nodes several times.
 */
 public class AStarSearch extends AlcomoExtraction {
 	
 	private EfficientReasoner efficientReasoner;
 	private CompleteReasoner completeReasoner = null;
 	
-
+	// maximal number of nodes in the queue, 0 if unbounded
+	private int nodeBudget = 0;
 	
 	/**
 	* Constructs a algorithm implementing a uniform cost search by spanning a tree where every node
@@ -55,6 +63,18 @@ public class AStarSearch extends AlcomoExtraction {
 	public AStarSearch(ExtractionProblem extractionProblem) {
 		super(extractionProblem);
 	}
+	
+	/**
+	* Constructs a algorithm implementing a uniform cost search that stores at most a given number of nodes.
+	* If this number is exceeded, the search continues as iterative deepening search.
+	*  
+	* @param extractionProblem The problem to be solved.
+	* @param nodeBudget The maximal number of nodes stored in the queue.
+	*/
+	public AStarSearch(ExtractionProblem extractionProblem, int nodeBudget) {
+		super(extractionProblem);
+		this.nodeBudget = nodeBudget;
+	}
 
 	/**
 	* @see de.unima.alcomox.algorithms.AlcomoExtraction#run()
@@ -64,7 +84,6 @@ public class AStarSearch extends AlcomoExtraction {
 		// efficient reasoning optimized version
 		if (this.typeOfReasoning == ExtractionProblem.REASONING_EFFICIENT || this.typeOfReasoning == ExtractionProblem.REASONING_COMPLETE || this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE) {
 			// prepare a complete reasoner if necesarry
-			Mapping tempMapping = null;
 			if (this.typeOfReasoning == ExtractionProblem.REASONING_COMPLETE || this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE) { 
 				this.completeReasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
 				this.log.infoS("a*search with complete reasoning finding an optimal solution ...");
@@ -88,7 +107,7 @@ public class AStarSearch extends AlcomoExtraction {
 			}
 			else {
 				// pre computed conflict store
-				conflictStore = new ConflictStore(this.efficientReasoner, this.mapping); 
+				conflictStore = new ConflictStore(this.efficientReasoner, this.mapping, this.extractionProblem.getParallelism()); 
 			}
 			IndexMarker marker = new IndexMarker(mapping, conflictStore);
 			queue.add(marker);
@@ -104,59 +123,149 @@ public class AStarSearch extends AlcomoExtraction {
 					break;
 				}
 				nodesInQueue.remove(m);
+				this.metrics.increment(ExtractionMetrics.Counter.NODES_EXPANDED);
 				if (m.activeSize() < minActiveSizeInTree) {					
 					minActiveSizeInTree = m.activeSize();
 					this.activeMapping = m.getActiveMapping(this.mapping);
 					this.inactiveMapping = m.getInactiveMapping(this.mapping);
 					this.log.infoS("size of smallest mapping reduced, size=" + minActiveSizeInTree + ", trust=" + m.getTrust() + ", queuesize=" + queue.size() + "");					
 				}
-				Set<Integer> conflictIndices = conflictStore.getConflictingIndices(m);
-				// solution found for efficient reasoning (complete reasoning might still detect conflicts)
+				Set<Integer> conflictIndices = this.getConflictingIndices(m, conflictStore);
+				// solution found (verified by complete reasoning if required)
 				if (conflictIndices == null) {
-					tempMapping = m.getActiveMapping(this.mapping);
-					
-					if (this.typeOfReasoning == ExtractionProblem.REASONING_EFFICIENT) {
-						this.activeMapping = tempMapping;
-						this.inactiveMapping = m.getInactiveMapping(this.mapping);
-						break;
-					}
-					else if (this.typeOfReasoning == ExtractionProblem.REASONING_COMPLETE || this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE) {
-						// TODO here is where the rubber hits the road
-						// System.out.println("*** create new complete reasoner  ***");
-						this.completeReasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
-						
-						this.log.infoW("[complete reasoning ... ");
-						if (!(completeReasoner.isConflictSet(tempMapping))) {
-							
-							this.activeMapping = tempMapping;
-							this.inactiveMapping = m.getInactiveMapping(this.mapping);
-							this.log.infoW("no additional conflicts detected]\n");
-							break;
-						}
-						else {
-							// DataStorage.mirror.count();
-							Mapping conflictMapping = completeReasoner.getConflictSet(tempMapping);
-							// System.out.println("*** finished computation of conflict set ***");
-							conflictIndices = conflictStore.getIndicesAndSetConflicts(conflictMapping);
-							this.log.infoW("detected conflict set " + conflictMapping.toVeryShortString() + " of size " + conflictIndices.size() + "]\n");
-						}						
-					}
+					this.activeMapping = m.getActiveMapping(this.mapping);
+					this.inactiveMapping = m.getInactiveMapping(this.mapping);
+					break;
+				}
+				for (Integer index : conflictIndices) {
+					IndexMarker child = m.getChild(index, conflictStore);			
+					if (!(nodesInQueue.contains(child))) {
+						queue.add(child);
+						nodesInQueue.add(child);
+						this.metrics.increment(ExtractionMetrics.Counter.NODES_GENERATED);
+					}	
+				}
+				this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, queue.size());
+				if (this.nodeBudget > 0 && queue.size() > this.nodeBudget) {
+					// the best node in the queue bounds the trust of each solution
+					double threshold = queue.peek().getFinalTrust();
+					this.log.infoS("node budget of " + this.nodeBudget + " exceeded, continue with iterative deepening");
+					queue.clear();
+					nodesInQueue.clear();
+					this.runIterativeDeepening(marker, conflictStore, threshold);
+					break;
 				}
-				// looks strange, but in former if-branch conflict indices
-				// might have been reinitialized due to complete reasoning
-				if (conflictIndices != null) {
-					for (Integer index : conflictIndices) {
-						IndexMarker child = m.getChild(index, conflictStore);			
-						if (!(nodesInQueue.contains(child))) {
-							queue.add(child);
-							nodesInQueue.add(child);
-						}	
-					}
-				} 	
 			} 
+			if (this.completeReasoner != null) { this.completeReasoner.dispose(); }
 			this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " (optimal)");
 		}		
 	}
+	
+	/**
+	* Checks whether there are conflicts in the active mapping of a marker. If efficient reasoning
+	* detects no conflict, complete reasoning is used in case of complete or brute force reasoning.
+	* A conflict detected by complete reasoning is added to the conflict store.
+	* 
+	* @param m The marker that defines the active mapping.
+	* @param conflictStore The conflicts detected so far.
+	* @return The indices of a conflict, or null if the active mapping is a solution.
+	* @throws AlcomoException
+	*/
+	private Set<Integer> getConflictingIndices(IndexMarker m, ConflictStore conflictStore) throws AlcomoException {
+		Set<Integer> conflictIndices = conflictStore.getConflictingIndices(m);
+		// solution found for efficient reasoning (complete reasoning might still detect conflicts)
+		if (conflictIndices == null && (this.typeOfReasoning == ExtractionProblem.REASONING_COMPLETE || this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE)) {
+			Mapping tempMapping = m.getActiveMapping(this.mapping);
+			// the complete reasoner is reused, with incremental reasoning only the changed axioms are passed to the reasoner
+			this.log.infoW("[complete reasoning ... ");
+			if (!(completeReasoner.isConflictSet(tempMapping))) {
+				this.log.infoW("no additional conflicts detected]\n");
+			}
+			else {
+				// DataStorage.mirror.count();
+				Mapping conflictMapping = completeReasoner.getConflictSet(tempMapping);
+				// System.out.println("*** finished computation of conflict set ***");
+				conflictIndices = conflictStore.getIndicesAndSetConflicts(conflictMapping);
+				this.log.infoW("detected conflict set " + conflictMapping.toVeryShortString() + " of size " + conflictIndices.size() + "]\n");
+			}						
+		}
+		return conflictIndices;
+	}
+	
+	/**
+	* Searches depth first for solutions, cutting off each node with an estimated trust lower than a
+	* threshold. The best solution found so far is kept and each node that cannot improve it is pruned.
+	* If a node that has been cut off might lead to a better solution, the threshold is lowered such that
+	* at least as many nodes as in the previous iteration are added and the search starts again at the root.
+	* The result is optimal, because the estimated trust of a node is never lower than the trust of a solution
+	* below that node. Nodes that have been visited within an iteration are not visited again as long as the
+	* number of stored nodes does not exceed the node budget.
+	* 
+	* @param root The root of the search tree.
+	* @param conflictStore The conflicts detected so far.
+	* @param threshold An upper bound for the trust of a solution.
+	* @throws AlcomoException
+	*/
+	private void runIterativeDeepening(IndexMarker root, ConflictStore conflictStore, double threshold) throws AlcomoException {
+		IndexMarker bestSolution = null;
+		double bestTrust = Double.NEGATIVE_INFINITY;
+		int expanded = 0;
+		while (true) {
+			this.log.infoS("iterative deepening with trust threshold " + threshold);
+			HashSet<IndexMarker> visited = new HashSet<IndexMarker>();
+			// the best estimations of the nodes cut off, used to choose the next threshold
+			int numOfCutOffs = Math.min(Math.max(1, expanded), this.nodeBudget);
+			PriorityQueue<Double> cutOffs = new PriorityQueue<Double>(numOfCutOffs);
+			expanded = 0;
+			LinkedList<IndexMarker> stack = new LinkedList<IndexMarker>();
+			stack.push(root);
+			while (!stack.isEmpty()) {
+				if (this.hasBeenInterrupted()) { return; }
+				IndexMarker m = stack.pop();
+				if (m.getFinalTrust() <= bestTrust) { continue; }
+				if (m.getFinalTrust() < threshold) {
+					if (cutOffs.size() < numOfCutOffs) {
+						cutOffs.add(m.getFinalTrust());
+					}
+					else if (cutOffs.peek() < m.getFinalTrust()) {
+						cutOffs.poll();
+						cutOffs.add(m.getFinalTrust());
+					}
+					continue;
+				}
+				if (visited.contains(m)) { continue; }
+				if (visited.size() < this.nodeBudget) { visited.add(m); }
+				expanded++;
+				this.metrics.increment(ExtractionMetrics.Counter.NODES_EXPANDED);
+				Set<Integer> conflictIndices = this.getConflictingIndices(m, conflictStore);
+				if (conflictIndices == null) {
+					bestSolution = m;
+					bestTrust = m.getTrust();
+					this.activeMapping = m.getActiveMapping(this.mapping);
+					this.inactiveMapping = m.getInactiveMapping(this.mapping);
+					continue;
+				}
+				ArrayList<IndexMarker> children = new ArrayList<IndexMarker>(conflictIndices.size());
+				for (Integer index : conflictIndices) {
+					children.add(m.getChild(index, conflictStore));
+				}
+				// the first child is expanded first
+				for (int i = children.size() - 1; i >= 0; i--) {
+					stack.push(children.get(i));
+				}
+				this.metrics.add(ExtractionMetrics.Counter.NODES_GENERATED, children.size());
+				this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, stack.size());
+			}
+			// there is no node cut off that might lead to a better solution
+			boolean improvable = false;
+			for (double cutOff : cutOffs) {
+				if (cutOff > bestTrust) { improvable = true; }
+			}
+			if (!improvable && bestSolution != null) { return; }
+			if (cutOffs.isEmpty()) { return; }
+			threshold = cutOffs.peek();
+		}
+	}
 
 	
 }
@@ -29,6 +29,7 @@ import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.mapping.Mapping;
 import de.unima.alcomox.ontology.LocalOntology;
 import de.unima.alcomox.util.AlcomoLogger;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 public abstract class AlcomoExtraction {
 	
@@ -47,6 +48,8 @@ public abstract class AlcomoExtraction {
 	
 	protected AlcomoLogger log;
 	
+	protected ExtractionMetrics metrics;
+	
 	
 	/**
 	* Solves the eaxtraction problem by selecting a part of the mapping as activated and the
@@ -62,6 +65,7 @@ public abstract class AlcomoExtraction {
 	public AlcomoExtraction(ExtractionProblem extractionProblem) {
 		this.log = new AlcomoLogger(this.getClass());
 		this.extractionProblem = extractionProblem;
+		this.metrics = extractionProblem.getMetrics();
 		this.typeOfReasoning = this.extractionProblem.getParam(ExtractionProblem.REASONING);
 		this.activeMapping = new Mapping();
 		this.inactiveMapping = new Mapping();
@@ -107,12 +111,12 @@ public abstract class AlcomoExtraction {
 	}
 	
 	/**
-	* Checks for an interrupt, stores current results and stops computation.
+	* Checks for an interrupt or a cancellation of the extraction problem, stores current results and stops computation.
 	* 
-	* @return True, if the thread has been interrupted; false otherwise.
+	* @return True, if the thread has been interrupted or the problem has been cancelled; false otherwise.
 	*/
 	protected boolean hasBeenInterrupted() {
-		if (Thread.currentThread().isInterrupted()) {
+		if (Thread.currentThread().isInterrupted() || this.extractionProblem.isCancelled()) {
 			this.terminated = false;
 			this.log.infoS("... interrupted, thread has been terminated due to a timeout!");
 			// this.log.infoS("... result at time of interrupt: active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size());
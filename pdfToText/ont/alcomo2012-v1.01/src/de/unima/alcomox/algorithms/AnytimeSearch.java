@@ -0,0 +1,210 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import de.unima.alcomox.AnytimeSolution;
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.SolutionListener;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.util.ExtractionMetrics;
+
+/**
+* An anytime search (anytime weighted A*) to solve an extraction problem with efficient reasoning.
+* 
+* A first solution is constructed by a greedy dive from the root, removing in each conflict the
+* correspondence with the lowest confidence. Afterwards nodes are expanded in the order of their
+* trust reduced by the weighted estimated trust loss, which prefers nodes close to a solution. Each
+* better solution is published together with an upper bound for the trust of an optimal solution,
+* which is the highest (unweighted) estimated trust of a node in the queue. The search stops if the
+* queue is empty, in this case the last solution is optimal, if the time budget is exceeded, or if
+* the thread is interrupted.
+*/
+public class AnytimeSearch extends AlcomoExtraction {
+	
+	// number of expansions after which the upper bound is refreshed for polling
+	private static final int BOUND_REFRESH_INTERVAL = 1000;
+	
+	private double weight;
+	private long timeBudget;
+	private SolutionListener listener;
+	
+	private long startTime;
+	private IndexMarker bestSolution = null;
+	private volatile AnytimeSolution currentSolution = null;
+	// the number of queued nodes per estimated trust
+	private TreeMap<Double, Integer> estimations = new TreeMap<Double, Integer>();
+	
+	/**
+	* Constructs an anytime search.
+	*  
+	* @param extractionProblem The problem to be solved.
+	* @param weight The weight of the estimated trust loss, at least 1.0.
+	* @param timeBudget The time in milliseconds after which the search stops, 0 if unbounded.
+	* @param listener The listener that is notified about solutions, can be null.
+	*/
+	public AnytimeSearch(ExtractionProblem extractionProblem, double weight, long timeBudget, SolutionListener listener) {
+		super(extractionProblem);
+		this.weight = weight;
+		this.timeBudget = timeBudget;
+		this.listener = listener;
+	}
+
+	/**
+	* @see de.unima.alcomox.algorithms.AlcomoExtraction#run()
+	*/
+	public void run() throws AlcomoException {
+		this.log.infoS("anytime search with efficient (incomplete) reasoning, weight=" + this.weight + " ...");
+		this.startTime = System.currentTimeMillis();
+		EfficientReasoner efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+		ConflictStore conflictStore = new ConflictStore(efficientReasoner, this.mapping, this.extractionProblem.getParallelism());
+		IndexMarker root = new IndexMarker(this.mapping, conflictStore);
+		this.log.infoS("starting with " + root.activeSize() + " correspondences");
+		this.activeMapping = root.getActiveMapping(this.mapping);
+		this.inactiveMapping = root.getInactiveMapping(this.mapping);
+		
+		// the estimation of the root has to be stored first, because expanding a node resets its estimation
+		double rootEstimation = root.getFinalTrust();
+		this.offerSolution(this.dive(root, conflictStore), rootEstimation);
+		
+		final double w = this.weight;
+		PriorityQueue<IndexMarker> queue = new PriorityQueue<IndexMarker>(11, new Comparator<IndexMarker>() {
+			public int compare(IndexMarker m1, IndexMarker m2) {
+				return Double.compare(m2.getTrust() - w * m2.getEstimatedTrustLoss(), m1.getTrust() - w * m1.getEstimatedTrustLoss());
+			}
+		});
+		HashSet<IndexMarker> seen = new HashSet<IndexMarker>();
+		this.push(root, queue, seen);
+		int expanded = 0;
+		boolean exhausted = false;
+		while (true) {
+			if (queue.isEmpty()) {
+				exhausted = true;
+				break;
+			}
+			if (this.hasBeenInterrupted() || this.isOutOfTime()) { break; }
+			IndexMarker m = queue.poll();
+			this.removeEstimation(m.getFinalTrust());
+			if (m.getFinalTrust() <= this.bestSolution.getTrust()) { continue; }
+			expanded++;
+			this.metrics.increment(ExtractionMetrics.Counter.NODES_EXPANDED);
+			Set<Integer> conflictIndices = conflictStore.getConflictingIndices(m);
+			if (conflictIndices == null) {
+				this.offerSolution(m, this.getUpperBound());
+			}
+			else {
+				for (Integer index : conflictIndices) {
+					this.push(m.getChild(index, conflictStore), queue, seen);
+				}
+				this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, queue.size());
+			}
+			if (expanded % BOUND_REFRESH_INTERVAL == 0) {
+				this.currentSolution = this.currentSolution.withUpperBound(this.getUpperBound(), this.getElapsedMillis());
+			}
+		}
+		// all nodes that might lead to a better solution have been expanded
+		double upperBound = exhausted ? this.bestSolution.getTrust() : this.getUpperBound();
+		this.currentSolution = this.currentSolution.withUpperBound(upperBound, this.getElapsedMillis());
+		if (this.listener != null) { this.listener.solutionFound(this.currentSolution, true); }
+		this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " expanded=" + expanded + " (" + this.currentSolution + ")");
+	}
+	
+	/**
+	* Returns the solution found so far.
+	* 
+	* @return The best solution with the current upper bound, or null if the search has not yet started.
+	*/
+	public AnytimeSolution getCurrentSolution() {
+		return this.currentSolution;
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private IndexMarker dive(IndexMarker root, ConflictStore conflictStore) {
+		IndexMarker m = root;
+		Set<Integer> conflictIndices = conflictStore.getConflictingIndices(m);
+		while (conflictIndices != null) {
+			int weakest = -1;
+			for (Integer index : conflictIndices) {
+				if (weakest == -1 || m.getConfidence(index) < m.getConfidence(weakest)) { weakest = index; }
+			}
+			m = m.getChild(weakest, conflictStore);
+			conflictIndices = conflictStore.getConflictingIndices(m);
+		}
+		return m;
+	}
+	
+	private void push(IndexMarker m, PriorityQueue<IndexMarker> queue, HashSet<IndexMarker> seen) {
+		if (m.getFinalTrust() <= this.bestSolution.getTrust() || seen.contains(m)) { return; }
+		seen.add(m);
+		queue.add(m);
+		this.metrics.increment(ExtractionMetrics.Counter.NODES_GENERATED);
+		Integer count = this.estimations.get(m.getFinalTrust());
+		this.estimations.put(m.getFinalTrust(), (count == null) ? 1 : count + 1);
+	}
+	
+	private void removeEstimation(double estimation) {
+		int count = this.estimations.get(estimation);
+		if (count == 1) { this.estimations.remove(estimation); }
+		else { this.estimations.put(estimation, count - 1); }
+	}
+	
+	private double getUpperBound() {
+		Map.Entry<Double, Integer> highest = this.estimations.lastEntry();
+		double upperBound = this.bestSolution.getTrust();
+		if (highest != null && highest.getKey() > upperBound) { upperBound = highest.getKey(); }
+		return upperBound;
+	}
+	
+	private void offerSolution(IndexMarker m, double upperBound) {
+		if (this.bestSolution != null && m.getTrust() <= this.bestSolution.getTrust()) { return; }
+		this.bestSolution = m;
+		this.activeMapping = m.getActiveMapping(this.mapping);
+		this.inactiveMapping = m.getInactiveMapping(this.mapping);
+		this.currentSolution = new AnytimeSolution(this.activeMapping, this.inactiveMapping, m.getTrust(), upperBound, this.getElapsedMillis());
+		this.log.infoS("solution found, " + this.currentSolution);
+		if (this.listener != null) { this.listener.solutionFound(this.currentSolution, false); }
+	}
+	
+	private boolean isOutOfTime() {
+		if (this.timeBudget > 0 && this.getElapsedMillis() >= this.timeBudget) {
+			this.log.infoS("... time budget of " + this.timeBudget + "ms exceeded");
+			return true;
+		}
+		return false;
+	}
+	
+	private long getElapsedMillis() {
+		return System.currentTimeMillis() - this.startTime;
+	}
+
+}
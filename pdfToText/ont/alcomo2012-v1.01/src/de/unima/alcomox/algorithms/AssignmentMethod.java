@@ -0,0 +1,195 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+package de.unima.alcomox.algorithms;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.mapping.MappingMatrix;
+
+
+
+/**
+* An assignment method solves the assignment problem of a mapping matrix with respect to the padded square
+* matrix, i.e., it chooses at most one cell per row and column, such that the distances of the chosen cells plus
+* 1.0 for each unassigned source and target entity sum up to a minimum. A locked cell is never chosen.
+* 
+* The hungarian search solves a sequence of assignment problems that differ only in a few locks. Thus, an
+* assignment method keeps its solution and repairs it when the locks change instead of solving each problem again.
+*/
+abstract class AssignmentMethod  {
+	
+	// the distance of an unassigned entity, cells with the same or a higher distance are never chosen
+	protected static final double UNASSIGNED = 1.0;
+	
+	protected int numOfRows;
+	protected int numOfCols;
+	
+	// the locks that are currently applied
+	protected HashSet<Coord> appliedLocks = new HashSet<Coord>();
+	
+	protected boolean solved = false;
+	
+	
+	/**
+	* Sets the matrix to be solved. All locks are released.
+	* 
+	* @param mappingMatrix The mapping matrix.
+	*/
+	public abstract void setInputMatrix(MappingMatrix mappingMatrix);
+	
+	/**
+	* Solves the assignment problem for the current locks. The result is available via the getters.
+	*/
+	public abstract void solve();
+	
+	/**
+	* Returns the aggregated minimum for the current locks and one additional lock. The solution for the
+	* current locks is restored afterwards, i.e., calling this method for each child of a node in the search
+	* tree does not affect the solution of the node itself.
+	* 
+	* @param lock The additional lock.
+	* @return The aggregated minimum with respect to the padded square matrix.
+	*/
+	public abstract double getMinimum(Coord lock);
+	
+	/**
+	* Returns the aggregated minimum with respect to the padded square matrix, i.e., each entity
+	* that is not part of a chosen cell adds 1.0 to the minimum.
+	* If the assignment problem has not been solved yet, it will be solved first.
+	* 
+	* @return The aggregated minimum (= sum of the distances all chosen entries).  
+	*/
+	public double getMinimum() {
+		if (!this.solved) { this.solve(); }
+		double aggregatedMinimum = 0.0;
+		int numOfChosen = 0;
+		for (int x = 0; x < this.numOfRows; x++) {
+			int y = this.getChosenCol(x);
+			if (y >= 0) {
+				aggregatedMinimum += this.getDistance(x, y);
+				numOfChosen++;
+			}
+		}
+		aggregatedMinimum += (this.numOfRows + this.numOfCols - numOfChosen) * UNASSIGNED;
+		return aggregatedMinimum;
+	}
+	
+	/**
+	* Returns a solution to the assignment problem as list of indices.
+	* If the assignment problem has not been solved yet, it will be solved first.
+	* 
+	* @return An array list with inidces of correspondences.
+	*/
+	public ArrayList<Integer> getSolution(MappingMatrix mappingMatrix) {
+		ArrayList<Integer> indices = new ArrayList<Integer>();
+		if (!this.solved) { this.solve(); }
+		for (int x = 0; x < this.numOfRows; x++) {
+			int y = this.getChosenCol(x);
+			if (y >= 0 && mappingMatrix.containsCorrespondence(x,y)) {
+				indices.add(mappingMatrix.getIndex(x,y));
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Only for test purpose!
+	 * 
+	 * @param mappingMatrix
+	 * @return
+	 */
+	public Correspondence[] getChosenCorrespondences(MappingMatrix mappingMatrix) {
+		if (!this.solved) { this.solve(); }
+		Correspondence[] chosenCorrespondences = new Correspondence[this.numOfRows];
+		for (int x = 0; x < this.numOfRows; x++) {
+			int y = this.getChosenCol(x);
+			chosenCorrespondences[x] = (y >= 0) ? mappingMatrix.getCorrespondence(x, y) : null;
+		}
+		return chosenCorrespondences;
+	}
+	
+	
+	/**
+	* Returns a solution to the assignment problem as mapping.
+	* If the assignment problem has not been solved yet, it will be solved first.
+	* 
+	* @return The solution as mapping.
+	*/
+	public Mapping getMapping(MappingMatrix mappingMatrix) {
+		if (!this.solved) { this.solve(); }
+		Mapping mapping = new Mapping();
+		for (int x = 0; x < this.numOfRows; x++) {
+			int y = this.getChosenCol(x);
+			if (y >= 0 && mappingMatrix.containsCorrespondence(x,y)) {
+				mapping.push(mappingMatrix.getCorrespondence(x,y));
+			}
+		}
+		return  mapping;
+	}
+	
+	/**
+	* Locks the cells indexed via the elements in decisions. Locks that have been set before
+	* and are not part of the lock marker are released.
+	* 
+	* @param lockMarker An ArrayList with dual-element int[] arrays as element. Each element
+	* represents a cell index (row and col index) of the matrix.
+	*/
+	public void setLocks(LockMarker lockMarker) {
+		HashSet<Coord> locks = new HashSet<Coord>(lockMarker.getLocks());
+		for (Coord lock : this.appliedLocks) {
+			if (!locks.contains(lock)) { this.setLocked(lock.getX(), lock.getY(), false); }
+		}
+		for (Coord lock : locks) {
+			if (!this.appliedLocks.contains(lock)) { this.setLocked(lock.getX(), lock.getY(), true); }
+		}
+		this.appliedLocks = locks;
+	}
+	
+	/**
+	* Locks or releases a cell. If the solution does not remain optimal, the affected rows have to be
+	* released, such that the next call of solve repairs the solution.
+	* 
+	* @param x The row of the cell.
+	* @param y The column of the cell.
+	* @param locked True to lock the cell, false to release the lock.
+	*/
+	protected abstract void setLocked(int x, int y, boolean locked);
+	
+	/**
+	* @param x A row of the input matrix.
+	* @return The column of the cell chosen in the row, -1 if the entity is unassigned.
+	*/
+	protected abstract int getChosenCol(int x);
+	
+	/**
+	* @param x The row of the cell.
+	* @param y The column of the cell.
+	* @return The distance of the cell in the input matrix.
+	*/
+	protected abstract double getDistance(int x, int y);
+	
+}
@@ -0,0 +1,241 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+package de.unima.alcomox.algorithms;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.CompleteReasoner;
+import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.util.ExtractionMetrics;
+
+/**
+* Finds an optimal solution by decomposing the extraction problem into the connected components of the
+* conflict hypergraph. Correspondences that are not involved in any conflict are always active. Each component
+* is solved by a uniform cost search on its own, the components are distributed over as many threads as specified
+* by the parallelism of the extraction problem. The union of optimal solutions of the components is an optimal
+* solution of the whole problem. 
+* 
+* In case of complete reasoning the union is checked by the complete reasoner. A conflict detected this way
+* merges the components of its correspondences, and only the merged component is solved again. Thus, the result
+* is optimal with respect to complete reasoning, too. If there are several optimal solutions, the search
+* might return another one than {@link AStarSearch}.
+*/
+public class ComponentSearch extends AlcomoExtraction {
+	
+	private EfficientReasoner efficientReasoner;
+	private CompleteReasoner completeReasoner = null;
+	private ConflictStore conflictStore;
+	
+	// the component of each correspondence, identified by its first index, -1 if not involved in any conflict
+	private int[] componentIds;
+	private HashMap<Integer, int[]> components;
+	private boolean[] inactive;
+	
+	/**
+	* Constructs an algorithm that solves the components of an extraction problem independently.
+	*  
+	* @param extractionProblem The problem to be solved.
+	*/
+	public ComponentSearch(ExtractionProblem extractionProblem) {
+		super(extractionProblem);
+	}
+
+	/**
+	* @see de.unima.alcomox.algorithms.AlcomoExtraction#run()
+	*/
+	public void run() throws AlcomoException {
+		int parallelism = this.extractionProblem.getParallelism();
+		if (this.typeOfReasoning == ExtractionProblem.REASONING_COMPLETE || this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE) { 
+			this.completeReasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+			this.log.infoS("component search with complete reasoning finding an optimal solution using " + parallelism + " thread(s) ...");
+		}
+		else {
+			this.log.infoS("component search with efficient (incomplete) reasoning finding an optimal solution using " + parallelism + " thread(s) ...");
+		}
+		this.efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+		if (this.typeOfReasoning == ExtractionProblem.REASONING_BRUTEFORCE) {
+			this.conflictStore = new ConflictStore(this.mapping);
+		}
+		else {
+			this.conflictStore = new ConflictStore(this.efficientReasoner, this.mapping, parallelism);
+		}
+		this.inactive = new boolean[this.mapping.size()];
+		this.componentIds = new int[this.mapping.size()];
+		Arrays.fill(this.componentIds, -1);
+		this.components = new HashMap<Integer, int[]>();
+		int maxSize = 0;
+		for (int[] component : this.conflictStore.getComponents()) {
+			this.addComponent(component);
+			maxSize = Math.max(maxSize, component.length);
+		}
+		this.log.infoS("decomposed into " + this.components.size() + " components, the largest with " + maxSize + " correspondences");
+		
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try {
+			this.solveComponents(new ArrayList<Integer>(this.components.keySet()), pool);
+			while (this.completeReasoner != null && !this.hasBeenInterrupted()) {
+				Mapping tempMapping = this.getMapping(false);
+				this.log.infoW("[complete reasoning ... ");
+				if (!(this.completeReasoner.isConflictSet(tempMapping))) {
+					this.log.infoW("no additional conflicts detected]\n");
+					break;
+				}
+				Mapping conflictMapping = this.completeReasoner.getConflictSet(tempMapping);
+				Set<Integer> conflictIndices = this.conflictStore.getIndicesAndSetConflicts(conflictMapping);
+				int[] component = this.mergeComponents(conflictIndices);
+				this.log.infoW("detected conflict set " + conflictMapping.toVeryShortString() + ", solving merged component of size " + component.length + "]\n");
+				ArrayList<Integer> componentId = new ArrayList<Integer>();
+				componentId.add(component[0]);
+				this.solveComponents(componentId, pool);
+			}
+		}
+		finally {
+			pool.shutdownNow();
+			if (this.completeReasoner != null) { this.completeReasoner.dispose(); }
+		}
+		this.activeMapping = this.getMapping(false);
+		this.inactiveMapping = this.getMapping(true);
+		this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " (optimal)");
+	}
+	
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	// solves the given components on the pool, a component that has not been solved due to an interrupt remains active
+	private void solveComponents(List<Integer> componentIds, ExecutorService pool) {
+		ArrayList<Future<boolean[]>> solutions = new ArrayList<Future<boolean[]>>();
+		for (final int componentId : componentIds) {
+			final int[] component = this.components.get(componentId);
+			solutions.add(pool.submit(new Callable<boolean[]>() {
+				public boolean[] call() {
+					return searchComponent(component);
+				}
+			}));
+		}
+		for (int i = 0; i < componentIds.size(); i++) {
+			int[] component = this.components.get(componentIds.get(i));
+			boolean[] componentInactive = null;
+			try {
+				componentInactive = solutions.get(i).get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+			// a component remains unsolved only if the search has been stopped, which has to be recorded by this thread
+			if (componentInactive == null) { this.hasBeenInterrupted(); }
+			for (int j = 0; j < component.length; j++) {
+				this.inactive[component[j]] = (componentInactive != null) && componentInactive[j];
+			}
+		}
+	}
+	
+	// finds an optimal solution of a component, returns null if interrupted
+	private boolean[] searchComponent(int[] component) {
+		// the correspondences are pushed one by one, because the position in the mapping is the index in the component
+		Mapping componentMapping = new Mapping();
+		for (int index : component) { componentMapping.push(this.mapping.get(index)); }
+		ConflictStore componentStore = new ConflictStore(this.conflictStore, component);
+		PriorityQueue<IndexMarker> queue = new PriorityQueue<IndexMarker>();
+		HashSet<IndexMarker> nodesInQueue = new HashSet<IndexMarker>();
+		IndexMarker marker = new IndexMarker(componentMapping, componentStore);
+		queue.add(marker);
+		nodesInQueue.add(marker);
+		while (!Thread.currentThread().isInterrupted() && !this.extractionProblem.isCancelled()) {
+			IndexMarker m = queue.poll();
+			nodesInQueue.remove(m);
+			this.metrics.increment(ExtractionMetrics.Counter.NODES_EXPANDED);
+			Set<Integer> conflictIndices = componentStore.getConflictingIndices(m);
+			if (conflictIndices == null) {
+				boolean[] componentInactive = new boolean[component.length];
+				for (int j = 0; j < component.length; j++) { componentInactive[j] = !m.isActive(j); }
+				return componentInactive;
+			}
+			for (Integer index : conflictIndices) {
+				IndexMarker child = m.getChild(index, componentStore);			
+				if (!(nodesInQueue.contains(child))) {
+					queue.add(child);
+					nodesInQueue.add(child);
+					this.metrics.increment(ExtractionMetrics.Counter.NODES_GENERATED);
+				}	
+			}
+			this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, queue.size());
+		}
+		return null;
+	}
+	
+	private void addComponent(int[] component) {
+		this.components.put(component[0], component);
+		for (int index : component) { this.componentIds[index] = component[0]; }
+	}
+	
+	// merges the components of the given correspondences, a correspondence without component is added as it is
+	private int[] mergeComponents(Set<Integer> indices) {
+		HashSet<Integer> merged = new HashSet<Integer>();
+		for (int index : indices) {
+			int componentId = this.componentIds[index];
+			if (componentId == -1) {
+				merged.add(index);
+				continue;
+			}
+			int[] component = this.components.remove(componentId);
+			if (component == null) { continue; }
+			for (int member : component) { merged.add(member); }
+		}
+		int[] component = new int[merged.size()];
+		int i = 0;
+		for (int index : merged) { component[i++] = index; }
+		Arrays.sort(component);
+		this.addComponent(component);
+		return component;
+	}
+	
+	private Mapping getMapping(boolean inactive) {
+		ArrayList<Correspondence> correspondences = new ArrayList<Correspondence>();
+		for (int i = 0; i < this.mapping.size(); i++) {
+			if (this.inactive[i] == inactive) { correspondences.add(this.mapping.get(i)); }
+		}
+		return new Mapping(correspondences);
+	}
+	
+}
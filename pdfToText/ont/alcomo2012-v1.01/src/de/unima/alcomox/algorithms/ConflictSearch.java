@@ -50,6 +50,17 @@ public class ConflictSearch extends AlcomoExtraction {
 		int counter = 0;
 		double progress = 0.0;
 		this.log.infoS("computing all conflicts pair detectable by pattern base reasoning ...");
+		int parallelism = this.extractionProblem.getParallelism();
+		if (parallelism > 1 && alcomoReasoner.supportsConcurrentChecks()) {
+			long[] pairs = new ParallelConflictPrecomputation(alcomoReasoner, this.mapping, alcomoReasoner.getCandidateIndex(this.mapping)).compute(parallelism);
+			for (long pair : pairs) {
+				c1 = this.mapping.get(ParallelConflictPrecomputation.getFirst(pair));
+				c2 = this.mapping.get(ParallelConflictPrecomputation.getSecond(pair));
+				this.conflictSets.add(new ConflictPair(c1, c2));
+			}
+			this.log.infoS("... done, detected " + this.conflictSets.size() + " conflict pairs (incomplete, " + parallelism + " threads)");
+			return;
+		}
 		this.log.infoPStart();
 		// int conflictCounter = 0;
 		for (int i = 0; i < this.mapping.size(); i++) {	
@@ -25,6 +25,7 @@
 package de.unima.alcomox.algorithms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Random;
 import java.util.HashSet;
@@ -34,15 +35,19 @@ import java.util.Set;
 
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.ConflictCandidateIndex;
 import de.unima.alcomox.ontology.EfficientReasoner;
 import de.unima.alcomox.util.AlcomoLogger;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 public class ConflictStore {
 	
 	// for conflicts of size 1 (very rare)
 	private boolean[] singularities;
-	// for conflicts of size 2
-	private boolean[][] conflicts;
+	// for conflicts of size 2, one bit-packed row of 64 entries per long
+	private long[][] conflicts;
+	// number of correspondences
+	private int size;
 	// for conflicts of with size > 2
 	private  HashMap<Integer, List<Integer[]>> conflictSets;
 	
@@ -70,8 +75,25 @@ public class ConflictStore {
 	* @param mapping The mapping to be analyzed.
 	*/
 	public ConflictStore(EfficientReasoner reasoner, Mapping mapping) {
+		this(reasoner, mapping, 1);
+	}
+	
+	/**
+	* Construct a conflict store where some conflicts are
+	* precomputed due to efficient reasoning. The precomputation is
+	* distributed over several threads if the reasoner supports it.
+	* The resulting store is the same for each number of threads.
+	* If the reasoner provides a candidate index, only the pairs
+	* generated by the index are checked.
+	* 
+	* @param reasoner The efficient reasoning component.
+	* @param mapping The mapping to be analyzed.
+	* @param parallelism The number of threads used for the precomputation.
+	*/
+	public ConflictStore(EfficientReasoner reasoner, Mapping mapping, int parallelism) {
 		
 		AlcomoLogger.takeTime("starting pattern precomputation");
+		long start = ExtractionMetrics.startTimer();
 		
 		this.log = new AlcomoLogger(this.getClass());
 		this.rand = new Random(NUMBER_OF_THE_BEAST);
@@ -80,11 +102,41 @@ public class ConflictStore {
 		for (int i = 0; i < this.blamed.length; i++) {
 			this.blamed[i] = false;
 		}
-		this.conflicts = new boolean[mapping.size()][mapping.size()];
+		this.size = mapping.size();
+		this.conflicts = new long[mapping.size()][ConflictStore.getNumOfWords(mapping.size())];
 		this.conflictSets = new HashMap<Integer, List<Integer[]>>();
 		this.hashedIndices = new HashMap<Correspondence, Integer>();
 		this.hashedCorrespondences = new HashMap<Integer, Correspondence>();
 		
+		ConflictCandidateIndex candidateIndex = reasoner.getCandidateIndex(mapping);
+		if (candidateIndex != null) {
+			long numOfPairs = (long)mapping.size() * (mapping.size() - 1) / 2;
+			this.log.infoS("candidate index generated " + candidateIndex.getNumOfCandidatePairs() + " of " + numOfPairs + " pairs");
+		}
+		if (parallelism > 1 && !reasoner.supportsConcurrentChecks()) {
+			this.log.infoS("reasoner does not support concurrent checks, precomputing with one thread");
+			parallelism = 1;
+		}
+		if (parallelism > 1) {
+			this.log.infoS("precomputing pattern conflicts with " + parallelism + " threads");
+			for (int x = 0; x < mapping.size(); x++) {
+				this.singularities[x] = false;
+				this.hashedIndices.put(mapping.get(x), x);
+				this.hashedCorrespondences.put(x, mapping.get(x));
+			}
+			long[] pairs = new ParallelConflictPrecomputation(reasoner, mapping, candidateIndex).compute(parallelism);
+			for (long pair : pairs) {
+				int x = ParallelConflictPrecomputation.getFirst(pair);
+				int y = ParallelConflictPrecomputation.getSecond(pair);
+				this.setConflict(x, y);
+				this.blamed[x] = true;
+				this.blamed[y] = true;
+			}
+			AlcomoLogger.takeTime("finished pattern precomputation");
+			reasoner.getMetrics().stopTimer(ExtractionMetrics.Phase.CONFLICT_PRECOMPUTATION, start);
+			return;
+		}
+		
 		this.log.infoS("precomputing pattern conflicts");
 		this.log.infoPStart();
 		
@@ -106,21 +158,22 @@ public class ConflictStore {
 			this.singularities[x] = false;
 			this.hashedIndices.put(mapping.get(x), x);
 			this.hashedCorrespondences.put(x, mapping.get(x));
-			for (int y = x; y < mapping.size(); y++) {
-				if (x == y) {
-					this.conflicts[x][y] = false; 
-					continue;
+			if (candidateIndex != null) {
+				for (int y : candidateIndex.getCandidates(x)) {
+					if (y > x && reasoner.isConflictPair(mapping.get(x), mapping.get(y))) {
+						this.setConflict(x, y);
+						this.blamed[x] = true;
+						this.blamed[y] = true;
+					}
 				}
+				continue;
+			}
+			for (int y = x + 1; y < mapping.size(); y++) {
 				if (reasoner.isConflictPair(mapping.get(x), mapping.get(y))) {
-					this.conflicts[x][y] = true;
-					this.conflicts[y][x] = true;
+					this.setConflict(x, y);
 					this.blamed[x] = true;
 					this.blamed[y] = true;
 				}
-				else {
-					this.conflicts[x][y] = false;
-					this.conflicts[y][x] = false;
-				}
 			}
 		}
 		/*
@@ -138,6 +191,7 @@ public class ConflictStore {
 		this.log.infoPEnd();
 		
 		AlcomoLogger.takeTime("finished pattern precomputation");
+		reasoner.getMetrics().stopTimer(ExtractionMetrics.Phase.CONFLICT_PRECOMPUTATION, start);
 		
 		// System.out.println("\nUnblamed = " + numOfUnblamed +  "   Blamed = " +  numOfBlamed);
 		
@@ -154,7 +208,8 @@ public class ConflictStore {
 		this.singularities = new boolean[mapping.size()];
 		this.blamed = new boolean[mapping.size()];
 		for (int i = 0; i < this.blamed.length; i++) this.blamed[i] = false;
-		this.conflicts = new boolean[mapping.size()][mapping.size()];
+		this.size = mapping.size();
+		this.conflicts = new long[mapping.size()][ConflictStore.getNumOfWords(mapping.size())];
 		this.conflictSets = new HashMap<Integer, List<Integer[]>>();
 		this.hashedIndices = new HashMap<Correspondence, Integer>();
 		this.hashedCorrespondences = new HashMap<Integer, Correspondence>();
@@ -162,9 +217,47 @@ public class ConflictStore {
 			this.singularities[x] = false;
 			this.hashedIndices.put(mapping.get(x), x);
 			this.hashedCorrespondences.put(x, mapping.get(x));
-			for (int y = x; y < mapping.size(); y++) {
-				this.conflicts[x][y] = false;
-				this.conflicts[y][x] = false;
+		}
+	}
+	
+	/**
+	* Constructs the conflict store of a part of the mapping of another conflict store. Only the conflicts
+	* between correspondences of the part are kept. The index of a correspondence in the new store is its
+	* position in the array of indices.
+	* 
+	* @param that The conflict store of the whole mapping.
+	* @param indices The indices of the correspondences that make up the part, e.g., a component.
+	*/
+	public ConflictStore(ConflictStore that, int[] indices) {
+		this.rand = new Random(NUMBER_OF_THE_BEAST);
+		this.size = indices.length;
+		this.singularities = new boolean[this.size];
+		this.blamed = new boolean[this.size];
+		this.conflicts = new long[this.size][ConflictStore.getNumOfWords(this.size)];
+		this.conflictSets = new HashMap<Integer, List<Integer[]>>();
+		this.hashedIndices = new HashMap<Correspondence, Integer>();
+		this.hashedCorrespondences = new HashMap<Integer, Correspondence>();
+		HashMap<Integer, Integer> localIndices = new HashMap<Integer, Integer>();
+		for (int x = 0; x < this.size; x++) {
+			localIndices.put(indices[x], x);
+			Correspondence c = that.hashedCorrespondences.get(indices[x]);
+			this.hashedIndices.put(c, x);
+			this.hashedCorrespondences.put(x, c);
+			this.singularities[x] = that.singularities[indices[x]];
+			this.blamed[x] = that.blamed[indices[x]];
+		}
+		for (int x = 0; x < this.size; x++) {
+			for (int y = x + 1; y < this.size; y++) {
+				if (that.conflicts(indices[x], indices[y])) { this.setConflict(x, y); }
+			}
+			List<Integer[]> l = that.conflictSets.get(indices[x]);
+			if (l == null) { continue; }
+			for (Integer[] badGuys : l) {
+				Integer[] localBadGuys = new Integer[badGuys.length];
+				for (int b = 0; b < badGuys.length; b++) { localBadGuys[b] = localIndices.get(badGuys[b]); }
+				if (Arrays.asList(localBadGuys).contains(null)) { continue; }
+				if (!this.conflictSets.containsKey(x)) { this.conflictSets.put(x, new LinkedList<Integer[]>()); }
+				this.conflictSets.get(x).add(localBadGuys);
 			}
 		}
 	}
@@ -172,8 +265,8 @@ public class ConflictStore {
 	
 	public String toString() {
 		String rep = "";
-		for (int x = 0; x < this.conflicts.length; x++) {
-			for (int y = 0; y < this.conflicts.length; y++) { rep += (conflicts[x][y] ? 1 : 0) + " "; }
+		for (int x = 0; x < this.size; x++) {
+			for (int y = 0; y < this.size; y++) { rep += (this.conflicts(x,y) ? 1 : 0) + " "; }
 			rep += "\n";
 		}
 		return rep;
@@ -204,8 +297,8 @@ public class ConflictStore {
 	*/
 	
 	public Set<Integer> getConflictingIndices(IndexMarker m) {
-		Set<Integer> conflictSet = new HashSet<Integer>();		
-		for (int x = 0; x < this.conflicts.length; x++) {
+		Set<Integer> conflictSet = new HashSet<Integer>();
+		for (int x = 0; x < this.size; x++) {
 			if (!m.isActive(x)) continue;
 			if (this.blamed[x] == false) continue;
 			// check single conflicts
@@ -213,12 +306,15 @@ public class ConflictStore {
 				conflictSet.add(x);
 				return  conflictSet;
 			}
-			// check pairs of conflicts
-			for (int y = x+1; y < this.conflicts.length; y++) {
-				if (!m.isActive(y)) { continue; }
-				if (this.conflicts(x,y)) {
+			// check pairs of conflicts, 64 active partners at once
+			long[] row = this.conflicts[x];
+			int firstWord = (x + 1) >>> 6;
+			for (int w = firstWord; w < row.length; w++) {
+				long hits = row[w] & m.getActiveWord(w);
+				if (w == firstWord) { hits &= -1L << ((x + 1) & 63); }
+				if (hits != 0L) {
 					conflictSet.add(x);
-					conflictSet.add(y);
+					conflictSet.add((w << 6) + Long.numberOfTrailingZeros(hits));
 					return  conflictSet;
 				}
 			}			
@@ -226,7 +322,7 @@ public class ConflictStore {
 		// go for the more complex conflicts
 		List<Integer[]> l;
 		boolean conflicts = false;
-		for (int index = 0; index < this.conflicts.length; index++) {
+		for (int index = 0; index < this.size; index++) {
 			if (m.isActive(index)) {
 				if (this.conflictSets.containsKey(index)) {
 					l= this.conflictSets.get(index);
@@ -291,12 +387,19 @@ public class ConflictStore {
 	}
 	
 
+	/**
+	* Counts the pairwise conflicts a correspondence is involved in with respect to
+	* the active correspondences of an index marker.
+	* 
+	* @param index The index of the correspondence.
+	* @param m An index marker that defines the active correspondences.
+	* @return The number of active correspondences conflicting with the given one.
+	*/
 	public int getNumOfInvolvedConflicts(int index, IndexMarker m) {
 		int conflictCounter = 0;
-		for (int i = 0; i < this.conflicts[index].length; i++) {
-			if (this.conflicts[index][i] && m.isActive(i)) {
-				conflictCounter++;
-			}
+		long[] row = this.conflicts[index];
+		for (int w = 0; w < row.length; w++) {
+			conflictCounter += Long.bitCount(row[w] & m.getActiveWord(w));
 		}
 		return conflictCounter;
 	}
@@ -379,8 +482,7 @@ public class ConflictStore {
 		// conflicts of size 2
 		else if (indices.size() == 2) {
 			Integer[] conflictPair = indices.toArray(new Integer[2]);
-			this.conflicts[conflictPair[0]][conflictPair[1]] = true;
-			this.conflicts[conflictPair[1]][conflictPair[0]] = true;
+			this.setConflict(conflictPair[0], conflictPair[1]);
 		}
 		// conflicts of size > 2
 		else {
@@ -401,8 +503,79 @@ public class ConflictStore {
 	}
 	
 	
+	/**
+	* Decomposes the blamed correspondences into the connected components of the conflict hypergraph, i.e.,
+	* two correspondences are in the same component if they are connected via a chain of conflicts. A correspondence
+	* that is not involved in any conflict is not part of any component. The optimal solution of the whole mapping
+	* is the union of the optimal solutions of the components.
+	* 
+	* @return The components, each as ascending array of indices, ordered by their first index.
+	*/
+	public ArrayList<int[]> getComponents() {
+		int[] parents = new int[this.size];
+		for (int x = 0; x < this.size; x++) { parents[x] = x; }
+		for (int x = 0; x < this.size; x++) {
+			if (!this.blamed[x]) { continue; }
+			long[] row = this.conflicts[x];
+			for (int w = (x + 1) >>> 6; w < row.length; w++) {
+				long hits = row[w];
+				while (hits != 0L) {
+					int y = (w << 6) + Long.numberOfTrailingZeros(hits);
+					hits &= hits - 1;
+					if (y > x) { union(parents, x, y); }
+				}
+			}
+			List<Integer[]> l = this.conflictSets.get(x);
+			if (l == null) { continue; }
+			for (Integer[] badGuys : l) {
+				for (int b : badGuys) { union(parents, x, b); }
+			}
+		}
+		int[] sizes = new int[this.size];
+		for (int x = 0; x < this.size; x++) {
+			if (this.blamed[x]) { sizes[find(parents, x)]++; }
+		}
+		ArrayList<int[]> components = new ArrayList<int[]>();
+		int[][] componentOfRoot = new int[this.size][];
+		int[] filled = new int[this.size];
+		for (int x = 0; x < this.size; x++) {
+			if (!this.blamed[x]) { continue; }
+			int root = find(parents, x);
+			if (componentOfRoot[root] == null) {
+				componentOfRoot[root] = new int[sizes[root]];
+				components.add(componentOfRoot[root]);
+			}
+			componentOfRoot[root][filled[root]++] = x;
+		}
+		return components;
+	}
+	
+	/**
+	* @param index The index of a correspondence.
+	* @return True, if the correspondence is involved in some conflict known to this store.
+	*/
+	public boolean isBlamed(int index) {
+		return this.blamed[index];
+	}
+	
+	
 	// ******** PRIVATE PLAYGROUND *****
 	
+	private static int find(int[] parents, int x) {
+		while (parents[x] != x) {
+			parents[x] = parents[parents[x]];
+			x = parents[x];
+		}
+		return x;
+	}
+	
+	private static void union(int[] parents, int x, int y) {
+		int rootX = find(parents, x);
+		int rootY = find(parents, y);
+		if (rootX < rootY) { parents[rootY] = rootX; }
+		else if (rootY < rootX) { parents[rootX] = rootY; }
+	}
+	
 	private Integer[] getDiminishedArray(Integer[] field, int rindex) {
 		Integer[] dimField = new Integer[field.length -1];
 		int up = 0;
@@ -418,7 +591,22 @@ public class ConflictStore {
 	
 	
 	private boolean conflicts(int x, int y) {
-		return this.conflicts[x][y];
-	}		
+		return (this.conflicts[x][y >>> 6] & (1L << (y & 63))) != 0L;
+	}
+	
+	private void setConflict(int x, int y) {
+		this.conflicts[x][y >>> 6] |= 1L << (y & 63);
+		this.conflicts[y][x >>> 6] |= 1L << (x & 63);
+	}
+	
+	/**
+	* Returns the number of longs required to store one bit per correspondence.
+	* 
+	* @param size The number of correspondences.
+	* @return The number of 64 bit words.
+	*/
+	static int getNumOfWords(int size) {
+		return (size + 63) >>> 6;
+	}
 
 }
@@ -25,10 +25,13 @@
 package de.unima.alcomox.algorithms;
 
 
+import java.util.ArrayList;
+
 import de.unima.alcomox.ExtractionProblem;
 import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.ActiveConflictIndex;
 import de.unima.alcomox.ontology.CompleteReasoner;
 import de.unima.alcomox.ontology.EfficientReasoner;
 //import de.unima.alcomox.util.DataStorage;
@@ -42,6 +45,13 @@ public class Greedy extends AlcomoExtraction {
 	private EfficientReasoner efficientReasoner;
 	private CompleteReasoner completeReasoner;
 	
+	// the number of validated correspondences that have been attached to the complete reasoner
+	private int numOfAttached;
+	
+	// the validated correspondences that have been indexed so far for efficient reasoning
+	private ActiveConflictIndex validatedIndex;
+	private int numOfIndexed;
+	
 	/**
 	* Constructs a greedy algorithm for solving the extraction problem.
 	*  
@@ -61,17 +71,21 @@ public class Greedy extends AlcomoExtraction {
 		if (this.typeOfReasoning == ExtractionProblem.REASONING_EFFICIENT) {
 			this.log.infoS("greedy algorithm with efficient (incomplete) reasoning ...");
 			this.efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+			// if available, each candidate is only checked against those active correspondences that might conflict with it
+			ActiveConflictIndex activeIndex = this.efficientReasoner.createActiveConflictIndex();
 			int counter = 0;
 			double progress = 0.0;
 			this.log.infoPStart();
 			for (int candidateIndex = 0; candidateIndex < this.mapping.size(); candidateIndex++) {
 				Correspondence candidateNexus = this.mapping.get(candidateIndex);				
 				counter++;
-				if (this.efficientReasoner.conflictsWithMapping(candidateNexus, this.activeMapping)) {
+				boolean conflicts = this.conflictsWith(candidateNexus, this.activeMapping, activeIndex);
+				if (conflicts) {
 					this.inactiveMapping.push(candidateNexus);
 				}
 				else { 
 					this.activeMapping.push(candidateNexus);	
+					if (activeIndex != null) { activeIndex.add(candidateNexus); }
 				}
 				// used for INFO
 				if (((double)counter / (double)this.mapping.size()) >= progress) {
@@ -101,6 +115,7 @@ public class Greedy extends AlcomoExtraction {
 			this.log.infoS("pre coherency check ...");
 			if (!(completeReasoner.isConflictSet(this.mapping))) {
 				this.activeMapping = this.mapping.getCopy();
+				this.completeReasoner.dispose();
 				this.log.infoS(" ... upps, no coherency detected");
 				this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " (greedy)");
 				return;
@@ -138,6 +153,7 @@ public class Greedy extends AlcomoExtraction {
 				}
 			}
 			this.log.infoPEnd();
+			this.completeReasoner.dispose();
 			// used for INFO
 			this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " (greedy)");
 		}
@@ -147,6 +163,9 @@ public class Greedy extends AlcomoExtraction {
 			// construct reasoner
 			this.efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
 			this.completeReasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+			this.numOfAttached = 0;
+			this.validatedIndex = this.efficientReasoner.createActiveConflictIndex();
+			this.numOfIndexed = 0;
 			// some helper mappings	
 			Mapping unvalidated = this.mapping.getCopy();
 			Mapping chosenUnvalidated;
@@ -173,6 +192,7 @@ public class Greedy extends AlcomoExtraction {
 				}
 			} while (conflictingNexus != null);
 			this.completeReasoner.resetValidatedMapping();
+			this.completeReasoner.dispose();
 			this.inactiveMapping = this.mapping.getDifference(this.activeMapping);
 			this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " (greedy)");
 			
@@ -180,20 +200,39 @@ public class Greedy extends AlcomoExtraction {
 	}	
 
 
+	private boolean conflictsWith(Correspondence candidateNexus, Mapping mapping, ActiveConflictIndex index) {
+		if (index != null) {
+			return this.efficientReasoner.conflictsWithIndex(candidateNexus, index);
+		}
+		return this.efficientReasoner.conflictsWithMapping(candidateNexus, mapping);
+	}
+
 	private Correspondence getConflictingCorrespondences(Mapping validated, Mapping chosenUnvalidated) throws AlcomoException {
-		// TODO nex line has been added newly
-		this.completeReasoner = new CompleteReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);	
-		this.completeReasoner.attachValidatedMapping(validated);
+		// the merged ontology and its reasoner are kept over all rounds, the validated mapping only grows
+		// and thus only the correspondences validated in the previous round have to be attached
+		if (validated.size() > this.numOfAttached) {
+			ArrayList<Correspondence> newlyValidated = new ArrayList<Correspondence>(validated.getCorrespondences().subList(this.numOfAttached, validated.size()));
+			this.completeReasoner.attachValidatedMapping(new Mapping(newlyValidated));
+			this.numOfAttached = validated.size();
+		}
 		Correspondence invalidNexus = this.completeReasoner.searchInvalidCorrespondence(chosenUnvalidated);
 		return invalidNexus;
 	}
 	
 	private Mapping getChosenUnvalidated(Mapping validated, Mapping unvalidated) {
 		Mapping chosenUnvalidated = new Mapping();
+		// the validated mapping only grows, thus its index is extended by the correspondences validated in the previous round
+		if (this.validatedIndex != null) {
+			while (this.numOfIndexed < validated.size()) {
+				this.validatedIndex.add(validated.get(this.numOfIndexed++));
+			}
+		}
+		ActiveConflictIndex chosenIndex = this.efficientReasoner.createActiveConflictIndex();
 		for (Correspondence candidateNexus : unvalidated) {
-			if (this.efficientReasoner.conflictsWithMapping(candidateNexus, validated)) { continue; }
-			if (this.efficientReasoner.conflictsWithMapping(candidateNexus, chosenUnvalidated)) { continue; }
+			if (this.conflictsWith(candidateNexus, validated, this.validatedIndex)) { continue; }
+			if (this.conflictsWith(candidateNexus, chosenUnvalidated, chosenIndex)) { continue; }
 			chosenUnvalidated.push(candidateNexus);	
+			if (chosenIndex != null) { chosenIndex.add(candidateNexus); }
 		}
 		return chosenUnvalidated;
 	}
@@ -62,7 +62,7 @@ public class GreedyMinimize extends AlcomoExtraction {
 			this.log.infoS("greedy minimize with efficient (incomplete) reasoning approximating an optimal solution ...");
 			this.efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
 			// pre-compute and store pattern-based conflicts
-			ConflictStore conflictStore = new ConflictStore(this.efficientReasoner, this.mapping); 
+			ConflictStore conflictStore = new ConflictStore(this.efficientReasoner, this.mapping, this.extractionProblem.getParallelism()); 
 			// prepare the index marker that is modified in place during the greedy search
 			IndexMarker marker = new IndexMarker(mapping, conflictStore);
 			int minActiveSizeInTree = marker.activeSize();
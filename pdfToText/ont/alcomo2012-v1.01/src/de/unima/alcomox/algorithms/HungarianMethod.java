@@ -24,56 +24,80 @@
 
 package de.unima.alcomox.algorithms;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
-import de.unima.alcomox.mapping.Correspondence;
-import de.unima.alcomox.mapping.Mapping;
 import de.unima.alcomox.mapping.MappingMatrix;
 
 
 
 /**
-* This class implements the hungarian method (also known as Munkres Algorithm).
-*
-* Algorithm is based on the description available at
-* http://www.netlib.org/utk/lsi/pcwLSI/text/node222.html
-* Note that theres an error in "such a zero exists" on the webpage,
-* this passage must be placed one line above
+* This class solves the assignment problem of a mapping matrix with the shortest augmenting path
+* method of Jonker and Volgenant, in the variant for rectangular matrices described by Crouse
+* (On implementing 2D rectangular assignment algorithms, 2016). Each row is added by one run of
+* Dijkstra's algorithm on the reduced costs, thus, the worst case is O(n^2 m) for n rows and m >= n columns.
+* 
+* The matrix is not padded to a square one. Instead, leaving a source or target entity unassigned costs 1.0,
+* the distance of a cell without correspondence. A locked cell costs the same and is never part of the solution,
+* which is exactly what the penalty on locked cells achieved in the padded matrix. The minimum is reported
+* with respect to the padded matrix, i.e., including the costs of all unassigned entities.
+* 
+* Internally, the n x m matrix is completed to a square one by m - n rows of zero costs which are never stored.
+* Within the square matrix the dual variables are not restricted, thus, a solution remains dual feasible whenever
+* a cell gets more expensive. When the locks change, only the rows affected by the changed cells are released
+* and assigned again along one augmenting path each, instead of solving the whole problem again.
 */
-class HungarianMethod  {
+class HungarianMethod extends AssignmentMethod {
 	
-	private int dimension;
-	private double[][] matrix;
 	private double[][] omatrix;
-	private boolean[][] stars;
-	private boolean[][] primes;
-	private boolean[] coveredRows;
-	private boolean[] coveredCols;
-	private boolean solved = false;
 	
-	// this value makes the algorithm avoid locked cells
-	private static final float LOCK_PENALTY = 100.0f;
+	// the solver works on a matrix with at least as many columns as rows, thus the input might be transposed
+	private boolean transposed;
+	private int n;
+	private int m;
+	private double[][] costs;
 	
+	// the assignment and the dual variables in the orientation of the solver, rows n to m - 1 are the zero rows
+	private int[] col4row;
+	private int[] row4col;
+	private double[] u;
+	private double[] v;
+	
+	// true if col4row and row4col are a (partial) assignment with dual variables, such that the assigned cells are tight
+	private boolean warm = false;
+	
+	
+	/**
+	* Sets the dense distances of the mapping matrix as input matrix.
+	* 
+	* @see de.unima.alcomox.algorithms.AssignmentMethod#setInputMatrix(de.unima.alcomox.mapping.MappingMatrix)
+	*/
+	public void setInputMatrix(MappingMatrix mappingMatrix) {
+		this.setInputMatrix(mappingMatrix.getDistances());
+	}
 	
 	protected void setInputMatrix(double[][] matrix) {
-		this.dimension = matrix.length;
-		this.matrix = new double[this.dimension][this.dimension];
-		this.omatrix = new double[this.dimension][this.dimension];
-		this.stars = new boolean[this.dimension][this.dimension];
-		this.primes = new boolean[this.dimension][this.dimension];
-		this.coveredRows = new boolean[this.dimension];
-		this.coveredCols = new boolean[this.dimension];
-		for (int i = 0; i < this.dimension; i++) {
-			this.coveredRows[i] = false;
-			this.coveredCols[i] = false;			
+		this.omatrix = matrix;
+		this.numOfRows = matrix.length;
+		this.numOfCols = (matrix.length == 0) ? 0 : matrix[0].length;
+		this.transposed = this.numOfRows > this.numOfCols;
+		this.n = this.transposed ? this.numOfCols : this.numOfRows;
+		this.m = this.transposed ? this.numOfRows : this.numOfCols;
+		this.costs = new double[this.n][this.m];
+		for (int x = 0; x < this.numOfRows; x++) {
+			for (int y = 0; y < this.numOfCols; y++) {
+				this.setCost(x, y, this.getUnlockedCost(x, y));
+			}
 		}
-		this.setMatrix(matrix);	
+		this.appliedLocks.clear();
+		this.warm = false;
+		this.solved = false;
 	}
 	
 	/**
-	* Returns a string representation of the hungarian matrix that the algorithm has been worked with.
+	* Returns a string representation of the matrix that the algorithm has been worked with, i.e.,
+	* the input matrix where locked cells have been replaced, with chosen cells marked with a star.
 	* 
-	* @return A String representation of the hungarian matrix.
+	* @return A String representation of the matrix.
 	*/
 	public String toString() {
 		return toString(false);
@@ -91,122 +115,65 @@ class HungarianMethod  {
 	
 	
 	/**
-	* Returns the aggregated minimum.
-	* If the hungarian matrix has not been solved yet, it will be solved first.
+	* The solution for the current locks is repaired by one augmenting path.
 	* 
-	* @return The aggregated minimum (= sum of the distances all chosen entries).  
+	* @see de.unima.alcomox.algorithms.AssignmentMethod#getMinimum(de.unima.alcomox.algorithms.Coord)
 	*/
-	public double getMinimum() {
-		double aggregatedMinimum = 0.0f;
+	public double getMinimum(Coord lock) {
 		if (!this.solved) { this.solve(); }
-		for (int x = 0; x < this.dimension; x++) {
-			for (int y = 0; y < this.dimension; y++) {
-				if (stars[x][y]) { aggregatedMinimum += omatrix[x][y]; }
-			}
-		}	
-		// System.out.println("hungarian minimum: " +  aggregatedMinimum);
-		return aggregatedMinimum;
+		if (this.appliedLocks.contains(lock)) { return this.getMinimum(); }
+		int[] col4row = this.col4row.clone();
+		int[] row4col = this.row4col.clone();
+		double[] u = this.u.clone();
+		double[] v = this.v.clone();
+		this.changeCost(lock.getX(), lock.getY(), UNASSIGNED);
+		this.solve();
+		double minimum = this.getMinimum();
+		this.setCost(lock.getX(), lock.getY(), this.getUnlockedCost(lock.getX(), lock.getY()));
+		this.col4row = col4row;
+		this.row4col = row4col;
+		this.u = u;
+		this.v = v;
+		return minimum;
 	}
 	
 	/**
-	* Returns a solution to the hungarian matrix as list of indices.
-	* If the hungarian matrix has not been solved yet, it will be solved first.
-	* 
-	* @return An array list with inidces of correspondences.
+	* Solves the hungarian matrix. If a solution for other locks is available, only the rows
+	* released due to changed locks are assigned again. The result is available via the getters.
 	*/
-	public ArrayList<Integer> getSolution(MappingMatrix mappingMatrix) {
-		ArrayList<Integer> indices = new ArrayList<Integer>();
-		if (!this.solved) { this.solve(); }
-		for (int x = 0; x < this.dimension; x++) {
-			for (int y = 0; y < this.dimension; y++) {
-				if (stars[x][y]) {
-					if (mappingMatrix.containsCorrespondence(x,y)) {
-						/*
-						System.out.println("--------------------1");
-						System.out.print("index info: " + x + "/" +  y +  " => ");
-						System.out.print(mappingMatrix.getIndex(x,y) + " is about ");
-						System.out.println(mappingMatrix.getCorrespondence(x, y).toShortString());
-						System.out.println("--------------------2");
-						*/
-						indices.add(mappingMatrix.getIndex(x,y));
-					}
-				}
-			}
+	public void solve() {
+		if (!this.warm) {
+			this.col4row = new int[this.m];
+			this.row4col = new int[this.m];
+			Arrays.fill(this.col4row, -1);
+			Arrays.fill(this.row4col, -1);
+			this.u = new double[this.m];
+			this.v = new double[this.m];
+			this.warm = true;
 		}
-		return indices;
-	}
-
-	/**
-	 * Only for test purpose!
-	 * 
-	 * @param mappingMatrix
-	 * @return
-	 */
-	public Correspondence[] getChosenCorrespondences(MappingMatrix mappingMatrix) {
-		 Correspondence[] chosenCorrespondences = new Correspondence[this.dimension];
-		for (int x = 0; x < this.dimension; x++) {
-			
-			for (int y = 0; y < this.dimension; y++) {
-				if (stars[x][y]) {
-					if (mappingMatrix.containsCorrespondence(x,y)) {
-						chosenCorrespondences[x] = mappingMatrix.getCorrespondence(x, y);
-					}
-					else {
-						chosenCorrespondences[x] = null;
-					}
-				}
-			}
+		for (int row = 0; row < this.m; row++) {
+			if (this.col4row[row] == -1) { this.augment(row); }
 		}
-		return chosenCorrespondences;
+		this.solved = true;
 	}
 	
-	
-	/**
-	* Returns a solution to the hungarian matrix as mapping.
-	* If the hungarian matrix has not been solved yet, it will be solved first.
-	* 
-	* @return The solution as mapping.
-	*/
-	public Mapping getMapping(MappingMatrix mappingMatrix) {
-		if (!this.solved) { this.solve(); }
-		Mapping mapping = new Mapping();
-		for (int x = 0; x < this.dimension; x++) {
-			for (int y = 0; y < this.dimension; y++) {
-				if (stars[x][y]) {
-					if (mappingMatrix.containsCorrespondence(x,y)) {
-						mapping.push(mappingMatrix.getCorrespondence(x,y));
-					}
-				}
-			}
-		}
-		return  mapping;
+	protected void setLocked(int x, int y, boolean locked) {
+		this.changeCost(x, y, locked ? UNASSIGNED : this.getUnlockedCost(x, y));
 	}
 	
-	
-	
-	/**
-	* Solves the hungarian matrix. The results is available as stared matrix.
-	*/
-	public void solve() {
-		this.step0();
-		this.step1();
-		while (!(this.step2())) {
-			// step 3 calls step 4 and 5 internally
-			this.step3();
+	protected int getChosenCol(int x) {
+		int y;
+		if (this.transposed) {
+			y = this.row4col[x];
+			if (y >= this.n) { return -1; }
 		}
-		this.solved = true;
+		else { y = this.col4row[x]; }
+		if (y < 0 || this.getCost(x, y) >= UNASSIGNED) { return -1; }
+		return y;
 	}
 	
-	/**
-	* Locks the cells indexed via the elements in decisions. 
-	* 
-	* @param lockMarker An ArrayList with dual-element int[] arrays as element. Each element
-	* represents a cell index (row and col index) of the matrix.
-	*/
-	public void setLocks(LockMarker lockMarker) {
-		for (Coord lock : lockMarker) {
-			this.matrix[lock.getX()][lock.getY()] = LOCK_PENALTY;
-		}
+	protected double getDistance(int x, int y) {
+		return this.omatrix[x][y];
 	}
 	
 	
@@ -214,221 +181,121 @@ class HungarianMethod  {
 	// ********** PRIVATE PLAYGORUND **********
 	// ****************************************
 	
-	
-	private void setMatrix(double[][] matrix) {
-		for (int i = 0; i < matrix.length; i++) {
-			// System.out.println();
-			for (int j = 0; j < matrix.length; j++) {
-				// System.out.print(matrix[i][j] + " ");
-				this.matrix[i][j] = matrix[i][j];
-				this.omatrix[i][j] = matrix[i][j];
-				this.stars[i][j] = false;
-				this.primes[i][j] = false;
-			}			
-		}
-	}
-	
-	private String toString(boolean original) {
-		StringBuffer rep = new StringBuffer();
-		for (int i = 0; i < this.dimension; i++) {
-			rep.append(this.coveredCols[i] ? " ~   " : "     ");
-		}
-		rep.append("\n");
-		for (int i = 0; i < this.dimension; i++) {
-			for (int j = 0; j < this.dimension; j++) {
-				if (original) { rep.append(this.omatrix[i][j]); }
-				else { rep.append(this.matrix[i][j]); }
-				if (this.stars[i][j]) { rep.append("* "); }
-				else if (this.stars[i][j]) { rep.append("' "); }
-				else { rep.append("  "); }
-			}
-			if (this.coveredRows[i]) { rep.append(" ~"); }
-			rep.append("\n");
-		}
-		return rep.toString();
-	}		
-	
-	private void step1() {
-		boolean starable;
-		for (int x = 0; x < this.dimension; x++) {
-			for (int y = 0; y < this.dimension; y++) {
-				if (!(this.stars[x][y]) && this.matrix[x][y] == 0.0) {
-					starable = true;
-					for (int xcheck = 0; xcheck < this.dimension; xcheck++) {
-						if (this.stars[xcheck][y]) { starable = false; }
-					}
-					for (int ycheck = 0; ycheck < this.dimension; ycheck++) {
-						if (this.stars[x][ycheck]) { starable = false; }
-					}
-					if (starable) {
-						this.stars[x][y] = true;
-					}
+	// adds a row to the assignment along a shortest augmenting path in the reduced costs 
+	private void augment(int curRow) {
+		double[] shortestPathCosts = new double[this.m];
+		int[] path = new int[this.m];
+		boolean[] scannedRows = new boolean[this.m];
+		boolean[] scannedCols = new boolean[this.m];
+		int[] remaining = new int[this.m];
+		Arrays.fill(shortestPathCosts, Double.POSITIVE_INFINITY);
+		Arrays.fill(path, -1);
+		for (int col = 0; col < this.m; col++) { remaining[col] = this.m - col - 1; }
+		int numOfRemaining = this.m;
+		
+		double minVal = 0.0;
+		int row = curRow;
+		int sink = -1;
+		while (sink == -1) {
+			scannedRows[row] = true;
+			double[] rowCosts = (row < this.n) ? this.costs[row] : null;
+			double rowDual = this.u[row];
+			int index = -1;
+			double lowest = Double.POSITIVE_INFINITY;
+			for (int it = 0; it < numOfRemaining; it++) {
+				int col = remaining[it];
+				double r = minVal + ((rowCosts == null) ? 0.0 : rowCosts[col]) - rowDual - this.v[col];
+				if (r < shortestPathCosts[col]) {
+					path[col] = row;
+					shortestPathCosts[col] = r;
+				}
+				// among the columns with the lowest costs an unassigned one ends the search
+				if (shortestPathCosts[col] < lowest || (shortestPathCosts[col] == lowest && this.row4col[col] == -1)) {
+					lowest = shortestPathCosts[col];
+					index = it;
 				}
 			}
+			minVal = lowest;
+			int col = remaining[index];
+			if (this.row4col[col] == -1) { sink = col; }
+			else { row = this.row4col[col]; }
+			scannedCols[col] = true;
+			remaining[index] = remaining[--numOfRemaining];
 		}
-	}
-	
-
-	private boolean step2() {
-		int coveredColCounter = 0;
-		for (int y = 0; y < this.dimension; y++) {
-			for (int x = 0; x < this.dimension; x++) {
-				if (this.stars[x][y]) { this.coveredCols[y] = true; }
+		
+		// update the dual variables
+		this.u[curRow] += minVal;
+		for (int i = 0; i < this.m; i++) {
+			if (scannedRows[i] && i != curRow) {
+				this.u[i] += minVal - shortestPathCosts[this.col4row[i]];
 			}
 		}
-		for (int y = 0; y < this.dimension; y++) {
-			if (this.coveredCols[y]) { coveredColCounter++; }
-		}		
-		if (this.dimension == coveredColCounter) { return true; }
-		else { return false; }
-	}	
-	
-	private void step3() {
-		boolean continueStep3 = true;
-		while (continueStep3) {
-			int[] coord = getUncoveredZ(); 
-			if (coord == null) {
-				this.step5();	
+		for (int j = 0; j < this.m; j++) {
+			if (scannedCols[j]) {
+				this.v[j] -= minVal - shortestPathCosts[j];
 			}
-			else {
-				int x = coord[0];
-				int y = coord[1];
-				primes[x][y] = true;
-				int[] zStarCoord = getZStarInRow(x);
-				if (zStarCoord == null) {
-					step4(coord);
-					continueStep3 = false;
-				}
-				else {
-					this.coveredRows[x] = true;
-					this.coveredCols[zStarCoord[1]] = false;
-				}
-			}
-		}
-	}	
-	
-	private void step4(int[] coord) {
-		int[] zPrimeCoord = new int[2];
-		int[] zStarCoord  = null;
-		ArrayList<int[]> zSequence = new ArrayList<int[]>();
-		zPrimeCoord[0] = coord[0];
-		zPrimeCoord[1] = coord[1];	
-		zSequence.add(zPrimeCoord);
-		while (true) {	
-			zStarCoord  = getZStarInCol(zPrimeCoord[1]);
-			if (zStarCoord == null) { break; }
-			zSequence.add(zStarCoord);
-			zPrimeCoord = getZPrimeInRow(zStarCoord[0]);
-			zSequence.add(zPrimeCoord);	
 		}
-		// concvert ' * ' * ' to * ' * ' *
-		int[] tempCoord;
-		for (int i = 0; i < zSequence.size(); i++) {
-			tempCoord = zSequence.get(i); 
-			// even
-			if (i % 2 == 0) { stars[tempCoord[0]][tempCoord[1]] = true; }
-			// odd
-			else { stars[tempCoord[0]][tempCoord[1]] = false; }
+		
+		// flip the assignment along the path
+		int col = sink;
+		while (true) {
+			int i = path[col];
+			this.row4col[col] = i;
+			int previous = this.col4row[i];
+			this.col4row[i] = col;
+			col = previous;
+			if (i == curRow) { break; }
 		}
-		this.resetPrimesAndCovers();	
 	}
 	
-	private void resetPrimesAndCovers() {
-		for (int x = 0; x < this.dimension; x++) {
-			this.coveredCols[x] = false;
-			this.coveredRows[x] = false;
-			for (int y = 0; y < this.dimension; y++) { primes[x][y] = false; }
-		}
-	}
-
-	private void step5() {
-		double min = this.getUncoveredMin();
-		// add to covered rows
-		for (int x = 0; x < this.dimension; x++) {
-			if (this.coveredRows[x]) {
-				for (int y = 0; y < this.dimension; y++) { matrix[x][y] += min; }
+	// changes the cost of a cell and releases its row if the solution does not remain optimal
+	private void changeCost(int x, int y, double cost) {
+		this.setCost(x, y, cost);
+		this.solved = false;
+		if (!this.warm) { return; }
+		int i = this.transposed ? y : x;
+		int j = this.transposed ? x : y;
+		double[] rowCosts = this.costs[i];
+		if (this.col4row[i] == j || rowCosts[j] - this.u[i] - this.v[j] < 0.0) {
+			if (this.col4row[i] != -1) {
+				this.row4col[this.col4row[i]] = -1;
+				this.col4row[i] = -1;
 			}
-		}
-		// substract from uncovered cols
-		for (int y = 0; y < this.dimension; y++) {
-			if (!(this.coveredCols[y])) {
-				for (int x = 0; x < this.dimension; x++) {
-					matrix[x][y] -= min;
-					
-				}
+			// the released row gets the highest dual value that keeps all its cells feasible
+			double minReduced = Double.POSITIVE_INFINITY;
+			for (int col = 0; col < this.m; col++) {
+				minReduced = Math.min(minReduced, rowCosts[col] - this.v[col]);
 			}
+			this.u[i] = minReduced;
 		}
 	}
 	
-	private double getUncoveredMin() {
-		double min = Double.MAX_VALUE;
-		for (int x = 0; x < this.dimension; x++) {
-			if (!(this.coveredRows[x])) {
-				for (int y = 0; y < this.dimension; y++) {
-					if (!(this.coveredCols[y])) { 	
-						if (min > this.matrix[x][y]) {
-							min = this.matrix[x][y];
-						}
-					}
-				}
-			}
-		}		
-		return min;
-	}
-
-	private int[] getUncoveredZ() {
-		for (int x = 0; x < this.dimension; x++) {
-			if (!(this.coveredRows[x])) {
-				for (int y = 0; y < this.dimension; y++) {
-					if (!(this.coveredCols[y])) { 	
-						if (this.matrix[x][y] == 0.0 && !this.stars[x][y] && !this.primes[x][y]) {
-							return new int[]{x,y};
-						}
-					}
-				}
-			}
-		}		
-		return null;
+	private double getUnlockedCost(int x, int y) {
+		return Math.min(this.omatrix[x][y], UNASSIGNED);
 	}
 	
-	private int[] getZStarInRow(int x) {
-		for (int y = 0; y < this.dimension; y++) {
-			if (this.stars[x][y]) { return new int[]{x,y}; }
-		}	
-		return null;
+	private double getCost(int x, int y) {
+		return this.transposed ? this.costs[y][x] : this.costs[x][y];
 	}
-
-	private int[] getZStarInCol(int y) {
-		for (int x = 0; x < this.dimension; x++) {
-			if (this.stars[x][y]) { return new int[]{x,y}; }
-		}	
-		return null;
-	}	
 	
-
-	private int[] getZPrimeInRow(int x) {
-		for (int y = 0; y < this.dimension; y++) {
-			if (this.primes[x][y]) { return new int[]{x,y}; }
-		}	
-		return null;
+	private void setCost(int x, int y, double cost) {
+		if (this.transposed) { this.costs[y][x] = cost; }
+		else { this.costs[x][y] = cost; }
 	}
 	
-	private void step0() {
-		for (int i = 0; i < this.dimension; i++) {
-			double rowMin = Float.MAX_VALUE;
-			for (int j = 0; j < this.dimension; j++) {
-				if (rowMin > this.matrix[i][j]) { rowMin = this.matrix[i][j]; }
+	private String toString(boolean original) {
+		StringBuffer rep = new StringBuffer();
+		for (int x = 0; x < this.numOfRows; x++) {
+			int chosen = this.solved ? this.getChosenCol(x) : -1;
+			for (int y = 0; y < this.numOfCols; y++) {
+				if (original) { rep.append(this.omatrix[x][y]); }
+				else { rep.append(this.getCost(x, y)); }
+				if (y == chosen) { rep.append("* "); }
+				else { rep.append("  "); }
 			}
-			for (int j = 0; j < this.dimension; j++) { this.matrix[i][j] -= rowMin; }
-		}	
+			rep.append("\n");
+		}
+		return rep.toString();
 	}
-
-
-
-
-
-
-	
-	
 	
 }
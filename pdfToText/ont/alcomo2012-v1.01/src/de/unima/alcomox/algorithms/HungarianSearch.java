@@ -31,10 +31,12 @@ import java.util.PriorityQueue;
 import java.util.Set;
 
 import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
 import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.MappingMatrix;
 import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 /**
 * A uniform cost search using the hungarian method
@@ -78,10 +80,19 @@ public class HungarianSearch extends AlcomoExtraction {
 			HashSet<LockMarker> nodesInQueue = new HashSet<LockMarker>();
 			// convert mapping into matrix
 			MappingMatrix mappingMatrix = new MappingMatrix(mapping);
-			// prepare method for performing munkre algorithm
-			// HungarianMethod hungarianMethod = new HungarianMethod();
+			// prepare method for solving the assignment problems, the matrix is shared by all nodes and only the locks change,
+			// the solution of the previous node is reused as starting point for the next one
+			AssignmentMethod hungarianMethod;
+			if (mappingMatrix.getDensity() < Settings.SPARSE_ASSIGNMENT_DENSITY) {
+				this.log.infoS("solving assignment problems on the sparse " + mappingMatrix);
+				hungarianMethod = new SparseHungarianMethod();
+			}
+			else {
+				hungarianMethod = new HungarianMethod();
+			}
+			hungarianMethod.setInputMatrix(mappingMatrix);
 			// now precompute and store the conflicts
-			ConflictStore conflictStore = new ConflictStore(this.efficientReasoner, this.mapping); 
+			ConflictStore conflictStore = new ConflictStore(this.efficientReasoner, this.mapping, this.extractionProblem.getParallelism()); 
 			// prepare and  push the 'root' in the queue
 			
 			LockMarker rootMarker = new LockMarker();
@@ -98,12 +109,11 @@ public class HungarianSearch extends AlcomoExtraction {
 			while (true) {
 				marker = queue.poll();
 				nodesInQueue.remove(marker);
+				this.metrics.increment(ExtractionMetrics.Counter.NODES_EXPANDED);
 				if (marker.size() > minActiveSizeInTree) {					
 					minActiveSizeInTree = marker.size();
 					this.log.infoS("set locks=" + minActiveSizeInTree + " for best solution, score=" + marker.getScore() + ", queuesize=" + queue.size() + "");					
 				}
-				HungarianMethod hungarianMethod = new HungarianMethod();
-				hungarianMethod.setInputMatrix(mappingMatrix.getDistances());
 				hungarianMethod.setLocks(marker);
 				// min = hungarianMethod.getMinimum();
 				ArrayList<Integer> indices = hungarianMethod.getSolution(mappingMatrix);
@@ -149,15 +159,14 @@ public class HungarianSearch extends AlcomoExtraction {
 						LockMarker childLock = marker.getChild(lockedCoord);
 						
 						if (!(nodesInQueue.contains(childLock))) {
-							hungarianMethod = new HungarianMethod();
-							hungarianMethod.setInputMatrix(mappingMatrix.getDistances());
-							hungarianMethod.setLocks(childLock);
-							
-							childLock.setScore(hungarianMethod.getMinimum());
+							// the child differs by one lock, its score is computed by repairing the solution of the parent
+							childLock.setScore(hungarianMethod.getMinimum(lockedCoord));
 							queue.add(childLock);
 							nodesInQueue.add(childLock);
+							this.metrics.increment(ExtractionMetrics.Counter.NODES_GENERATED);
 						}	
 					}
+					this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, queue.size());
 				}
 				else {
 					break;
@@ -27,9 +27,9 @@ package de.unima.alcomox.algorithms;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
 
-import de.unima.alcomox.exceptions.PCFException;
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.Mapping;
 
@@ -38,15 +38,40 @@ import de.unima.alcomox.mapping.Mapping;
  * correspondence of a mapping is active or not. It is used for fast performance
  * of algorithms compared to directly working on mappings and correspondences.
  * 
+ * The flags are stored as a bitset that is split into chunks of 512 bits. A child
+ * shares all chunks with its parent except the one that contains the flag that
+ * has been changed. The hashcode is a Zobrist hash, i.e., the xor of a random key
+ * for each active correspondence, which is updated whenever a flag changes.
  */
 public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 
-	private static double[] confidences;
+	// number of 64 bit words in a chunk
+	private static final int WORDS_PER_CHUNK = 8;
+	private static final int BITS_PER_CHUNK = 64 * WORDS_PER_CHUNK;
+	
+	// the chunk ownership of a marker that owns no chunk, all chunks, or the chunks flagged in ownedChunks
+	private static final int NO_CHUNK = -1;
+	private static final int ALL_CHUNKS = -2;
+	private static final int SOME_CHUNKS = -3;
+	
+	// seed for the zobrist keys
+	private static final int NUMBER_OF_THE_BEAST = 666;
+	
+	// shared by all markers of the same search tree
+	private double[] confidences;
+	private long[] zobristKeys;
+	
+	private int size;
+	private long[][] chunks;
+	// the chunk that can be modified without affecting another marker, NO_CHUNK, ALL_CHUNKS or SOME_CHUNKS
+	private int ownedChunk;
+	// only used for SOME_CHUNKS, i.e., if more than one but not all chunks have been copied
+	private boolean[] ownedChunks = null;
+	private long zobristHash;
+	
 	private int index = 0;
-	private boolean[] flag;
 	private double trust;
 	private double estimatedTrustLoss;
-	private int hashcode;
 
 	/**
 	 * Constructs an index-marker of size specified by a mapping. The flags are
@@ -58,27 +83,33 @@ public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 	 *            index-marker.
 	 */
 	public IndexMarker(Mapping mapping, ConflictStore cm) {
-		this.flag = new boolean[mapping.size()];
-		IndexMarker.confidences = new double[mapping.size()];
+		this.size = mapping.size();
+		this.confidences = new double[mapping.size()];
+		this.zobristKeys = new long[mapping.size()];
+		Random rand = new Random(NUMBER_OF_THE_BEAST);
 		for (int i = 0; i < mapping.size(); i++) {
-			IndexMarker.confidences[i] = mapping.get(i).getConfidence();
-			this.flag[i] = true;
+			this.confidences[i] = mapping.get(i).getConfidence();
+			this.zobristKeys[i] = rand.nextLong();
+		}
+		int numOfWords = ConflictStore.getNumOfWords(mapping.size());
+		this.chunks = new long[(numOfWords + WORDS_PER_CHUNK - 1) / WORDS_PER_CHUNK][];
+		for (int c = 0; c < this.chunks.length; c++) {
+			this.chunks[c] = new long[Math.min(WORDS_PER_CHUNK, numOfWords - c * WORDS_PER_CHUNK)];
+		}
+		this.ownedChunk = ALL_CHUNKS;
+		// the hash of a marker where no flag is set is zero, each activation adds the key of the correspondence
+		this.zobristHash = 0L;
+		for (int i = 0; i < mapping.size(); i++) {
+			this.activate(i);
 		}
 		this.computeTrust();
 		this.estimatedTrustLoss = 0.0;
 		this.computeHeuristic(cm);
-		this.prepareHashcode();
 		this.initOrResetIndex();
 	}
 
 	public void initOrResetIndex() {
-		for (int i = 0; i < this.flag.length; i++) {
-			if (flag[i]) {
-				this. index = i;
-				return;
-			}
-		}
-		this.index = -1;
+		this.index = this.getNextActive(0);
 	}
 
 	/**
@@ -91,16 +122,18 @@ public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 	 */
 	public IndexMarker getChild(int index, ConflictStore cm) {
 		IndexMarker child = new IndexMarker(this);
+		// from now on the chunks are shared, thus none of them can be modified in place
+		this.ownedChunk = NO_CHUNK;
+		this.ownedChunks = null;
 		child.deactivate(index);
-		child.trust = this.getTrust() - IndexMarker.confidences[index];
+		child.trust = this.getTrust() - this.confidences[index];
 		this.estimatedTrustLoss = 0.0;
 		child.computeHeuristic(cm);
-		child.prepareHashcode();
 		return child;
 	}
 
 	public boolean isActive(int index) {
-		return this.flag[index];
+		return (this.chunks[index / BITS_PER_CHUNK][(index % BITS_PER_CHUNK) >>> 6] & (1L << (index & 63))) != 0L;
 	}
 
 	public Mapping getActiveMapping(Mapping mapping) {
@@ -126,16 +159,16 @@ public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 
 	public int activeSize() {
 		int counter = 0;
-		for (int i = 0; i < this.size(); i++) {
-			if (this.isActive(i)) {
-				counter++;
+		for (long[] chunk : this.chunks) {
+			for (long word : chunk) {
+				counter += Long.bitCount(word);
 			}
 		}
 		return counter;
 	}
 
 	public int size() {
-		return flag.length;
+		return this.size;
 	}
 
 	public int compareTo(IndexMarker that) {
@@ -149,62 +182,152 @@ public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 	}
 
 	public boolean equals(Object object) {
-		try {
-			IndexMarker that = (IndexMarker) object;
-			if (this.size() != that.size()) {
-				return false;
+		if (!(object instanceof IndexMarker)) {
+			return false;
+		}
+		IndexMarker that = (IndexMarker) object;
+		if (this.size() != that.size() || this.zobristHash != that.zobristHash) {
+			return false;
+		}
+		for (int c = 0; c < this.chunks.length; c++) {
+			// shared chunks are equal for sure
+			if (this.chunks[c] == that.chunks[c]) {
+				continue;
 			}
-			for (int i = 0; i < this.size(); i++) {
-				if (this.isActive(i) != that.isActive(i)) {
+			for (int w = 0; w < this.chunks[c].length; w++) {
+				if (this.chunks[c][w] != that.chunks[c][w]) {
 					return false;
 				}
 			}
+		}
+		return true;
+	}
+
+	public int hashCode() {
+		return (int)(this.zobristHash ^ (this.zobristHash >>> 32));
+	}
+
+	/**
+	 * Returns 64 flags packed into one word. Bit i of word w is set iff
+	 * the correspondence with index 64 * w + i is active.
+	 * 
+	 * @param w The index of the word.
+	 * @return The packed active flags.
+	 */
+	long getActiveWord(int w) {
+		return this.chunks[w / WORDS_PER_CHUNK][w % WORDS_PER_CHUNK];
+	}
+
+	public void deactivate(int index) {
+		if (!this.isActive(index)) { return; }
+		this.getModifiableChunk(index)[(index % BITS_PER_CHUNK) >>> 6] &= ~(1L << (index & 63));
+		this.zobristHash ^= this.zobristKeys[index];
+	}
+
+	public double getConfidence(int index) {
+		return this.confidences[index];
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (index >= 0) {
 			return true;
-		} catch (ClassCastException e) {
+		}
+		else {
 			return false;
 		}
 	}
 
-	public int hashCode() {
-		return this.hashcode;
+	@Override
+	public Integer next() {
+		if (this.index == -1) {
+			throw new NoSuchElementException();
+		}
+		int previousIndex = this.index;
+		this.index = this.getNextActive(this.index + 1);
+		return previousIndex;
+	}
+
+	@Override
+	public void remove() {
+		// TODO Auto-generated method stub
+
 	}
 
 	// *** PRIVATE PLAYGROUND ***
 
 	private void computeHeuristic(ConflictStore cm) {
-		Set<Integer> conflict = cm.getConflictingIndices(this);
-		ArrayList<Integer> tempRemovedNodes = new ArrayList<Integer>();
+		// the flags are changed temporarily on a marker that shares the chunks of this marker and copies only
+		// the chunks it writes, this marker is not modified while the scratch marker is used
+		IndexMarker scratch = new IndexMarker(this);
+		Set<Integer> conflict = cm.getConflictingIndices(scratch);
 		double estimatedTrustLoss = 0.0;
 		while (conflict != null) {
 			double minConfidence = 1.0;
 			for (int index : conflict) {
-				tempRemovedNodes.add(index);
-				this.deactivate(index);
+				scratch.deactivate(index);
 				minConfidence = (this.getConfidence(index) < minConfidence) ? this
 						.getConfidence(index) : minConfidence;
 			}
 			estimatedTrustLoss += minConfidence;
-			conflict = cm.getConflictingIndices(this);
-		}
-		for (Integer index : tempRemovedNodes) {
-			this.activate(index);
+			conflict = cm.getConflictingIndices(scratch);
 		}
 		// this.estimatedTrustLoss = 0;
 		this.estimatedTrustLoss = estimatedTrustLoss;
 	}
 
 	private void activate(int index) {
-		this.flag[index] = true;
+		if (this.isActive(index)) { return; }
+		this.getModifiableChunk(index)[(index % BITS_PER_CHUNK) >>> 6] |= 1L << (index & 63);
+		this.zobristHash ^= this.zobristKeys[index];
 	}
-
-	public void deactivate(int index) {
-		this.flag[index] = false;
+	
+	private long[] getModifiableChunk(int index) {
+		int c = index / BITS_PER_CHUNK;
+		if (this.ownedChunk == ALL_CHUNKS || this.ownedChunk == c) {
+			return this.chunks[c];
+		}
+		if (this.ownedChunk == SOME_CHUNKS && this.ownedChunks[c]) {
+			return this.chunks[c];
+		}
+		this.chunks[c] = this.chunks[c].clone();
+		if (this.ownedChunk == NO_CHUNK) {
+			this.ownedChunk = c;
+		}
+		else {
+			// a further chunk is modified, ownership is tracked for each chunk
+			if (this.ownedChunk != SOME_CHUNKS) {
+				this.ownedChunks = new boolean[this.chunks.length];
+				this.ownedChunks[this.ownedChunk] = true;
+				this.ownedChunk = SOME_CHUNKS;
+			}
+			this.ownedChunks[c] = true;
+		}
+		return this.chunks[c];
 	}
 
+	// the copy shares all chunks with the given marker, a chunk is copied when it is modified the first time
 	private IndexMarker(IndexMarker that) {
-		this.flag = new boolean[that.size()];
-		for (int i = 0; i < that.size(); i++) {
-			this.flag[i] = that.isActive(i);
+		this.confidences = that.confidences;
+		this.zobristKeys = that.zobristKeys;
+		this.size = that.size;
+		this.chunks = that.chunks.clone();
+		this.ownedChunk = NO_CHUNK;
+		this.zobristHash = that.zobristHash;
+		this.trust = that.trust;
+	}
+
+	private int getNextActive(int from) {
+		int w = from >>> 6;
+		if (from >= this.size) { return -1; }
+		long word = this.getActiveWord(w) & (-1L << (from & 63));
+		while (true) {
+			if (word != 0L) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+			w++;
+			if ((w << 6) >= this.size) { return -1; }
+			word = this.getActiveWord(w);
 		}
 	}
 
@@ -222,61 +345,10 @@ public class IndexMarker implements Comparable<IndexMarker>, Iterator<Integer> {
 		double t = 0.0;
 		for (int i = 0; i < this.size(); i++) {
 			if (this.isActive(i)) {
-				t += IndexMarker.confidences[i];
+				t += this.confidences[i];
 			}
 		}
 		this.trust = t;
 	}
 
-	private void prepareHashcode() {
-		Double t = this.getTrust() * 10000;
-		int hc = t.intValue();
-		int hcAdjust = 0;
-		int power = 1;
-		for (int i = 0; i < ((this.size() < 32) ? this.size() : 31); i++) {
-			power *= 2;
-			if (this.isActive(i)) {
-				hcAdjust += power;
-			}
-		}
-		hc += hcAdjust;
-		this.hashcode = hc;
-	}
-
-	public double getConfidence(int index) {
-		return IndexMarker.confidences[index];
-	}
-
-	@Override
-	public boolean hasNext() {
-		if (index >= 0) {
-			return true;
-		}
-		else {
-			return false;
-		}
-	}
-
-	@Override
-	public Integer next() {
-		if (this.index == -1) {
-			throw new NoSuchElementException();
-		}
-		int previousIndex = this.index;
-		this.index++;
-		while (this.index < this.flag.length && this.flag[this.index] == false) {
-			this.index++;
-		}
-		if (this.index >= this.flag.length) {
-			this.index = -1;
-		}
-		return previousIndex;
-	}
-
-	@Override
-	public void remove() {
-		// TODO Auto-generated method stub
-
-	}
-
 }
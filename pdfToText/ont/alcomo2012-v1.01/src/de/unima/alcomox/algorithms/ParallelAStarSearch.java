@@ -0,0 +1,227 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.util.ExtractionMetrics;
+
+/**
+* A parallel best first search to solve an extraction problem with efficient reasoning, following the
+* idea of hash distributed A* (HDA*). Each node of the search tree is owned by one of the workers,
+* determined by the hashcode of the node. Each worker has its own queue and its own set of nodes seen
+* so far. Children are sent to their owner via a non blocking queue. The best solution found so far is
+* shared by all workers and used to prune nodes that cannot lead to a better solution. The search
+* terminates if each node that has been generated has been expanded or pruned.
+* 
+* The trust of the solution is the same as the one found by {@link AStarSearch}. If there are several
+* solutions with optimal trust, it depends on the scheduling which of them is returned.
+*/
+public class ParallelAStarSearch extends AlcomoExtraction {
+	
+	// time a worker sleeps if there is nothing to do
+	private static final long IDLE_NANOS = 100000L;
+	
+	private EfficientReasoner efficientReasoner;
+	private ConflictStore conflictStore;
+	private Worker[] workers;
+	
+	// number of nodes that have been generated, but have not yet been expanded or pruned
+	private AtomicInteger pending;
+	private volatile boolean stopped;
+	// the first exception thrown by a worker, it stops the search and is rethrown by run
+	private volatile Throwable failure;
+	
+	private IndexMarker bestSolution = null;
+	private volatile double bestTrust = Double.NEGATIVE_INFINITY;
+
+	/**
+	* Constructs a parallel best first search. The number of workers is the parallelism of
+	* the extraction problem.
+	*  
+	* @param extractionProblem The problem to be solved.
+	*/
+	public ParallelAStarSearch(ExtractionProblem extractionProblem) {
+		super(extractionProblem);
+	}
+
+	/**
+	* @see de.unima.alcomox.algorithms.AlcomoExtraction#run()
+	*/
+	public void run() throws AlcomoException {
+		int numOfWorkers = this.extractionProblem.getParallelism();
+		this.log.infoS("parallel a*search with efficient (incomplete) reasoning using " + numOfWorkers + " threads ...");
+		this.efficientReasoner = new EfficientReasoner(this.sourceOntology, this.targetOntology, this.extractionProblem);
+		this.conflictStore = new ConflictStore(this.efficientReasoner, this.mapping, numOfWorkers);
+		IndexMarker root = new IndexMarker(this.mapping, this.conflictStore);
+		this.log.infoS("starting with " + root.activeSize() + " correspondences");
+		this.activeMapping = root.getActiveMapping(this.mapping);
+		this.inactiveMapping = root.getInactiveMapping(this.mapping);
+		
+		this.workers = new Worker[numOfWorkers];
+		for (int i = 0; i < numOfWorkers; i++) {
+			this.workers[i] = new Worker();
+		}
+		this.pending = new AtomicInteger(1);
+		this.stopped = false;
+		this.failure = null;
+		this.getOwner(root).inbox.add(root);
+		Thread[] threads = new Thread[numOfWorkers];
+		for (int i = 0; i < numOfWorkers; i++) {
+			threads[i] = new Thread(this.workers[i], "alcomo-search-" + i);
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		// wait for the workers, an interrupt of this thread stops them
+		while (this.pending.get() > 0 && this.failure == null) {
+			if (this.hasBeenInterrupted()) { break; }
+			try {
+				Thread.sleep(1);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		this.stopped = true;
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (this.failure instanceof RuntimeException) { throw (RuntimeException)this.failure; }
+		if (this.failure instanceof Error) { throw (Error)this.failure; }
+		if (this.failure != null) { throw new RuntimeException(this.failure); }
+		int expanded = 0;
+		for (Worker worker : this.workers) {
+			expanded += worker.expanded;
+			this.metrics.add(ExtractionMetrics.Counter.NODES_GENERATED, worker.generated);
+			this.metrics.updateMaximum(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE, worker.peakQueueSize);
+		}
+		this.metrics.add(ExtractionMetrics.Counter.NODES_EXPANDED, expanded);
+		if (this.bestSolution != null) {
+			this.activeMapping = this.bestSolution.getActiveMapping(this.mapping);
+			this.inactiveMapping = this.bestSolution.getInactiveMapping(this.mapping);
+		}
+		this.log.infoS("... done, active=" + this.activeMapping.size() + " inactive=" + this.inactiveMapping.size() + " expanded=" + expanded + " (optimal)");
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private Worker getOwner(IndexMarker m) {
+		return this.workers[(m.hashCode() & 0x7fffffff) % this.workers.length];
+	}
+	
+	private synchronized void offerSolution(IndexMarker m) {
+		if (m.getTrust() > this.bestTrust) {
+			this.bestSolution = m;
+			this.bestTrust = m.getTrust();
+		}
+	}
+	
+	private synchronized void fail(Throwable t) {
+		if (this.failure == null) { this.failure = t; }
+		this.stopped = true;
+	}
+	
+	private class Worker implements Runnable {
+		
+		// nodes sent by other workers
+		private ConcurrentLinkedQueue<IndexMarker> inbox = new ConcurrentLinkedQueue<IndexMarker>();
+		private PriorityQueue<IndexMarker> queue = new PriorityQueue<IndexMarker>();
+		// each node owned by this worker that has been queued so far
+		private HashSet<IndexMarker> seen = new HashSet<IndexMarker>();
+		private int expanded = 0;
+		private int generated = 0;
+		private int peakQueueSize = 0;
+		
+		public void run() {
+			try {
+				while (!stopped) {
+					IndexMarker m = this.inbox.poll();
+					while (m != null) {
+						this.receive(m);
+						m = this.inbox.poll();
+					}
+					m = this.queue.poll();
+					if (m == null) {
+						if (pending.get() == 0) { break; }
+						LockSupport.parkNanos(IDLE_NANOS);
+						continue;
+					}
+					this.expand(m);
+				}
+			}
+			// pending would never drop to zero, thus the other workers and the waiting thread have to be stopped
+			catch (Throwable t) {
+				fail(t);
+			}
+		}
+		
+		private void receive(IndexMarker m) {
+			// the trust of a node depends only on its active correspondences
+			if (this.seen.contains(m)) {
+				pending.decrementAndGet();
+				return;
+			}
+			this.seen.add(m);
+			this.queue.add(m);
+			this.generated++;
+			this.peakQueueSize = Math.max(this.peakQueueSize, this.queue.size());
+		}
+		
+		private void expand(IndexMarker m) {
+			if (m.getFinalTrust() > bestTrust) {
+				Set<Integer> conflictIndices = conflictStore.getConflictingIndices(m);
+				if (conflictIndices == null) {
+					offerSolution(m);
+				}
+				else {
+					for (Integer index : conflictIndices) {
+						IndexMarker child = m.getChild(index, conflictStore);
+						if (child.getFinalTrust() > bestTrust) {
+							// counted before the parent is done, thus pending never drops to zero too early
+							pending.incrementAndGet();
+							getOwner(child).inbox.add(child);
+						}
+					}
+				}
+				this.expanded++;
+			}
+			pending.decrementAndGet();
+		}
+	}
+
+}
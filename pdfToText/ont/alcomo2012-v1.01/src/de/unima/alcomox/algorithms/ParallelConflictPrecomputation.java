@@ -0,0 +1,207 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.ConflictCandidateIndex;
+import de.unima.alcomox.ontology.EfficientReasoner;
+
+/**
+* Computes all pairs of correspondences that are in conflict due to pattern based reasoning
+* by distributing the triangular pair space over a fork-join pool. The pair space is split into
+* square tiles, each worker collects the conflicts of its tiles in its own buffer and the buffers
+* are concatenated afterwards. The pairs are finally sorted such that the result is the same as
+* the one of the sequential loop, no matter how many threads are used.
+* 
+* If a candidate index is available, only the candidates of each correspondence are checked. In this
+* case the tiles are strips of rows that range over all columns.
+*/
+class ParallelConflictPrecomputation {
+	
+	// number of rows and columns of a tile, aligned with the words of the conflict store
+	private static final int TILE_SIZE = 64;
+	
+	// a task computes its tiles sequentially if there are not more than this
+	private static final int TILES_PER_TASK = 4;
+	
+	private EfficientReasoner reasoner;
+	private Mapping mapping;
+	private ConflictCandidateIndex candidateIndex;
+	
+	// the first row, the first column and the column after the last column of each tile
+	private int[] tiles;
+
+	/**
+	* Constructs a precomputation for the pairs of a mapping.
+	* 
+	* @param reasoner The efficient reasoner, has to support concurrent checks.
+	* @param mapping The mapping to be analyzed.
+	* @param candidateIndex The candidates to be checked, null if all pairs have to be checked.
+	*/
+	ParallelConflictPrecomputation(EfficientReasoner reasoner, Mapping mapping, ConflictCandidateIndex candidateIndex) {
+		this.reasoner = reasoner;
+		this.mapping = mapping;
+		this.candidateIndex = candidateIndex;
+		int numOfBlocks = (mapping.size() + TILE_SIZE - 1) / TILE_SIZE;
+		if (candidateIndex == null) {
+			this.tiles = new int[3 * numOfBlocks * (numOfBlocks + 1) / 2];
+		}
+		else {
+			this.tiles = new int[3 * numOfBlocks];
+		}
+		int t = 0;
+		for (int row = 0; row < numOfBlocks; row++) {
+			if (candidateIndex != null) {
+				this.tiles[t++] = row * TILE_SIZE;
+				this.tiles[t++] = row * TILE_SIZE;
+				this.tiles[t++] = mapping.size();
+				continue;
+			}
+			for (int col = row; col < numOfBlocks; col++) {
+				this.tiles[t++] = row * TILE_SIZE;
+				this.tiles[t++] = col * TILE_SIZE;
+				this.tiles[t++] = Math.min((col + 1) * TILE_SIZE, mapping.size());
+			}
+		}
+	}
+	
+	/**
+	* Computes the conflict pairs with the given number of threads.
+	* 
+	* @param parallelism The number of worker threads.
+	* @return The conflicting pairs x < y encoded via {@link #encode(int, int)},
+	* sorted ascending by x and then by y.
+	*/
+	long[] compute(int parallelism) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			LongBuffer buffer = pool.invoke(new TileTask(0, this.tiles.length / 3));
+			long[] pairs = buffer.toArray();
+			Arrays.sort(pairs);
+			return pairs;
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	static long encode(int x, int y) {
+		return ((long)x << 32) | y;
+	}
+	
+	static int getFirst(long pair) {
+		return (int)(pair >>> 32);
+	}
+	
+	static int getSecond(long pair) {
+		return (int)pair;
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private void computeTile(int tile, LongBuffer buffer) {
+		int rowStart = this.tiles[3 * tile];
+		int colStart = this.tiles[3 * tile + 1];
+		int colEnd = this.tiles[3 * tile + 2];
+		int rowEnd = Math.min(rowStart + TILE_SIZE, this.mapping.size());
+		for (int x = rowStart; x < rowEnd; x++) {
+			if (this.candidateIndex != null) {
+				for (int y : this.candidateIndex.getCandidates(x)) {
+					if (y <= x) { continue; }
+					if (this.reasoner.isConflictPair(this.mapping.get(x), this.mapping.get(y))) {
+						buffer.add(encode(x, y));
+					}
+				}
+				continue;
+			}
+			for (int y = Math.max(colStart, x + 1); y < colEnd; y++) {
+				if (this.reasoner.isConflictPair(this.mapping.get(x), this.mapping.get(y))) {
+					buffer.add(encode(x, y));
+				}
+			}
+		}
+	}
+	
+	private class TileTask extends RecursiveTask<LongBuffer> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private int from;
+		private int to;
+		
+		TileTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected LongBuffer compute() {
+			if (this.to - this.from <= TILES_PER_TASK) {
+				LongBuffer buffer = new LongBuffer();
+				for (int tile = this.from; tile < this.to; tile++) {
+					computeTile(tile, buffer);
+				}
+				return buffer;
+			}
+			int middle = (this.from + this.to) >>> 1;
+			TileTask left = new TileTask(this.from, middle);
+			TileTask right = new TileTask(middle, this.to);
+			left.fork();
+			LongBuffer rightBuffer = right.compute();
+			LongBuffer leftBuffer = left.join();
+			leftBuffer.addAll(rightBuffer);
+			return leftBuffer;
+		}
+	}
+	
+	private static class LongBuffer {
+		
+		private long[] values = new long[16];
+		private int size = 0;
+		
+		void add(long value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, 2 * this.size);
+			}
+			this.values[this.size++] = value;
+		}
+		
+		void addAll(LongBuffer that) {
+			if (this.size + that.size > this.values.length) {
+				this.values = Arrays.copyOf(this.values, Math.max(2 * this.values.length, this.size + that.size));
+			}
+			System.arraycopy(that.values, 0, this.values, this.size, that.size);
+			this.size += that.size;
+		}
+		
+		long[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+
+}
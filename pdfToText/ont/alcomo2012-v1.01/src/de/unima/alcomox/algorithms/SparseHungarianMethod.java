@@ -0,0 +1,321 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+package de.unima.alcomox.algorithms;
+
+import java.util.Arrays;
+
+import de.unima.alcomox.mapping.MappingMatrix;
+
+
+
+/**
+* This class solves the assignment problem of a sparse mapping matrix with the same shortest augmenting path
+* method as the hungarian method, but works on the entries of the matrix instead of all its cells. Memory and
+* time depend on the number of correspondences and not on the number of cells.
+* 
+* The problem is completed to a square one as described by Ramshaw and Tarjan (On minimum-cost assignments in
+* unbalanced bipartite graphs, 2012). Its rows are the source entities followed by one dummy row for each target
+* entity, its columns are the target entities followed by one dummy column for each source entity. Beside the
+* entries of the matrix, each source entity can be assigned to its dummy column at distance 1.0, each target entity
+* can be assigned to its dummy row at distance 0.0, and for each entry the dummy row of its target can be assigned
+* to the dummy column of its source at distance 0.0. Thus, the graph remains sparse. Each shortest path is computed
+* by Dijkstra's algorithm with a binary heap and touches only the entries it reaches.
+* 
+* As in the dense method, the dual variables of the square problem are not restricted and the solution is repaired
+* when locks change. A locked entry is removed from the graph.
+*/
+class SparseHungarianMethod extends AssignmentMethod {
+	
+	private MappingMatrix mappingMatrix;
+	private int size;
+	
+	// the edges of row i are edgeStarts[i] to edgeStarts[i + 1] - 1, the edges of a source entity x are its entries
+	// in the same order as in the mapping matrix followed by the edge to its dummy column, locked edges cost infinity
+	private int[] edgeStarts;
+	private int[] edgeCols;
+	private double[] edgeCosts;
+	
+	private int[] col4row;
+	private int[] row4col;
+	private double[] u;
+	private double[] v;
+	
+	// true if col4row and row4col are a (partial) assignment with dual variables, such that the assigned cells are tight
+	private boolean warm = false;
+	
+	// the state of Dijkstra's algorithm, the arrays are reset after each run only where they have been touched
+	private double[] shortestPathCosts;
+	private int[] path;
+	private boolean[] scannedCols;
+	private int[] touchedCols;
+	private int numOfTouchedCols;
+	private int[] scannedRows;
+	private int numOfScannedRows;
+	private double[] heapCosts;
+	private int[] heapCols;
+	private int heapSize;
+	
+	
+	public void setInputMatrix(MappingMatrix mappingMatrix) {
+		this.mappingMatrix = mappingMatrix;
+		this.numOfRows = mappingMatrix.getNumOfSourceEntities();
+		this.numOfCols = mappingMatrix.getNumOfTargetEntities();
+		this.size = this.numOfRows + this.numOfCols;
+		int numOfEntries = mappingMatrix.getNumOfEntries();
+		int numOfEdges = 2 * numOfEntries + this.size;
+		this.edgeStarts = new int[this.size + 1];
+		this.edgeCols = new int[numOfEdges];
+		this.edgeCosts = new double[numOfEdges];
+		
+		// the rows of the source entities
+		int edge = 0;
+		for (int x = 0; x < this.numOfRows; x++) {
+			this.edgeStarts[x] = edge;
+			for (int entry = mappingMatrix.getRowStart(x); entry < mappingMatrix.getRowStart(x + 1); entry++) {
+				this.edgeCols[edge] = mappingMatrix.getEntryCol(entry);
+				this.edgeCosts[edge] = this.getUnlockedCost(entry);
+				edge++;
+			}
+			this.edgeCols[edge] = this.numOfCols + x;
+			this.edgeCosts[edge] = UNASSIGNED;
+			edge++;
+		}
+		// the dummy rows of the target entities, the entries are distributed by their column
+		int[] next = new int[this.numOfCols + 1];
+		for (int entry = 0; entry < numOfEntries; entry++) { next[mappingMatrix.getEntryCol(entry) + 1]++; }
+		for (int y = 0; y < this.numOfCols; y++) {
+			next[y + 1] += next[y];
+			this.edgeStarts[this.numOfRows + y] = edge + next[y] + y;
+			this.edgeCols[edge + next[y] + y] = y;
+			next[y] += edge + y + 1;
+		}
+		for (int x = 0; x < this.numOfRows; x++) {
+			for (int entry = mappingMatrix.getRowStart(x); entry < mappingMatrix.getRowStart(x + 1); entry++) {
+				this.edgeCols[next[mappingMatrix.getEntryCol(entry)]++] = this.numOfCols + x;
+			}
+		}
+		this.edgeStarts[this.size] = numOfEdges;
+		
+		this.shortestPathCosts = new double[this.size];
+		Arrays.fill(this.shortestPathCosts, Double.POSITIVE_INFINITY);
+		this.path = new int[this.size];
+		this.scannedCols = new boolean[this.size];
+		this.touchedCols = new int[this.size];
+		this.scannedRows = new int[this.size];
+		this.heapCosts = new double[numOfEdges];
+		this.heapCols = new int[numOfEdges];
+		this.appliedLocks.clear();
+		this.warm = false;
+		this.solved = false;
+	}
+	
+	/**
+	* The solution for the current locks is repaired by one augmenting path.
+	* 
+	* @see de.unima.alcomox.algorithms.AssignmentMethod#getMinimum(de.unima.alcomox.algorithms.Coord)
+	*/
+	public double getMinimum(Coord lock) {
+		if (!this.solved) { this.solve(); }
+		if (this.appliedLocks.contains(lock)) { return this.getMinimum(); }
+		int[] col4row = this.col4row.clone();
+		int[] row4col = this.row4col.clone();
+		double[] u = this.u.clone();
+		double[] v = this.v.clone();
+		this.setLocked(lock.getX(), lock.getY(), true);
+		this.solve();
+		double minimum = this.getMinimum();
+		int entry = this.mappingMatrix.getEntry(lock.getX(), lock.getY());
+		this.edgeCosts[this.getEdge(lock.getX(), entry)] = this.getUnlockedCost(entry);
+		this.col4row = col4row;
+		this.row4col = row4col;
+		this.u = u;
+		this.v = v;
+		return minimum;
+	}
+	
+	/**
+	* Solves the assignment problem. If a solution for other locks is available, only the rows
+	* released due to changed locks are assigned again. The result is available via the getters.
+	*/
+	public void solve() {
+		if (!this.warm) {
+			this.col4row = new int[this.size];
+			this.row4col = new int[this.size];
+			Arrays.fill(this.col4row, -1);
+			Arrays.fill(this.row4col, -1);
+			this.u = new double[this.size];
+			this.v = new double[this.size];
+			this.warm = true;
+		}
+		for (int row = 0; row < this.size; row++) {
+			if (this.col4row[row] == -1) { this.augment(row); }
+		}
+		this.solved = true;
+	}
+	
+	protected void setLocked(int x, int y, boolean locked) {
+		int entry = this.mappingMatrix.getEntry(x, y);
+		if (entry < 0) { return; }
+		int edge = this.getEdge(x, entry);
+		this.edgeCosts[edge] = locked ? Double.POSITIVE_INFINITY : this.getUnlockedCost(entry);
+		this.solved = false;
+		if (!this.warm) { return; }
+		if (this.col4row[x] == y || this.edgeCosts[edge] - this.u[x] - this.v[y] < 0.0) {
+			if (this.col4row[x] != -1) {
+				this.row4col[this.col4row[x]] = -1;
+				this.col4row[x] = -1;
+			}
+			// the released row gets the highest dual value that keeps all its edges feasible, the edge to the dummy column is never locked
+			double minReduced = Double.POSITIVE_INFINITY;
+			for (int e = this.edgeStarts[x]; e < this.edgeStarts[x + 1]; e++) {
+				minReduced = Math.min(minReduced, this.edgeCosts[e] - this.v[this.edgeCols[e]]);
+			}
+			this.u[x] = minReduced;
+		}
+	}
+	
+	protected int getChosenCol(int x) {
+		int y = this.col4row[x];
+		return (y < 0 || y >= this.numOfCols) ? -1 : y;
+	}
+	
+	protected double getDistance(int x, int y) {
+		return this.mappingMatrix.getDistance(x, y);
+	}
+	
+	
+	// ****************************************
+	// ********** PRIVATE PLAYGORUND **********
+	// ****************************************
+	
+	// adds a row to the assignment along a shortest augmenting path in the reduced costs 
+	private void augment(int curRow) {
+		double minVal = 0.0;
+		int row = curRow;
+		int sink = -1;
+		while (sink == -1) {
+			this.scannedRows[this.numOfScannedRows++] = row;
+			double rowDual = this.u[row];
+			for (int edge = this.edgeStarts[row]; edge < this.edgeStarts[row + 1]; edge++) {
+				int col = this.edgeCols[edge];
+				if (this.scannedCols[col] || this.edgeCosts[edge] == Double.POSITIVE_INFINITY) { continue; }
+				double r = minVal + this.edgeCosts[edge] - rowDual - this.v[col];
+				if (r < this.shortestPathCosts[col]) {
+					if (this.shortestPathCosts[col] == Double.POSITIVE_INFINITY) { this.touchedCols[this.numOfTouchedCols++] = col; }
+					this.path[col] = row;
+					this.shortestPathCosts[col] = r;
+					this.push(r, col);
+				}
+			}
+			// outdated heap elements of scanned columns are skipped, there is always a path to an unassigned column
+			int col;
+			do { col = this.pop(); } while (this.scannedCols[col]);
+			minVal = this.shortestPathCosts[col];
+			this.scannedCols[col] = true;
+			if (this.row4col[col] == -1) { sink = col; }
+			else { row = this.row4col[col]; }
+		}
+		
+		// update the dual variables
+		this.u[curRow] += minVal;
+		for (int k = 1; k < this.numOfScannedRows; k++) {
+			int i = this.scannedRows[k];
+			this.u[i] += minVal - this.shortestPathCosts[this.col4row[i]];
+		}
+		for (int k = 0; k < this.numOfTouchedCols; k++) {
+			int j = this.touchedCols[k];
+			if (this.scannedCols[j]) { this.v[j] -= minVal - this.shortestPathCosts[j]; }
+		}
+		
+		// flip the assignment along the path
+		int col = sink;
+		while (true) {
+			int i = this.path[col];
+			this.row4col[col] = i;
+			int previous = this.col4row[i];
+			this.col4row[i] = col;
+			col = previous;
+			if (i == curRow) { break; }
+		}
+		
+		// reset the state of Dijkstra's algorithm
+		for (int k = 0; k < this.numOfTouchedCols; k++) {
+			int j = this.touchedCols[k];
+			this.shortestPathCosts[j] = Double.POSITIVE_INFINITY;
+			this.scannedCols[j] = false;
+		}
+		this.numOfTouchedCols = 0;
+		this.numOfScannedRows = 0;
+		this.heapSize = 0;
+	}
+	
+	// among the columns with the lowest costs an unassigned one comes first
+	private boolean isLess(double cost1, int col1, double cost2, int col2) {
+		if (cost1 != cost2) { return cost1 < cost2; }
+		return this.row4col[col1] == -1 && this.row4col[col2] != -1;
+	}
+	
+	private void push(double cost, int col) {
+		int k = this.heapSize++;
+		while (k > 0) {
+			int parent = (k - 1) >>> 1;
+			if (!this.isLess(cost, col, this.heapCosts[parent], this.heapCols[parent])) { break; }
+			this.heapCosts[k] = this.heapCosts[parent];
+			this.heapCols[k] = this.heapCols[parent];
+			k = parent;
+		}
+		this.heapCosts[k] = cost;
+		this.heapCols[k] = col;
+	}
+	
+	private int pop() {
+		int top = this.heapCols[0];
+		double cost = this.heapCosts[--this.heapSize];
+		int col = this.heapCols[this.heapSize];
+		int k = 0;
+		while (true) {
+			int child = 2 * k + 1;
+			if (child >= this.heapSize) { break; }
+			if (child + 1 < this.heapSize && this.isLess(this.heapCosts[child + 1], this.heapCols[child + 1], this.heapCosts[child], this.heapCols[child])) { child++; }
+			if (!this.isLess(this.heapCosts[child], this.heapCols[child], cost, col)) { break; }
+			this.heapCosts[k] = this.heapCosts[child];
+			this.heapCols[k] = this.heapCols[child];
+			k = child;
+		}
+		this.heapCosts[k] = cost;
+		this.heapCols[k] = col;
+		return top;
+	}
+	
+	// the edge of an entry, the edges of a row are preceded by one dummy edge for each previous row
+	private int getEdge(int x, int entry) {
+		return entry + x;
+	}
+	
+	private double getUnlockedCost(int entry) {
+		double distance = this.mappingMatrix.getEntryDistance(entry);
+		return (distance >= UNASSIGNED) ? Double.POSITIVE_INFINITY : distance;
+	}
+	
+}
@@ -0,0 +1,105 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.experiments;
+
+import java.io.File;
+import java.util.Arrays;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.ConflictCandidateIndex;
+import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.ontology.IOntology;
+
+/**
+* Measures how many pairs of correspondences are pruned by the conflict candidate index on the
+* anatomy testdata. For each matcher alignment all pairs are checked once with and once without
+* the index and both numbers of conflicts are compared.
+* 
+* Usage: CandidateIndexBenchmark [alignmentsDir]
+*/
+public class CandidateIndexBenchmark {
+	
+	public static void main(String[] args) throws AlcomoException {
+		
+		String alignmentsDir = (args.length > 0) ? args[0] : "testdata/anatomy/alignments";
+		Settings.BLACKBOX_REASONER = Settings.BlackBoxReasoner.PELLET;
+		
+		String[] matchers = new File(alignmentsDir).list();
+		Arrays.sort(matchers);
+		System.out.println("matcher\tn\tpairs\tcandidates\tpruned\tconflicts\tfullMs\tindexMs");
+		for (String matcher : matchers) {
+			File alignment = new File(alignmentsDir + "/" + matcher + "/anatomy-track1.rdf");
+			if (!alignment.exists()) { continue; }
+			
+			IOntology sourceOnt = new IOntology("testdata/anatomy/mouse.owl");
+			IOntology targetOnt = new IOntology("testdata/anatomy/human.owl");
+			ExtractionProblem ep = new ExtractionProblem(
+				ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+				ExtractionProblem.METHOD_GREEDY,
+				ExtractionProblem.REASONING_EFFICIENT
+			);
+			ep.bindSourceOntology(sourceOnt);
+			ep.bindTargetOntology(targetOnt);
+			ep.bindMapping(new Mapping(alignment.getPath()));
+			ep.init();
+			Mapping mapping = ep.getReferingInputMapping();
+			EfficientReasoner reasoner = new EfficientReasoner(sourceOnt, targetOnt, ep);
+			
+			long start = System.currentTimeMillis();
+			int fullConflicts = 0;
+			for (int x = 0; x < mapping.size(); x++) {
+				for (int y = x + 1; y < mapping.size(); y++) {
+					if (reasoner.isConflictPair(mapping.get(x), mapping.get(y))) { fullConflicts++; }
+				}
+			}
+			long fullTime = System.currentTimeMillis() - start;
+			
+			start = System.currentTimeMillis();
+			ConflictCandidateIndex index = reasoner.getCandidateIndex(mapping);
+			int indexConflicts = 0;
+			for (int x = 0; x < mapping.size(); x++) {
+				for (int y : index.getCandidates(x)) {
+					if (y > x && reasoner.isConflictPair(mapping.get(x), mapping.get(y))) { indexConflicts++; }
+				}
+			}
+			long indexTime = System.currentTimeMillis() - start;
+			
+			if (fullConflicts != indexConflicts) {
+				System.err.println("candidate index missed conflicts for " + matcher + ": " + fullConflicts + " vs. " + indexConflicts);
+			}
+			long pairs = (long)mapping.size() * (mapping.size() - 1) / 2;
+			long candidates = index.getNumOfCandidatePairs();
+			double pruned = (pairs == 0) ? 0.0 : 100.0 * (pairs - candidates) / pairs;
+			System.out.println(
+				matcher + "\t" + mapping.size() + "\t" + pairs + "\t" + candidates + "\t" +
+				String.format("%.2f%%", pruned) + "\t" + indexConflicts + "\t" + fullTime + "\t" + indexTime
+			);
+		}
+	}
+
+}
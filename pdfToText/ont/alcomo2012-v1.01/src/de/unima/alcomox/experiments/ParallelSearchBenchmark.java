@@ -0,0 +1,95 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.experiments;
+
+import java.io.File;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.algorithms.AStarSearch;
+import de.unima.alcomox.algorithms.AlcomoExtraction;
+import de.unima.alcomox.algorithms.ParallelAStarSearch;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.IOntology;
+
+/**
+* Measures how the parallel best first search scales with the number of threads on one of the
+* anatomy alignments. The ontologies are classified once, afterwards the sequential A* search
+* and the parallel search with 1, 2, 4, ... threads (up to the number of available processors)
+* are run on the same input. Reported are runtime, speedup and whether the trust of the result
+* equals the trust found by the sequential search.
+* 
+* Usage: ParallelSearchBenchmark [alignment] [maxThreads]
+*/
+public class ParallelSearchBenchmark {
+	
+	public static void main(String[] args) throws AlcomoException {
+		
+		String alignment = (args.length > 0) ? args[0] : "testdata/anatomy/alignments/MaasMtch/anatomy-track1.rdf";
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		Settings.BLACKBOX_REASONER = Settings.BlackBoxReasoner.PELLET;
+		
+		IOntology sourceOnt = new IOntology("testdata/anatomy/mouse.owl");
+		IOntology targetOnt = new IOntology("testdata/anatomy/human.owl");
+		ExtractionProblem ep = new ExtractionProblem(
+			ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+			ExtractionProblem.METHOD_OPTIMAL_PARALLEL,
+			ExtractionProblem.REASONING_EFFICIENT
+		);
+		ep.bindSourceOntology(sourceOnt);
+		ep.bindTargetOntology(targetOnt);
+		ep.bindMapping(new Mapping(new File(alignment).getPath()));
+		ep.init();
+		Mapping mapping = ep.getReferingInputMapping();
+		
+		long start = System.currentTimeMillis();
+		AStarSearch sequential = new AStarSearch(ep);
+		double sequentialTrust = run(sequential, sourceOnt, targetOnt, mapping);
+		long sequentialTime = System.currentTimeMillis() - start;
+		System.out.println("threads\tms\tspeedup\ttrust\tsameTrust");
+		System.out.println("A*\t" + sequentialTime + "\t1.00\t" + String.format("%.4f", sequentialTrust) + "\ttrue");
+		
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			ep.setParallelism(threads);
+			start = System.currentTimeMillis();
+			double trust = run(new ParallelAStarSearch(ep), sourceOnt, targetOnt, mapping);
+			long time = System.currentTimeMillis() - start;
+			System.out.println(
+				threads + "\t" + time + "\t" + String.format("%.2f", (double)sequentialTime / Math.max(1, time)) + "\t" +
+				String.format("%.4f", trust) + "\t" + (Math.abs(trust - sequentialTrust) < 0.00001)
+			);
+		}
+	}
+	
+	private static double run(AlcomoExtraction algorithm, IOntology sourceOnt, IOntology targetOnt, Mapping mapping) throws AlcomoException {
+		algorithm.setSourceOntology(sourceOnt);
+		algorithm.setTargetOntology(targetOnt);
+		algorithm.setMapping(mapping);
+		algorithm.run();
+		return algorithm.getActiveMapping().getConfidenceTotal();
+	}
+
+}
@@ -26,6 +26,20 @@ package de.unima.alcomox.mapping;
 
 
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unima.alcomox.exceptions.PCFException;
 
 
 
@@ -75,31 +89,93 @@ public class Characteristic {
 	* @throws ALCOMOException Thrown if the namespaces of the mappings differ.
 	*/
 	public Characteristic(Mapping mapping, Mapping reference) {
-		// Mapping correct = reference.getIntersection(mapping); 
-		Mapping correct = new Mapping();
-		if (strictEvaluation) {
-			for (Correspondence r : reference) {
-				for (Correspondence m : mapping) {
-					if (m.equals(r)) {
-						correct.push(r);
+		// each pair of a reference and a matcher correspondence with the same key counts as correct
+		boolean strict = strictEvaluation;
+		HashMap<String, Integer> referenceIndex = indexReference(reference, strict);
+		int correct = 0;
+		for (Correspondence m : mapping) {
+			Integer numOfMatches = referenceIndex.get(getKey(m, strict));
+			if (numOfMatches != null) { correct += numOfMatches; }
+		}
+		this.numOfRulesGold = reference.size();
+		this.numOfRulesMatcher = mapping.size();
+		this.numOfRulesCorrect = correct;
+	}
+	
+	/**
+	* Computes the characteristics of a mapping for all thresholds in one pass. The mapping is sorted
+	* by confidence once, and for each distinct confidence value the characteristic of those
+	* correspondences with at least this confidence is computed. Note that {@link Mapping#applyThreshhold(double)}
+	* keeps only correspondences with a confidence above the threshold, thus, the characteristic at
+	* threshold c equals the one of a mapping thresholded by any value between the next lower confidence and c. 
+	* 
+	* @param mapping The mapping under discussion, it is not modified.
+	* @param reference The reference mapping.
+	* @return The characteristics ordered by descending threshold.
+	*/
+	public static CharacteristicCurve computeCurve(Mapping mapping, Mapping reference) {
+		boolean strict = strictEvaluation;
+		return computeCurve(mapping, reference.size(), indexReference(reference, strict), strict);
+	}
+	
+	/**
+	* Computes the characteristics of many mappings for all thresholds, see {@link #computeCurve(Mapping, Mapping)}.
+	* The reference is indexed once and shared by a pool of worker threads that evaluate the mappings concurrently.
+	* 
+	* @param mappings The mappings under discussion, they are not modified.
+	* @param reference The reference mapping.
+	* @param parallelism The number of worker threads.
+	* @return The curves in the order of the mappings, null for each mapping whose evaluation has not
+	* finished because the calling thread has been interrupted.
+	* @throws PCFException Thrown if the number of threads is less than 1.
+	*/
+	public static ArrayList<CharacteristicCurve> computeCurves(List<Mapping> mappings, Mapping reference, int parallelism) throws PCFException {
+		if (parallelism < 1) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"parallelism has to be at least 1, but is " + parallelism
+			);
+		}
+		final boolean strict = strictEvaluation;
+		final int numOfRulesGold = reference.size();
+		// the index is only read by the workers
+		final HashMap<String, Integer> referenceIndex = indexReference(reference, strict);
+		CharacteristicCurve[] curves = new CharacteristicCurve[mappings.size()];
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try {
+			CompletionService<CharacteristicCurve> completion = new ExecutorCompletionService<CharacteristicCurve>(pool);
+			HashMap<Future<CharacteristicCurve>, Integer> mappingIds = new HashMap<Future<CharacteristicCurve>, Integer>();
+			for (int i = 0; i < mappings.size(); i++) {
+				final Mapping mapping = mappings.get(i);
+				Future<CharacteristicCurve> future = completion.submit(new Callable<CharacteristicCurve>() {
+					public CharacteristicCurve call() {
+						return computeCurve(mapping, numOfRulesGold, referenceIndex, strict);
 					}
+				});
+				mappingIds.put(future, i);
+			}
+			pool.shutdown();
+			for (int i = 0; i < mappings.size(); i++) {
+				try {
+					Future<CharacteristicCurve> future = completion.take();
+					curves[mappingIds.get(future)] = future.get();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
 				}
 			}
 		}
-		else {
-			for (Correspondence r : reference) {
-				for (Correspondence m : mapping) {
-					if (m.getSourceEntityUri().equals(r.getSourceEntityUri()) && m.getTargetEntityUri().equals(r.getTargetEntityUri())) {
-						correct.push(r);
-					}
-				}
-			}			
+		finally {
+			pool.shutdownNow();
 		}
-		
-		this.numOfRulesGold = reference.size();
-		this.numOfRulesMatcher = mapping.size();
-		this.numOfRulesCorrect = correct.size();
-	}	
+		ArrayList<CharacteristicCurve> curveList = new ArrayList<CharacteristicCurve>(curves.length);
+		for (CharacteristicCurve curve : curves) { curveList.add(curve); }
+		return curveList;
+	}
 	
 	/**
 	* Joins this mapping with another mapping by summing up relevant characteristics
@@ -208,6 +284,49 @@ public class Characteristic {
 	public static boolean strictEvaluationActive() {
 		return strictEvaluation;
 	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private static CharacteristicCurve computeCurve(Mapping mapping, int numOfRulesGold, HashMap<String, Integer> referenceIndex, boolean strict) {
+		ArrayList<Correspondence> sorted = new ArrayList<Correspondence>(mapping.getCorrespondences());
+		Collections.sort(sorted, new Comparator<Correspondence>() {
+			public int compare(Correspondence c1, Correspondence c2) {
+				return Double.compare(c2.getConfidence(), c1.getConfidence());
+			}
+		});
+		ArrayList<Double> thresholds = new ArrayList<Double>();
+		ArrayList<Characteristic> characteristics = new ArrayList<Characteristic>();
+		int correct = 0;
+		for (int i = 0; i < sorted.size(); i++) {
+			Correspondence m = sorted.get(i);
+			Integer numOfMatches = referenceIndex.get(getKey(m, strict));
+			if (numOfMatches != null) { correct += numOfMatches; }
+			// a point of the curve is reached after the last correspondence with the same confidence
+			if (i == sorted.size() - 1 || sorted.get(i + 1).getConfidence() != m.getConfidence()) {
+				thresholds.add(m.getConfidence());
+				characteristics.add(new Characteristic(numOfRulesGold, i + 1, correct));
+			}
+		}
+		return new CharacteristicCurve(thresholds, characteristics);
+	}
+	
+	// counts the correspondences of the reference per key
+	private static HashMap<String, Integer> indexReference(Mapping reference, boolean strict) {
+		HashMap<String, Integer> referenceIndex = new HashMap<String, Integer>(2 * reference.size());
+		for (Correspondence r : reference) {
+			String key = getKey(r, strict);
+			Integer numOfMatches = referenceIndex.get(key);
+			referenceIndex.put(key, (numOfMatches == null) ? 1 : numOfMatches + 1);
+		}
+		return referenceIndex;
+	}
+	
+	// two correspondences are counted as the same if they have the same key, strict evaluation is based on equals
+	private static String getKey(Correspondence c, boolean strict) {
+		if (strict) { return c.getSourceEntityUri() + c.getRelation() + c.getTargetEntityUri(); }
+		// a blank does not occur in a uri
+		return c.getSourceEntityUri() + " " + c.getTargetEntityUri();
+	}
 
 
 
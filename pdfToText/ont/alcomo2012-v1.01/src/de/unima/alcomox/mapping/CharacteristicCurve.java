@@ -0,0 +1,103 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.util.ArrayList;
+
+/**
+* The precision, recall and f-measure of a mapping for each threshold on its confidence values,
+* computed by {@link Characteristic#computeCurve(Mapping, Mapping)}. The points of the curve are ordered
+* by descending threshold, the characteristic at threshold c refers to all correspondences with a
+* confidence of at least c.
+*/
+public class CharacteristicCurve {
+	
+	private double[] thresholds;
+	private Characteristic[] characteristics;
+	
+	/**
+	* Constructs a curve.
+	* 
+	* @param thresholds The thresholds in descending order.
+	* @param characteristics The characteristic for each threshold.
+	*/
+	CharacteristicCurve(ArrayList<Double> thresholds, ArrayList<Characteristic> characteristics) {
+		this.thresholds = new double[thresholds.size()];
+		for (int i = 0; i < this.thresholds.length; i++) { this.thresholds[i] = thresholds.get(i); }
+		this.characteristics = characteristics.toArray(new Characteristic[characteristics.size()]);
+	}
+	
+	/**
+	* @return The number of points of the curve, i.e., the number of distinct confidence values. 
+	*/
+	public int size() {
+		return this.thresholds.length;
+	}
+	
+	/**
+	* @param i The index of a point.
+	* @return The threshold of the i-th point.
+	*/
+	public double getThreshold(int i) {
+		return this.thresholds[i];
+	}
+	
+	/**
+	* @param i The index of a point.
+	* @return The characteristic of the i-th point.
+	*/
+	public Characteristic getCharacteristic(int i) {
+		return this.characteristics[i];
+	}
+	
+	/**
+	* Returns the point with the highest f-measure. If several points have the same f-measure
+	* the one with the highest threshold is chosen.
+	* 
+	* @return The index of the best point, -1 if the curve is empty.
+	*/
+	public int getBestIndex() {
+		int best = -1;
+		for (int i = 0; i < this.characteristics.length; i++) {
+			if (best == -1 || this.characteristics[i].getFMeasure() > this.characteristics[best].getFMeasure()) { best = i; }
+		}
+		return best;
+	}
+	
+	/**
+	* Returns a string representation with one line per point, each line shows threshold, 
+	* precision, recall and f-measure separated by tabs.
+	* 
+	* @return A string representation.
+	*/
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < this.thresholds.length; i++) {
+			sb.append(this.thresholds[i] + "\t" + this.characteristics[i].toShortDesc() + "\n");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,572 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.util.Arrays;
+
+import de.unima.alcomox.exceptions.CorrespondenceException;
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A columnar mapping stores the correspondences of a mapping as parallel arrays of primitives,
+* i.e., the ids of source and target entities, the types of the semantic relations and the
+* confidences. Entity ids are taken from an entity dictionary, set operations are thus only
+* supported between columnar mappings that share the same dictionary.
+* 
+* Set operations are computed by merging the rows sorted by source, relation and target with counting
+* sorts over the entity ids, sorting by confidence works on row indices. In both cases no correspondence objects are created. A columnar
+* mapping can be converted to and from a mapping, which allows to use it only where it pays off.
+*/
+public class ColumnarMapping {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int INSERTION_SORT_THRESHOLD = 12;
+	
+	// one semantic relation object for each type, indexed by type 
+	private static final SemanticRelation[] RELATIONS = new SemanticRelation[SemanticRelation.DIS + 1];
+	static {
+		for (int type = SemanticRelation.EQUIV; type <= SemanticRelation.DIS; type++) {
+			try { RELATIONS[type] = new SemanticRelation(type); }
+			catch (CorrespondenceException e) { /* will never occur */ }
+		}
+	}
+	
+	private EntityDictionary dictionary;
+	
+	private int size;
+	private int[] sourceIds;
+	private int[] targetIds;
+	private byte[] relations;
+	private double[] confidences;
+	
+	// the rows sorted by key where only the first row of several rows with the same key is kept, null if outdated
+	private int[] keyOrder = null;
+	
+	/**
+	* Constructs an empty columnar mapping.
+	* 
+	* @param dictionary The dictionary used to encode entity uris.
+	*/
+	public ColumnarMapping(EntityDictionary dictionary) {
+		this(dictionary, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	* Constructs an empty columnar mapping.
+	* 
+	* @param dictionary The dictionary used to encode entity uris.
+	* @param capacity The number of correspondences that can be added without growing the columns.
+	*/
+	public ColumnarMapping(EntityDictionary dictionary, int capacity) {
+		this.dictionary = dictionary;
+		this.size = 0;
+		capacity = Math.max(capacity, 1);
+		this.sourceIds = new int[capacity];
+		this.targetIds = new int[capacity];
+		this.relations = new byte[capacity];
+		this.confidences = new double[capacity];
+	}
+	
+	/**
+	* Constructs a columnar mapping that contains the correspondences of a mapping in the same order.
+	* 
+	* @param mapping The mapping.
+	* @param dictionary The dictionary used to encode entity uris.
+	*/
+	public ColumnarMapping(Mapping mapping, EntityDictionary dictionary) {
+		this(dictionary, mapping.size());
+		for (Correspondence c : mapping) { this.add(c); }
+	}
+	
+	/**
+	* Reads a columnar mapping from a file. Mapping files in rdf/xml and binary format are streamed,
+	* i.e., the correspondences are never stored as objects. 
+	* 
+	* @param filepath The path of the mapping file.
+	* @param format The format of the mapping file.
+	* @param dictionary The dictionary used to encode entity uris.
+	* @return The columnar mapping.
+	* @throws MappingException Thrown if the file could not be read or has an invalid format.
+	*/
+	public static ColumnarMapping read(String filepath, int format, EntityDictionary dictionary) throws MappingException {
+		if (format == Mapping.FORMAT_TXT) {
+			return new ColumnarMapping(new Mapping(filepath, format), dictionary);
+		}
+		ColumnarMapping columnar = new ColumnarMapping(dictionary);
+		CorrespondenceReader reader = MappingConverter.openReader(filepath, format);
+		try {
+			while (reader.hasNext()) { columnar.add(reader.next()); }
+		}
+		finally { reader.close(); }
+		return columnar;
+	}
+	
+	/**
+	* Writes this columnar mapping to a file in rdf/xml or binary format.
+	* 
+	* @param filepath The path of the mapping file.
+	* @param format The format of the mapping file.
+	* @throws MappingException Thrown if the file could not be written.
+	*/
+	public void write(String filepath, int format) throws MappingException {
+		if (format == Mapping.FORMAT_TXT) {
+			this.toMapping().write(filepath, format);
+			return;
+		}
+		CorrespondenceWriter writer = MappingConverter.openWriter(filepath, format);
+		try {
+			for (int row = 0; row < this.size; row++) { writer.write(this.get(row)); }
+		}
+		finally { writer.close(); }
+	}
+	
+	/**
+	* Adds a correspondence at the end of this columnar mapping.
+	* 
+	* @param sourceId The id of the source entity.
+	* @param targetId The id of the target entity.
+	* @param relation The type of the semantic relation.
+	* @param confidence The confidence.
+	*/
+	public void add(int sourceId, int targetId, int relation, double confidence) {
+		if (this.size == this.sourceIds.length) { this.grow(); }
+		this.sourceIds[this.size] = sourceId;
+		this.targetIds[this.size] = targetId;
+		this.relations[this.size] = (byte)relation;
+		this.confidences[this.size] = confidence;
+		this.size++;
+		this.keyOrder = null;
+	}
+	
+	/**
+	* Adds a correspondence at the end of this columnar mapping.
+	* 
+	* @param c The correspondence.
+	*/
+	public void add(Correspondence c) {
+		this.add(
+			this.dictionary.intern(c.getSourceEntityUri()),
+			this.dictionary.intern(c.getTargetEntityUri()),
+			c.getRelation().getType(),
+			c.getConfidence()
+		);
+	}
+	
+	/**
+	* Returns the correspondence stored in a row as a new correspondence object.
+	* 
+	* @param row The row.
+	* @return The correspondence.
+	*/
+	public Correspondence get(int row) {
+		try {
+			return new Correspondence(
+				this.getSourceEntityUri(row),
+				this.getTargetEntityUri(row),
+				RELATIONS[this.relations[row]],
+				this.confidences[row]
+			);
+		}
+		catch (CorrespondenceException e) {
+			// will never occur, uris are not checked
+			return null;
+		}
+	}
+	
+	/**
+	* Converts this columnar mapping into a mapping with the correspondences in the same order.
+	* 
+	* @return The mapping.
+	*/
+	public Mapping toMapping() {
+		Mapping mapping = new Mapping();
+		for (int row = 0; row < this.size; row++) { mapping.push(this.get(row)); }
+		return mapping;
+	}
+	
+	// --- ACCESSING THE COLUMNS --- 
+	
+	public EntityDictionary getDictionary() {
+		return this.dictionary;
+	}
+	
+	public int size() {
+		return this.size;
+	}
+	
+	public int getSourceId(int row) {
+		return this.sourceIds[row];
+	}
+	
+	public int getTargetId(int row) {
+		return this.targetIds[row];
+	}
+	
+	public String getSourceEntityUri(int row) {
+		return this.dictionary.getUri(this.sourceIds[row]);
+	}
+	
+	public String getTargetEntityUri(int row) {
+		return this.dictionary.getUri(this.targetIds[row]);
+	}
+	
+	/**
+	* @param row The row.
+	* @return The type of the semantic relation, see {@link SemanticRelation}.
+	*/
+	public int getRelation(int row) {
+		return this.relations[row];
+	}
+	
+	public double getConfidence(int row) {
+		return this.confidences[row];
+	}
+	
+	public void setConfidence(int row, double confidence) {
+		this.confidences[row] = confidence;
+	}
+	
+	public double getConfidenceTotal() {
+		double total = 0.0;
+		for (int row = 0; row < this.size; row++) { total += this.confidences[row]; }
+		return total;
+	}
+	
+	// --- SET OPERATIONS --- 
+	
+	/**
+	* Returns the set difference between this columnar mapping and that. The order of this
+	* columnar mapping is preserved.
+	* 
+	* @param that The columnar mapping to be compared to this, it has to share the dictionary.
+	* @return The set difference this without that.
+	*/
+	public ColumnarMapping getDifference(ColumnarMapping that) {
+		return this.getRows(this.getDifferenceRows(that));
+	}
+	
+	/**
+	* Returns the intersection between this columnar mapping and that. The order and the
+	* confidences of this columnar mapping are preserved.
+	* 
+	* @param that The columnar mapping to be intersected with this, it has to share the dictionary.
+	* @return The intersection between this and that.
+	*/
+	public ColumnarMapping getIntersection(ColumnarMapping that) {
+		return this.getRows(this.getIntersectionRows(that));
+	}
+	
+	/**
+	* Returns the union of this columnar mapping and that. The confidences of correspondences
+	* contained in both this and that are summed up. The result contains the correspondences of
+	* this followed by those that are only contained in that.
+	* 
+	* @param that The columnar mapping to be unioned with this, it has to share the dictionary.
+	* @return The union of this and that.
+	*/
+	public ColumnarMapping getUnion(ColumnarMapping that) {
+		this.checkDictionary(that);
+		int[] thisOrder = this.getKeyOrder();
+		int[] thatOrder = that.getKeyOrder();
+		// the row of that with the same key for each row of this, or -1
+		int[] partners = new int[this.size];
+		Arrays.fill(partners, -1);
+		boolean[] thatShared = new boolean[that.size];
+		int i = 0;
+		int j = 0;
+		while (i < thisOrder.length && j < thatOrder.length) {
+			int comparison = this.compareKeys(thisOrder[i], that, thatOrder[j]);
+			if (comparison < 0) { i++; }
+			else if (comparison > 0) { j++; }
+			else {
+				partners[thisOrder[i]] = thatOrder[j];
+				thatShared[thatOrder[j]] = true;
+				i++;
+				j++;
+			}
+		}
+		ColumnarMapping union = new ColumnarMapping(this.dictionary, thisOrder.length + thatOrder.length);
+		for (int row : this.getRowsInOrder(thisOrder)) {
+			double confidence = this.confidences[row];
+			if (partners[row] >= 0) { confidence += that.confidences[partners[row]]; }
+			union.add(this.sourceIds[row], this.targetIds[row], this.relations[row], confidence);
+		}
+		for (int row : that.getRowsInOrder(thatOrder)) {
+			if (!thatShared[row]) {
+				union.add(that.sourceIds[row], that.targetIds[row], that.relations[row], that.confidences[row]);
+			}
+		}
+		return union;
+	}
+	
+	/**
+	* Returns the rows of this columnar mapping whose correspondences are not contained in that.
+	* If a correspondence is stored in several rows, only the first one is returned.
+	* 
+	* @param that The columnar mapping to be compared to this, it has to share the dictionary.
+	* @return The rows in ascending order.
+	*/
+	public int[] getDifferenceRows(ColumnarMapping that) {
+		return this.getMergedRows(that, false);
+	}
+	
+	/**
+	* Returns the rows of this columnar mapping whose correspondences are contained in that.
+	* If a correspondence is stored in several rows, only the first one is returned.
+	* 
+	* @param that The columnar mapping to be intersected with this, it has to share the dictionary.
+	* @return The rows in ascending order.
+	*/
+	public int[] getIntersectionRows(ColumnarMapping that) {
+		return this.getMergedRows(that, true);
+	}
+	
+	// --- CHANGING THE COLUMNAR MAPPING --- 
+	
+	/**
+	* Sorts the rows descending by confidence. Ties are broken exactly as in {@link Mapping#sortDescending()},
+	* i.e., descending by the uri of the source entity and then by the uri of the target entity.
+	*/
+	public void sortDescending() {
+		final int[] ranks = this.dictionary.getRanks();
+		int[] rows = this.getIdentity();
+		sortRows(rows, 0, rows.length, new RowComparator() {
+			int compare(int r1, int r2) {
+				double c1 = confidences[r1];
+				double c2 = confidences[r2];
+				if (c1 > c2) { return -1; }
+				if (c1 < c2) { return 1; }
+				if (sourceIds[r1] != sourceIds[r2]) { return (ranks[sourceIds[r1]] > ranks[sourceIds[r2]]) ? -1 : 1; }
+				if (targetIds[r1] != targetIds[r2]) { return (ranks[targetIds[r1]] > ranks[targetIds[r2]]) ? -1 : 1; }
+				// a stable sort followed by reversing the list puts the later row first
+				return (r1 > r2) ? -1 : ((r1 < r2) ? 1 : 0);
+			}
+		});
+		this.permute(rows);
+	}
+	
+	/**
+	* Removes every row with a confidence not above a threshold.
+	* 
+	* @param threshold The threshold.
+	* @return The number of rows that have been removed.
+	*/
+	public int applyThreshold(double threshold) {
+		int kept = 0;
+		for (int row = 0; row < this.size; row++) {
+			if (this.confidences[row] > threshold) {
+				this.sourceIds[kept] = this.sourceIds[row];
+				this.targetIds[kept] = this.targetIds[row];
+				this.relations[kept] = this.relations[row];
+				this.confidences[kept] = this.confidences[row];
+				kept++;
+			}
+		}
+		int removed = this.size - kept;
+		this.size = kept;
+		if (removed > 0) { this.keyOrder = null; }
+		return removed;
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private static abstract class RowComparator {
+		abstract int compare(int r1, int r2);
+	}
+	
+	private int[] getMergedRows(ColumnarMapping that, boolean shared) {
+		this.checkDictionary(that);
+		int[] thisOrder = this.getKeyOrder();
+		int[] thatOrder = that.getKeyOrder();
+		boolean[] selected = new boolean[this.size];
+		int counter = 0;
+		int i = 0;
+		int j = 0;
+		while (i < thisOrder.length) {
+			int comparison = (j < thatOrder.length) ? this.compareKeys(thisOrder[i], that, thatOrder[j]) : -1;
+			if (comparison > 0) {
+				j++;
+				continue;
+			}
+			if ((comparison == 0) == shared) {
+				selected[thisOrder[i]] = true;
+				counter++;
+			}
+			i++;
+			if (comparison == 0) { j++; }
+		}
+		int[] rows = new int[counter];
+		counter = 0;
+		for (int row = 0; row < this.size; row++) {
+			if (selected[row]) { rows[counter++] = row; }
+		}
+		return rows;
+	}
+	
+	private int compareKeys(int thisRow, ColumnarMapping that, int thatRow) {
+		if (this.sourceIds[thisRow] != that.sourceIds[thatRow]) { return (this.sourceIds[thisRow] < that.sourceIds[thatRow]) ? -1 : 1; }
+		if (this.relations[thisRow] != that.relations[thatRow]) { return (this.relations[thisRow] < that.relations[thatRow]) ? -1 : 1; }
+		if (this.targetIds[thisRow] != that.targetIds[thatRow]) { return (this.targetIds[thisRow] < that.targetIds[thatRow]) ? -1 : 1; }
+		return 0;
+	}
+	
+	private int[] getKeyOrder() {
+		if (this.keyOrder == null) {
+			// stable counting sorts by target, relation and source, rows with the same key thus stay in ascending order
+			int numOfIds = this.dictionary.size();
+			int[] rows = this.getIdentity();
+			rows = this.countingSort(rows, this.targetIds, numOfIds);
+			rows = this.countingSort(rows, this.relations, RELATIONS.length);
+			rows = this.countingSort(rows, this.sourceIds, numOfIds);
+			// keep the first row of several rows with the same key
+			int distinct = 0;
+			for (int i = 0; i < rows.length; i++) {
+				if (distinct == 0 || this.compareKeys(rows[distinct - 1], this, rows[i]) != 0) {
+					rows[distinct++] = rows[i];
+				}
+			}
+			this.keyOrder = (distinct == rows.length) ? rows : Arrays.copyOf(rows, distinct);
+		}
+		return this.keyOrder;
+	}
+	
+	private int[] countingSort(int[] rows, int[] column, int numOfValues) {
+		int[] offsets = new int[numOfValues + 1];
+		for (int row : rows) { offsets[column[row] + 1]++; }
+		for (int v = 0; v < numOfValues; v++) { offsets[v + 1] += offsets[v]; }
+		int[] sorted = new int[rows.length];
+		for (int row : rows) { sorted[offsets[column[row]]++] = row; }
+		return sorted;
+	}
+	
+	private int[] countingSort(int[] rows, byte[] column, int numOfValues) {
+		int[] offsets = new int[numOfValues + 1];
+		for (int row : rows) { offsets[column[row] + 1]++; }
+		for (int v = 0; v < numOfValues; v++) { offsets[v + 1] += offsets[v]; }
+		int[] sorted = new int[rows.length];
+		for (int row : rows) { sorted[offsets[column[row]]++] = row; }
+		return sorted;
+	}
+	
+	private int[] getRowsInOrder(int[] order) {
+		int[] rows = order.clone();
+		Arrays.sort(rows);
+		return rows;
+	}
+	
+	private ColumnarMapping getRows(int[] rows) {
+		ColumnarMapping columnar = new ColumnarMapping(this.dictionary, rows.length);
+		for (int row : rows) {
+			columnar.add(this.sourceIds[row], this.targetIds[row], this.relations[row], this.confidences[row]);
+		}
+		return columnar;
+	}
+	
+	private int[] getIdentity() {
+		int[] rows = new int[this.size];
+		for (int row = 0; row < this.size; row++) { rows[row] = row; }
+		return rows;
+	}
+	
+	private void permute(int[] rows) {
+		int[] sourceIds = new int[this.sourceIds.length];
+		int[] targetIds = new int[this.targetIds.length];
+		byte[] relations = new byte[this.relations.length];
+		double[] confidences = new double[this.confidences.length];
+		for (int i = 0; i < rows.length; i++) {
+			sourceIds[i] = this.sourceIds[rows[i]];
+			targetIds[i] = this.targetIds[rows[i]];
+			relations[i] = this.relations[rows[i]];
+			confidences[i] = this.confidences[rows[i]];
+		}
+		this.sourceIds = sourceIds;
+		this.targetIds = targetIds;
+		this.relations = relations;
+		this.confidences = confidences;
+		this.keyOrder = null;
+	}
+	
+	private void grow() {
+		int capacity = this.sourceIds.length * 2;
+		this.sourceIds = Arrays.copyOf(this.sourceIds, capacity);
+		this.targetIds = Arrays.copyOf(this.targetIds, capacity);
+		this.relations = Arrays.copyOf(this.relations, capacity);
+		this.confidences = Arrays.copyOf(this.confidences, capacity);
+	}
+	
+	private void checkDictionary(ColumnarMapping that) {
+		if (this.dictionary != that.dictionary) {
+			throw new IllegalArgumentException("set operations require columnar mappings that share the same entity dictionary");
+		}
+	}
+	
+	// quicksort with median of three pivot, falls back to insertion sort for short ranges
+	private static void sortRows(int[] rows, int from, int to, RowComparator comparator) {
+		while (to - from > INSERTION_SORT_THRESHOLD) {
+			int a = rows[from];
+			int b = rows[(from + to) >>> 1];
+			int c = rows[to - 1];
+			int pivot;
+			if (comparator.compare(a, b) < 0) {
+				pivot = (comparator.compare(b, c) < 0) ? b : ((comparator.compare(a, c) < 0) ? c : a);
+			}
+			else {
+				pivot = (comparator.compare(a, c) < 0) ? a : ((comparator.compare(b, c) < 0) ? c : b);
+			}
+			int i = from;
+			int j = to - 1;
+			while (i <= j) {
+				while (comparator.compare(rows[i], pivot) < 0) { i++; }
+				while (comparator.compare(rows[j], pivot) > 0) { j--; }
+				if (i <= j) {
+					int swap = rows[i];
+					rows[i] = rows[j];
+					rows[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			// recursion on the smaller part keeps the stack short
+			if (j + 1 - from < to - i) {
+				sortRows(rows, from, j + 1, comparator);
+				from = i;
+			}
+			else {
+				sortRows(rows, i, to, comparator);
+				to = j + 1;
+			}
+		}
+		for (int i = from + 1; i < to; i++) {
+			int row = rows[i];
+			int j = i - 1;
+			while (j >= from && comparator.compare(rows[j], row) > 0) {
+				rows[j + 1] = rows[j];
+				j--;
+			}
+			rows[j + 1] = row;
+		}
+	}
+
+}
@@ -26,6 +26,7 @@ package de.unima.alcomox.mapping;
 
 
 import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.unima.alcomox.exceptions.CorrespondenceException;
 import de.unima.alcomox.ontology.Entity;
@@ -40,7 +41,7 @@ import de.unima.alcomox.ontology.Entity;
 */
 public class Correspondence implements Comparable<Correspondence>  {
 	
-	private static int idCounter = 0;
+	private static AtomicInteger idCounter = new AtomicInteger(0);
 	
 	private int id = 0;
 	private String sourceEntityUri;
@@ -100,7 +101,7 @@ public class Correspondence implements Comparable<Correspondence>  {
 	}
 	
 	public int getId() {
-		if (this.id == 0) { this.id = idCounter++; }
+		if (this.id == 0) { this.id = idCounter.getAndIncrement(); }
 		return this.id;
 	}
 
@@ -0,0 +1,46 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.util.Iterator;
+
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A correspondence reader reads the correspondences of a mapping file one by one, without keeping
+* the whole mapping in memory. Since an iterator cannot throw checked exceptions, a problem that
+* occurs while reading ends the iteration and is thrown by {@link #close()}. Thus, a reader has to be
+* closed in any case, and the correspondences read are complete only if closing does not throw an exception.
+*/
+public interface CorrespondenceReader extends Iterator<Correspondence> {
+	
+	/**
+	* Closes the underlying file.
+	* 
+	* @throws MappingException Thrown if the file could not be read or has an invalid format.
+	*/
+	public void close() throws MappingException;
+
+}
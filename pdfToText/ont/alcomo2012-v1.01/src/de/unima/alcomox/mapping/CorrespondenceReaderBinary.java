@@ -0,0 +1,136 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import de.unima.alcomox.exceptions.CorrespondenceException;
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A streaming reader for the compact binary alignment format written by the {@link CorrespondenceWriterBinary}.
+*/
+public class CorrespondenceReaderBinary implements CorrespondenceReader {
+	
+	private String filepath;
+	private DataInputStream in;
+	private ArrayList<String> dictionary;
+	
+	private Correspondence next = null;
+	private boolean finished = false;
+	private MappingException exception = null;
+	
+	/**
+	* Opens a binary mapping file and reads the first correspondence.
+	* 
+	* @param filepath The path of the mapping file.
+	* @throws MappingException Thrown if the file cannot be opened or is not a binary mapping file.
+	*/
+	public CorrespondenceReaderBinary(String filepath) throws MappingException {
+		this.filepath = filepath;
+		this.dictionary = new ArrayList<String>();
+		try {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(filepath), 65536));
+			if (this.in.readInt() != CorrespondenceWriterBinary.MAGIC || this.in.readInt() != CorrespondenceWriterBinary.VERSION) {
+				this.in.close();
+				throw new MappingException(MappingException.INVALID_FORMAT, filepath + " is not a binary mapping file");
+			}
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "caused by opening " + filepath, e);
+		}
+		this.advance();
+	}
+	
+	public boolean hasNext() {
+		return (this.next != null);
+	}
+	
+	public Correspondence next() {
+		if (this.next == null) { throw new NoSuchElementException(); }
+		Correspondence correspondence = this.next;
+		this.advance();
+		return correspondence;
+	}
+	
+	public void remove() {
+		throw new UnsupportedOperationException("correspondences cannot be removed from a mapping file");
+	}
+	
+	public void close() throws MappingException {
+		this.next = null;
+		this.finished = true;
+		try { this.in.close(); }
+		catch (IOException e) { }
+		if (this.exception != null) { throw this.exception; }
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private void advance() {
+		this.next = null;
+		if (this.finished || this.exception != null) { return; }
+		try {
+			int sourceId = this.in.readInt();
+			if (sourceId == CorrespondenceWriterBinary.END) {
+				this.finished = true;
+				return;
+			}
+			String sourceUri = this.readUri(sourceId);
+			String targetUri = this.readUri(this.in.readInt());
+			int relation = this.in.readByte();
+			double confidence = this.in.readDouble();
+			this.next = new Correspondence(sourceUri, targetUri, new SemanticRelation(relation), confidence);
+		}
+		catch (EOFException e) {
+			this.exception = new MappingException(MappingException.INVALID_FORMAT, "unexpected end of file " + this.filepath, e);
+		}
+		catch (IOException e) {
+			this.exception = new MappingException(MappingException.IO_ERROR, "caused by reading " + this.filepath, e);
+		}
+		catch (CorrespondenceException e) {
+			this.exception = new MappingException(MappingException.INVALID_FORMAT, "invalid correspondence in " + this.filepath, e);
+		}
+	}
+	
+	private String readUri(int id) throws IOException {
+		if (id >= 0 && id < this.dictionary.size()) { return this.dictionary.get(id); }
+		if (id != this.dictionary.size()) { throw new IOException("invalid entity id " + id); }
+		int length = this.in.readInt();
+		if (length < 0) { throw new IOException("invalid uri length " + length); }
+		byte[] bytes = new byte[length];
+		this.in.readFully(bytes);
+		String uri = new String(bytes, "UTF-8");
+		this.dictionary.add(uri);
+		return uri;
+	}
+
+}
@@ -0,0 +1,204 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.unima.alcomox.exceptions.CorrespondenceException;
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A streaming reader for mappings in the rdf/xml format of the Alignment API. The file is parsed
+* with a pull parser, and only the cell that is currently read is kept in memory. Supports the same
+* subset of the format as the {@link MappingReaderXml}.
+*/
+public class CorrespondenceReaderXml implements CorrespondenceReader {
+	
+	private String filepathOrUri;
+	private InputStream in;
+	private XMLStreamReader parser;
+	
+	private Correspondence next = null;
+	private boolean finished = false;
+	private MappingException exception = null;
+	
+	// entities and relation are not reset after a cell, a cell without relation reuses the previous one
+	private String entity1;
+	private String entity2;
+	private String relation;
+	
+	/**
+	* Opens a mapping file and reads the first correspondence.
+	* 
+	* @param filepathOrUri The filepath or URI of the mapping file.
+	* @throws MappingException Thrown if the file cannot be opened.
+	*/
+	public CorrespondenceReaderXml(String filepathOrUri) throws MappingException {
+		this.filepathOrUri = filepathOrUri;
+		try {
+			this.in = new BufferedInputStream(open(filepathOrUri), 65536);
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			this.parser = factory.createXMLStreamReader(this.in);
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "caused by opening " + filepathOrUri, e);
+		}
+		catch (XMLStreamException e) {
+			throw new MappingException(MappingException.IO_ERROR, "caused by parsing " + filepathOrUri + " (XMLStreamException)", e);
+		}
+		this.advance();
+	}
+	
+	public boolean hasNext() {
+		return (this.next != null);
+	}
+	
+	public Correspondence next() {
+		if (this.next == null) { throw new NoSuchElementException(); }
+		Correspondence correspondence = this.next;
+		this.advance();
+		return correspondence;
+	}
+	
+	public void remove() {
+		throw new UnsupportedOperationException("correspondences cannot be removed from a mapping file");
+	}
+	
+	public void close() throws MappingException {
+		this.next = null;
+		this.finished = true;
+		try {
+			this.parser.close();
+			this.in.close();
+		}
+		catch (XMLStreamException e) { }
+		catch (IOException e) { }
+		if (this.exception != null) { throw this.exception; }
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private static InputStream open(String filepathOrUri) throws IOException {
+		try {
+			URI uri = new URI(filepathOrUri);
+			if (uri.isAbsolute()) { return uri.toURL().openStream(); }
+		}
+		catch (URISyntaxException e) { }
+		return new FileInputStream(filepathOrUri);
+	}
+	
+	private void advance() {
+		this.next = null;
+		if (this.finished || this.exception != null) { return; }
+		StringBuilder relationText = null;
+		StringBuilder confidenceText = new StringBuilder();
+		boolean readRelation = false;
+		boolean readConfidence = false;
+		try {
+			while (this.parser.hasNext()) {
+				int event = this.parser.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = getQualifiedName(this.parser.getPrefix(), this.parser.getLocalName()).toLowerCase();
+					if (name.equals("entity1")) { this.entity1 = this.getResource(); }
+					if (name.equals("entity2")) { this.entity2 = this.getResource(); }
+					if (name.equals("relation")) {
+						readRelation = true;
+						relationText = new StringBuilder();
+					}
+					if (name.equals("measure")) { readConfidence = true; }
+				}
+				else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+					if (readRelation) { relationText.append(this.parser.getText()); }
+					if (readConfidence) { confidenceText.append(this.parser.getText()); }
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (readRelation && relationText.length() > 0) { this.relation = relationText.toString(); }
+					readRelation = false;
+					readConfidence = false;
+					String name = getQualifiedName(this.parser.getPrefix(), this.parser.getLocalName()).toLowerCase();
+					if (name.equals("cell")) {
+						this.next = this.createCorrespondence(confidenceText.toString());
+						return;
+					}
+				}
+			}
+			this.finished = true;
+		}
+		catch (XMLStreamException e) {
+			this.exception = new MappingException(MappingException.IO_ERROR, "caused by parsing " + this.filepathOrUri + " (XMLStreamException)", e);
+		}
+		catch (CorrespondenceException e) {
+			this.exception = new MappingException(MappingException.IO_ERROR, "caused by parsing " + this.filepathOrUri, e);
+		}
+		catch (NumberFormatException e) {
+			this.exception = new MappingException(MappingException.INVALID_FORMAT, "invalid measure in " + this.filepathOrUri, e);
+		}
+	}
+	
+	private Correspondence createCorrespondence(String confidence) throws CorrespondenceException {
+		float sim = (float)Double.parseDouble(confidence);
+		if (sim < 0.0 || sim > 1.0) {
+			BigDecimal d = new BigDecimal(confidence);
+			sim = d.floatValue();
+		}
+		int relationType = SemanticRelation.NA;
+		if (this.relation == null) { relationType = SemanticRelation.EQUIV; }
+		else {
+			if (this.relation.equals("=")) { relationType = SemanticRelation.EQUIV; }
+			if (this.relation.equals("\"=\"")) { relationType = SemanticRelation.EQUIV; }
+			if (this.relation.startsWith("fr.inrialpes.exmo.align.impl.rel.EquivRelation")) { relationType = SemanticRelation.EQUIV; }
+			if (this.relation.equals("<")) { relationType = SemanticRelation.SUB; }
+			if (this.relation.equals(">")) { relationType = SemanticRelation.SUPER; }
+		}
+		return new Correspondence(this.entity1, this.entity2, new SemanticRelation(relationType), (double)sim);
+	}
+	
+	private String getResource() {
+		for (int i = 0; i < this.parser.getAttributeCount(); i++) {
+			String name = getQualifiedName(this.parser.getAttributePrefix(i), this.parser.getAttributeLocalName(i));
+			if (name.equals("rdf:resource")) { return this.parser.getAttributeValue(i); }
+		}
+		return null;
+	}
+	
+	private static String getQualifiedName(String prefix, String localName) {
+		if (prefix == null || prefix.length() == 0) { return localName; }
+		return prefix + ":" + localName;
+	}
+
+}
@@ -0,0 +1,108 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A streaming writer for the compact binary alignment format. The format starts with a magic number
+* and a version, followed by one record per correspondence and an end marker -1. A record is
+* the packed tuple (source-id, target-id, relation, confidence) as int, int, byte, and double. The ids
+* refer to a dictionary of entity uris that is built while writing: if an id is equal to the current size
+* of the dictionary, the uri follows the id as length prefixed UTF-8 string and is added to the dictionary.
+* Thus, each uri is stored only once and the file can be read and written in one pass.
+*/
+public class CorrespondenceWriterBinary implements CorrespondenceWriter {
+	
+	static final int MAGIC = 0x414c4342;
+	static final int VERSION = 1;
+	static final int END = -1;
+	
+	private String filepath;
+	private DataOutputStream out;
+	private HashMap<String, Integer> dictionary;
+	
+	/**
+	* Creates a binary mapping file and writes its header.
+	* 
+	* @param filepath The path of the mapping file.
+	* @throws MappingException Thrown if the file cannot be created.
+	*/
+	public CorrespondenceWriterBinary(String filepath) throws MappingException {
+		this.filepath = filepath;
+		this.dictionary = new HashMap<String, Integer>();
+		try {
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filepath), 65536));
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not create/access file " + filepath, e);
+		}
+	}
+	
+	public void write(Correspondence correspondence) throws MappingException {
+		try {
+			this.writeUri(correspondence.getSourceEntityUri());
+			this.writeUri(correspondence.getTargetEntityUri());
+			this.out.writeByte(correspondence.getRelation().getType());
+			this.out.writeDouble(correspondence.getConfidence());
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not write to file " + this.filepath, e);
+		}
+	}
+	
+	public void close() throws MappingException {
+		try {
+			this.out.writeInt(END);
+			this.out.close();
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not write to file " + this.filepath, e);
+		}
+	}
+	
+	private void writeUri(String uri) throws IOException {
+		Integer id = this.dictionary.get(uri);
+		if (id != null) {
+			this.out.writeInt(id);
+			return;
+		}
+		id = this.dictionary.size();
+		this.dictionary.put(uri, id);
+		this.out.writeInt(id);
+		byte[] bytes = uri.getBytes("UTF-8");
+		this.out.writeInt(bytes.length);
+		this.out.write(bytes);
+	}
+
+}
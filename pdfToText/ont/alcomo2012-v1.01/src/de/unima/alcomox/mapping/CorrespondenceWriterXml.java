@@ -0,0 +1,127 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* A streaming writer for mappings in the rdf/xml format of the Alignment API. Each correspondence is
+* written as soon as it is passed to the writer. The output is the same as the output of the 
+* {@link MappingWriterXml}.
+*/
+public class CorrespondenceWriterXml implements CorrespondenceWriter {
+	
+	private String filepath;
+	private Writer out;
+	
+	/**
+	* Creates a mapping file and writes its header.
+	* 
+	* @param filepath The path of the mapping file.
+	* @throws MappingException Thrown if the file cannot be created.
+	*/
+	public CorrespondenceWriterXml(String filepath) throws MappingException {
+		this.filepath = filepath;
+		try {
+			this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filepath), "UTF8"), 65536);
+			writeHeader(this.out);
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not create/access file " + filepath, e);
+		}
+	}
+	
+	public void write(Correspondence correspondence) throws MappingException {
+		try {
+			writeCell(this.out, correspondence, false);
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not write to file " + this.filepath, e);
+		}
+	}
+	
+	public void close() throws MappingException {
+		try {
+			writeFooter(this.out);
+			this.out.close();
+		}
+		catch (IOException e) {
+			throw new MappingException(MappingException.IO_ERROR, "could not write to file " + this.filepath, e);
+		}
+	}
+	
+	static void writeHeader(Writer out) throws IOException {
+		out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+		out.write("<rdf:RDF xmlns=\"http://knowledgeweb.semanticweb.org/heterogeneity/alignment\" ");
+		out.write("\n\t xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" ");
+		out.write("\n\t xmlns:xsd=\"http://www.w3.org/2001/XMLSchema#\">\n\n");		
+		out.write("<Alignment>\n");
+		out.write("<xml>yes</xml>\n");
+		out.write("<level>0</level>\n");
+		out.write("<type>??</type>\n\n");
+	}
+	
+	static void writeCell(Writer out, Correspondence correspondence, boolean withId) throws IOException {
+		out.write("<map>\n");
+		if (!withId) {
+			out.write("\t<Cell>\n");	
+		}
+		else {
+			out.write("\t<Cell cid=\"" + correspondence.getId() + "\">\n");	
+		}
+		out.write("\t\t<entity1 rdf:resource=\"");
+		out.write(correspondence.getSourceEntityUri());
+		out.write("\"/>\n");
+		out.write("\t\t<entity2 rdf:resource=\"");
+		out.write(correspondence.getTargetEntityUri());
+		out.write("\"/>\n");
+		out.write("\t\t<measure rdf:datatype=\"xsd:float\">");
+		out.write(String.valueOf(correspondence.getConfidence()));
+		out.write("</measure>\n");
+		out.write("\t\t<relation>");
+		out.write(mask(correspondence.getRelation().toString()));
+		out.write("</relation>\n");
+		out.write("\t</Cell>\n");
+		out.write("</map>\n");
+	}
+	
+	static void writeFooter(Writer out) throws IOException {
+		out.write("\n</Alignment>\n");
+		out.write("</rdf:RDF>\n");
+	}
+	
+	private static String mask(String r) {
+		if (r.equals("<")) { return "&lt;"; }
+		else if (r.equals(">")) { return "&gt;"; }
+		else { return r; }
+	}
+
+}
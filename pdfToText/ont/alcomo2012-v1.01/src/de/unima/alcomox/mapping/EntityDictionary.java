@@ -0,0 +1,113 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+* An entity dictionary assigns a dense integer id to each entity uri. Columnar mappings store
+* these ids instead of the uris, thus, mappings that share a dictionary can be compared by
+* comparing integers. Ids are never reused or removed.
+*/
+public class EntityDictionary {
+	
+	private HashMap<String, Integer> ids;
+	private ArrayList<String> uris;
+	
+	// position of each id in the lexicographic order of the uris, null if outdated
+	private int[] ranks = null;
+	
+	/**
+	* Constructs an empty dictionary.
+	*/
+	public EntityDictionary() {
+		this.ids = new HashMap<String, Integer>();
+		this.uris = new ArrayList<String>();
+	}
+	
+	/**
+	* Returns the id of an uri. The uri is added to the dictionary if it is unknown so far.
+	* 
+	* @param uri The uri of an entity.
+	* @return The id of the uri.
+	*/
+	public synchronized int intern(String uri) {
+		Integer id = this.ids.get(uri);
+		if (id == null) {
+			id = this.uris.size();
+			this.ids.put(uri, id);
+			this.uris.add(uri);
+			this.ranks = null;
+		}
+		return id;
+	}
+	
+	/**
+	* Returns the id of an uri without adding it to the dictionary.
+	* 
+	* @param uri The uri of an entity.
+	* @return The id of the uri or -1 if the uri is unknown.
+	*/
+	public synchronized int lookup(String uri) {
+		Integer id = this.ids.get(uri);
+		return (id == null) ? -1 : id;
+	}
+	
+	/**
+	* @param id The id of an entity.
+	* @return The uri of the entity.
+	*/
+	public synchronized String getUri(int id) {
+		return this.uris.get(id);
+	}
+	
+	/**
+	* @return The number of uris in this dictionary.
+	*/
+	public synchronized int size() {
+		return this.uris.size();
+	}
+	
+	/**
+	* Returns the rank of each id with respect to the lexicographic order of the uris. Comparing the
+	* ranks of two ids is the same as comparing their uris. The array is shared and must not be modified.
+	* 
+	* @return The ranks indexed by id.
+	*/
+	public synchronized int[] getRanks() {
+		if (this.ranks == null) {
+			String[] sorted = this.uris.toArray(new String[this.uris.size()]);
+			Arrays.sort(sorted);
+			this.ranks = new int[sorted.length];
+			for (int rank = 0; rank < sorted.length; rank++) {
+				this.ranks[this.ids.get(sorted[rank])] = rank;
+			}
+		}
+		return this.ranks;
+	}
+
+}
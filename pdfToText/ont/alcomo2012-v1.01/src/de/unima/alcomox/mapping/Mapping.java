@@ -63,6 +63,12 @@ public class Mapping implements Iterable<Correspondence>, Comparable<Mapping>
 	*/
 	public static final int FORMAT_RDF = 1;
 	
+	/**
+	* Compact binary format with a dictionary of entity uris, see {@link CorrespondenceWriterBinary}.
+	* Use the {@link MappingConverter} to convert from and to the standard format.
+	*/
+	public static final int FORMAT_BINARY = 2;
+	
 
 
 	private ArrayList<Correspondence> correspondences = null;
@@ -101,6 +107,9 @@ public class Mapping implements Iterable<Correspondence>, Comparable<Mapping>
 		else if (format == Mapping.FORMAT_RDF) {
 			mr = new MappingReaderXml();
 		}		
+		else if (format == Mapping.FORMAT_BINARY) {
+			mr = new MappingReaderBinary();
+		}
 		else {
 			throw new MappingException(MappingException.IO_ERROR, "chosen a not supported mapping format");
 		}
@@ -127,6 +136,9 @@ public class Mapping implements Iterable<Correspondence>, Comparable<Mapping>
 		else if (format == Mapping.FORMAT_RDF) {
 			mw = new MappingWriterXml();
 		}
+		else if (format == Mapping.FORMAT_BINARY) {
+			mw = new MappingWriterBinary();
+		}
 		else {
 			throw new MappingException(MappingException.IO_ERROR, "chosen a not supported mapping format");
 		}
@@ -276,29 +288,29 @@ public class Mapping implements Iterable<Correspondence>, Comparable<Mapping>
 	
 	
 	/**
-	* Returns the set difference between this mapping and that mapping.
+	* Returns the set difference between this mapping and that mapping. The correspondences
+	* keep the order they have in this mapping.
 	* 
 	* @param that The mapping to be compared to this mapping.
 	* @return The set difference this without that.
 	*/	
 	public Mapping getDifference(Mapping that) {
-		HashSet<Correspondence> thisCSet = this.getCorrespondencesAsSet();
-		HashSet<Correspondence> thatCSet = that.getCorrespondencesAsSet();
-		thisCSet.removeAll(thatCSet);
-		return (new Mapping(thisCSet));
+		EntityDictionary dictionary = new EntityDictionary();
+		ColumnarMapping thisColumns = new ColumnarMapping(this, dictionary);
+		return this.getRows(thisColumns.getDifferenceRows(new ColumnarMapping(that, dictionary)));
 	}
 
 	/**
-	* Returns the intersection between this mapping and that.
+	* Returns the intersection between this mapping and that. The correspondences
+	* keep the order they have in this mapping.
 	* 
 	* @param that The mapping to be intersected to this mapping.
 	* @return The intersection bewteen this and that.
 	*/	
 	public Mapping getIntersection(Mapping that) {
-		HashSet<Correspondence> thisCSet = this.getCorrespondencesAsSet();
-		HashSet<Correspondence> thatCSet = that.getCorrespondencesAsSet();
-		thisCSet.retainAll(thatCSet);
-		return (new Mapping(thisCSet));
+		EntityDictionary dictionary = new EntityDictionary();
+		ColumnarMapping thisColumns = new ColumnarMapping(this, dictionary);
+		return this.getRows(thisColumns.getIntersectionRows(new ColumnarMapping(that, dictionary)));
 	}
 	
 	/**
@@ -626,6 +638,12 @@ public class Mapping implements Iterable<Correspondence>, Comparable<Mapping>
 	
 
 	
+	private Mapping getRows(int[] rows) {
+		Mapping mapping = new Mapping();
+		for (int row : rows) { mapping.push(this.correspondences.get(row)); }
+		return mapping;
+	}
+	
 	private void adjustIdentification(int index) {
 		int thrown = 0;
 		int counter = 0;
@@ -0,0 +1,149 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.mapping;
+
+import java.util.ArrayList;
+
+import de.unima.alcomox.exceptions.MappingException;
+
+/**
+* Opens streaming readers and writers for the mapping formats that support streaming and converts
+* mapping files from one format to another without loading the whole mapping into memory.
+*/
+public class MappingConverter {
+	
+	/**
+	* Opens a streaming reader for a mapping file.
+	* 
+	* @param filepath The path of the mapping file.
+	* @param format The format of the file, {@link Mapping#FORMAT_RDF} or {@link Mapping#FORMAT_BINARY}.
+	* @return The reader.
+	* @throws MappingException Thrown if the file cannot be opened or the format does not support streaming.
+	*/
+	public static CorrespondenceReader openReader(String filepath, int format) throws MappingException {
+		if (format == Mapping.FORMAT_RDF) { return new CorrespondenceReaderXml(filepath); }
+		if (format == Mapping.FORMAT_BINARY) { return new CorrespondenceReaderBinary(filepath); }
+		throw new MappingException(MappingException.IO_ERROR, "chosen a mapping format that does not support streaming");
+	}
+	
+	/**
+	* Opens a streaming writer for a mapping file.
+	* 
+	* @param filepath The path of the mapping file.
+	* @param format The format of the file, {@link Mapping#FORMAT_RDF} or {@link Mapping#FORMAT_BINARY}.
+	* @return The writer.
+	* @throws MappingException Thrown if the file cannot be created or the format does not support streaming.
+	*/
+	public static CorrespondenceWriter openWriter(String filepath, int format) throws MappingException {
+		if (format == Mapping.FORMAT_RDF) { return new CorrespondenceWriterXml(filepath); }
+		if (format == Mapping.FORMAT_BINARY) { return new CorrespondenceWriterBinary(filepath); }
+		throw new MappingException(MappingException.IO_ERROR, "chosen a mapping format that does not support streaming");
+	}
+	
+	/**
+	* Converts a mapping file from one format into another. 
+	* 
+	* @param sourcePath The path of the file to be converted.
+	* @param sourceFormat The format of the file to be converted.
+	* @param targetPath The path of the converted file.
+	* @param targetFormat The format of the converted file.
+	* @return The number of correspondences converted.
+	* @throws MappingException Thrown if one of the files cannot be accessed or has an invalid format.
+	*/
+	public static int convert(String sourcePath, int sourceFormat, String targetPath, int targetFormat) throws MappingException {
+		CorrespondenceReader reader = openReader(sourcePath, sourceFormat);
+		CorrespondenceWriter writer;
+		try { writer = openWriter(targetPath, targetFormat); }
+		catch (MappingException e) {
+			reader.close();
+			throw e;
+		}
+		return copy(reader, writer);
+	}
+	
+	/**
+	* Converts a mapping file in rdf/xml format into the binary format.
+	* 
+	* @param rdfPath The path of the rdf file.
+	* @param binaryPath The path of the binary file.
+	* @return The number of correspondences converted.
+	* @throws MappingException Thrown if one of the files cannot be accessed or has an invalid format.
+	*/
+	public static int rdfToBinary(String rdfPath, String binaryPath) throws MappingException {
+		return convert(rdfPath, Mapping.FORMAT_RDF, binaryPath, Mapping.FORMAT_BINARY);
+	}
+	
+	/**
+	* Converts a mapping file in binary format into the rdf/xml format.
+	* 
+	* @param binaryPath The path of the binary file.
+	* @param rdfPath The path of the rdf file.
+	* @return The number of correspondences converted.
+	* @throws MappingException Thrown if one of the files cannot be accessed or has an invalid format.
+	*/
+	public static int binaryToRdf(String binaryPath, String rdfPath) throws MappingException {
+		return convert(binaryPath, Mapping.FORMAT_BINARY, rdfPath, Mapping.FORMAT_RDF);
+	}
+	
+	/**
+	* Passes all correspondences of a reader to a writer and closes both.
+	* 
+	* @param reader The reader.
+	* @param writer The writer.
+	* @return The number of correspondences copied.
+	* @throws MappingException Thrown if reading or writing fails.
+	*/
+	public static int copy(CorrespondenceReader reader, CorrespondenceWriter writer) throws MappingException {
+		int counter = 0;
+		try {
+			while (reader.hasNext()) {
+				writer.write(reader.next());
+				counter++;
+			}
+		}
+		finally {
+			try { writer.close(); }
+			finally { reader.close(); }
+		}
+		return counter;
+	}
+	
+	static Mapping readAll(CorrespondenceReader reader) throws MappingException {
+		ArrayList<Correspondence> correspondences = new ArrayList<Correspondence>();
+		try {
+			while (reader.hasNext()) { correspondences.add(reader.next()); }
+		}
+		finally { reader.close(); }
+		return new Mapping(correspondences);
+	}
+	
+	static void writeAll(Mapping mapping, CorrespondenceWriter writer) throws MappingException {
+		try {
+			for (Correspondence correspondence : mapping) { writer.write(correspondence); }
+		}
+		finally { writer.close(); }
+	}
+
+}
@@ -24,23 +24,32 @@
 
 package de.unima.alcomox.mapping;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import de.unima.alcomox.algorithms.Coord;
 import de.unima.alcomox.exceptions.PCFException;
 
+/**
+* A mapping matrix arranges the correspondences of a mapping in a matrix with one row for each source entity
+* and one column for each target entity. The distance of a cell is 1.0 minus the confidence of its correspondence,
+* or 1.0 if the cell contains no correspondence.
+* 
+* Only the cells that contain a correspondence are stored, in compressed sparse row form: the entries of a row
+* are stored one after another, ordered by their column. Thus, the memory required scales with the number of
+* correspondences and not with the number of cells. A dense array of all distances is only created on request.
+*/
 public class MappingMatrix {
 	
-	
-	
-	
-	private Correspondence[][] matrix;
-	private int[][] indices;
+	private Correspondence[] correspondences;
 	private Coord[] coords;
-	private double[][] distances;
+	// the entries of row x are rowStarts[x] to rowStarts[x + 1] - 1, each with its column and the index of its correspondence
+	private int[] rowStarts;
+	private int[] entryCols;
+	private int[] entryIndices;
+	private double[][] distances = null;
 	private int numOfSourceEntities;
 	private int numOfTargetEntities;
-	private int numOfEntities;
 	private int numOfCorrespondences;
 	private HashMap<String, Integer> sourceEntities;
 	private HashMap<String, Integer> targetEntities;
@@ -73,90 +82,175 @@ public class MappingMatrix {
 				counterTarget++;
 			}
 		}
+		this.numOfSourceEntities = counterSource;
+		this.numOfTargetEntities = counterTarget;
+		this.numOfCorrespondences = mapping.size();
 		
-		// fill the matrix
-		this.matrix = new Correspondence[counterSource + counterTarget][counterSource + counterTarget];
-		this.distances = new double[counterSource + counterTarget][counterSource + counterTarget];
-		this.indices = new int[counterSource + counterTarget][counterSource + counterTarget];
+		this.correspondences = new Correspondence[mapping.size()];
 		this.coords = new Coord[mapping.size()];
-		for (int x = 0; x < counterSource; x++) {
-			for (int y = 0; y < counterTarget; y++) {
-				this.matrix[x][y] = null;
-			}
-		}
 		int x, y;
 		int i = 0;
 		for (Correspondence c : mapping) {
-			
 			sourceUri = c.getSourceEntityUri();
 			targetUri = c.getTargetEntityUri();
 			x = sourceEntities.get(sourceUri);
 			y = targetEntities.get(targetUri);
-			// System.out.println("xxx => " + "x=" + x + " y=" + y);
 			this.coords[i] = new Coord(x,y);
-			this.matrix[x][y] = c;
-			this.indices[x][y] = i;
+			this.correspondences[i] = c;
 			i++;
 		}
-		this.numOfSourceEntities = counterSource;
-		this.numOfTargetEntities = counterTarget;
-		this.numOfEntities = this.numOfSourceEntities + this.numOfTargetEntities;
-		this.numOfCorrespondences = mapping.size();
-		this.computeDistances();
+		this.computeEntries();
 	}
 
 	
 	public String toString() {
-		return "Matrix (" + (numOfSourceEntities + numOfTargetEntities) + " x " + (numOfSourceEntities + numOfTargetEntities) + ") representation of a mapping with " + numOfCorrespondences + " correspondences";
+		return "Matrix (" + numOfSourceEntities + " x " + numOfTargetEntities + ") representation of a mapping with " + numOfCorrespondences + " correspondences";
 	}
 
 	
 	public Correspondence getCorrespondence(int x, int y) {
-		return this.matrix[x][y];
+		int entry = this.getEntry(x, y);
+		return (entry < 0) ? null : this.correspondences[this.entryIndices[entry]];
 	}
 	
 
 	public Integer getIndex(int x, int y) {
-		return this.indices[x][y];
+		int entry = this.getEntry(x, y);
+		return (entry < 0) ? -1 : this.entryIndices[entry];
 	}
 	
+	/**
+	* Returns the distances of all cells. The array is created on first access and shared, it must not be modified.
+	* For large and sparse matrices the entries should be accessed instead.
+	* 
+	* @return The distances, indexed by source and target entity.
+	*/
 	public double[][] getDistances() {
+		if (this.distances == null) { this.computeDistances(); }
 		return this.distances;
 	}
 	
+	public double getDistance(int x, int y) {
+		int entry = this.getEntry(x, y);
+		return (entry < 0) ? 1.0 : this.getEntryDistance(entry);
+	}
 	
-	// ************************************************
-	// ************** PRIVATE PLAYGROUND **************
-	// ************************************************
+	public int getNumOfSourceEntities() {
+		return this.numOfSourceEntities;
+	}
 	
-	private void computeDistances() {
-		for (int x = 0; x < this.numOfEntities; x++) {
-			for (int y = 0; y < this.numOfEntities; y++) {
-				// System.out.println("---" +  this.numOfEntities + "::: x=" +  x + " y=" + y);
-				if (this.matrix[x][y] == null) {
-					this.distances[x][y] = 1.0;
-				}
-				else {
-					this.distances[x][y] = 1.0 -  this.matrix[x][y].getConfidence();
-				}
-			}
-		}	
+	public int getNumOfTargetEntities() {
+		return this.numOfTargetEntities;
 	}
-
+	
 	public Coord getCoord(Integer index) {
 		return this.coords[index];
 	}
 
-
 	public boolean containsCorrespondence(int x, int y) {
-		return (this.matrix[x][y] != null) ? true : false;
+		return this.getEntry(x, y) >= 0;
 	}
-
-
-
 	
-
+	/**
+	* Returns the fraction of cells that contain a correspondence.
+	* 
+	* @return The density of the matrix, 1.0 for a matrix without cells.
+	*/
+	public double getDensity() {
+		double numOfCells = (double)this.numOfSourceEntities * (double)this.numOfTargetEntities;
+		return (numOfCells == 0.0) ? 1.0 : this.getNumOfEntries() / numOfCells;
+	}
 	
-
+	/**
+	* Returns the number of stored entries, i.e., the number of cells that contain a correspondence.
+	* 
+	* @return The number of entries.
+	*/
+	public int getNumOfEntries() {
+		return this.rowStarts[this.numOfSourceEntities];
+	}
+	
+	/**
+	* Returns the first entry of a row. The entries of row x are getRowStart(x) to getRowStart(x + 1) - 1,
+	* ordered by their column. 
+	* 
+	* @param x The row, which is the number of the source entity. The number of rows is a valid argument.
+	* @return The first entry of the row.
+	*/
+	public int getRowStart(int x) {
+		return this.rowStarts[x];
+	}
+	
+	/**
+	* Returns the entry of a cell.
+	* 
+	* @param x The row of the cell.
+	* @param y The column of the cell.
+	* @return The entry of the cell, or -1 if the cell contains no correspondence.
+	*/
+	public int getEntry(int x, int y) {
+		int index = Arrays.binarySearch(this.entryCols, this.rowStarts[x], this.rowStarts[x + 1], y);
+		return (index < 0) ? -1 : index;
+	}
+	
+	public int getEntryCol(int entry) {
+		return this.entryCols[entry];
+	}
+	
+	public int getEntryIndex(int entry) {
+		return this.entryIndices[entry];
+	}
+	
+	public double getEntryDistance(int entry) {
+		return 1.0 - this.correspondences[this.entryIndices[entry]].getConfidence();
+	}
+	
+	
+	// ************************************************
+	// ************** PRIVATE PLAYGROUND **************
+	// ************************************************
+	
+	// sorts the correspondences by row and column, if a cell is occupied twice the later correspondence is kept
+	private void computeEntries() {
+		this.rowStarts = new int[this.numOfSourceEntities + 1];
+		for (Coord coord : this.coords) { this.rowStarts[coord.getX() + 1]++; }
+		for (int x = 0; x < this.numOfSourceEntities; x++) { this.rowStarts[x + 1] += this.rowStarts[x]; }
+		int[] next = Arrays.copyOf(this.rowStarts, this.numOfSourceEntities);
+		long[] keys = new long[this.coords.length];
+		for (int i = 0; i < this.coords.length; i++) {
+			keys[next[this.coords[i].getX()]++] = ((long)this.coords[i].getY() << 32) | i;
+		}
+		this.entryCols = new int[this.coords.length];
+		this.entryIndices = new int[this.coords.length];
+		int numOfEntries = 0;
+		for (int x = 0; x < this.numOfSourceEntities; x++) {
+			int from = this.rowStarts[x];
+			int to = this.rowStarts[x + 1];
+			Arrays.sort(keys, from, to);
+			this.rowStarts[x] = numOfEntries;
+			for (int k = from; k < to; k++) {
+				int y = (int)(keys[k] >>> 32);
+				if (k + 1 < to && (int)(keys[k + 1] >>> 32) == y) { continue; }
+				this.entryCols[numOfEntries] = y;
+				this.entryIndices[numOfEntries] = (int)keys[k];
+				numOfEntries++;
+			}
+		}
+		this.rowStarts[this.numOfSourceEntities] = numOfEntries;
+		if (numOfEntries < this.coords.length) {
+			this.entryCols = Arrays.copyOf(this.entryCols, numOfEntries);
+			this.entryIndices = Arrays.copyOf(this.entryIndices, numOfEntries);
+		}
+	}
+	
+	private void computeDistances() {
+		this.distances = new double[this.numOfSourceEntities][this.numOfTargetEntities];
+		for (int x = 0; x < this.numOfSourceEntities; x++) {
+			Arrays.fill(this.distances[x], 1.0);
+			for (int entry = this.rowStarts[x]; entry < this.rowStarts[x + 1]; entry++) {
+				this.distances[x][this.entryCols[entry]] = this.getEntryDistance(entry);
+			}
+		}	
+	}
 
 }
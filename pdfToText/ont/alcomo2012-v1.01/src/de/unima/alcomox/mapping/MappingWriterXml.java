@@ -29,7 +29,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.util.ArrayList;
+import java.io.Writer;
 import java.util.Set;
 
 
@@ -37,8 +37,8 @@ import de.unima.alcomox.exceptions.MappingException;
 import de.unima.alcomox.ontology.ConflictPair;
 
 /**
-* A MappingWriterXml writes Mappings to xml-files. 
-*
+* A MappingWriterXml writes Mappings to xml-files. The cells are written directly to the file,
+* use a {@link CorrespondenceWriterXml} to write a mapping that is not available as a whole.
 */
 public class MappingWriterXml implements MappingWriter {
 	
@@ -58,8 +58,8 @@ public class MappingWriterXml implements MappingWriter {
 		File file = new File(filepath);
 		try {
 			file.createNewFile();
-			BufferedWriter fw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),"UTF8"));
-			fw.write(getXMLString(mapping));
+			BufferedWriter fw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),"UTF8"), 65536);
+			this.writeXML(fw, mapping);
 			fw.flush();
 			fw.close();
 		}
@@ -69,68 +69,31 @@ public class MappingWriterXml implements MappingWriter {
 		
 	}
 	
-	private String getXMLString(Mapping mapping) {
-		StringBuffer mappingXML = new StringBuffer();
-		ArrayList<Correspondence> correspondences = mapping.getCorrespondences();
-		mappingXML.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
-		// mappingXML.append("<!DOCTYPE rdf:RDF SYSTEM \"align.dtd\">\n");
-		mappingXML.append("<rdf:RDF xmlns=\"http://knowledgeweb.semanticweb.org/heterogeneity/alignment\" ");
-		mappingXML.append("\n\t xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" ");
-		mappingXML.append("\n\t xmlns:xsd=\"http://www.w3.org/2001/XMLSchema#\">\n\n");		
-		mappingXML.append("<Alignment>\n");
-		mappingXML.append("<xml>yes</xml>\n");
-		mappingXML.append("<level>0</level>\n");
-		mappingXML.append("<type>??</type>\n\n");
-		for (Correspondence c : correspondences) { mappingXML.append(getMappedCell(c)); }
+	private void writeXML(Writer out, Mapping mapping) throws IOException {
+		CorrespondenceWriterXml.writeHeader(out);
+		for (Correspondence c : mapping.getCorrespondences()) { CorrespondenceWriterXml.writeCell(out, c, this.extended); }
 		if (extended) {
 			Set<ConflictPair> cps = mapping.getConflictPairs();
 			int i = -1, j = -1, previous_i = -1;
-			mappingXML.append("\t<conflicts>\n");
+			out.write("\t<conflicts>\n");
 			for (ConflictPair cp : cps) {
 				i = cp.getCorrespondence1().getId();
 				j = cp.getCorrespondence2().getId();
 				if (previous_i != i) {
 					if (previous_i >= 0) {
-						mappingXML.append("\t\t</correspondence>\n");
+						out.write("\t\t</correspondence>\n");
 					}
-					mappingXML.append("\t\t<correspondence cid=\"" + i + "\">\n");
+					out.write("\t\t<correspondence cid=\"" + i + "\">\n");
 				}
-				mappingXML.append("\t\t\t<conflictswith cid=\"" + j + "\"/>\n"); 
+				out.write("\t\t\t<conflictswith cid=\"" + j + "\"/>\n"); 
 				previous_i = i;
 			}
 			if (cps.size() > 0) {
-				mappingXML.append("\t\t</correspondence>\n");
+				out.write("\t\t</correspondence>\n");
 			}
-			mappingXML.append("\t</conflicts>\n");
+			out.write("\t</conflicts>\n");
 		}
-		mappingXML.append("\n</Alignment>\n");
-		mappingXML.append("</rdf:RDF>\n");
-		return mappingXML.toString();
-	}
-	
-	private StringBuffer getMappedCell(Correspondence correspondence) {
-		StringBuffer mappedCell = new StringBuffer();
-		mappedCell.append("<map>\n");
-		if (!(this.extended)) {
-			mappedCell.append("\t<Cell>\n");	
-		}
-		else {
-			mappedCell.append("\t<Cell cid=\"" + correspondence.getId() + "\">\n");	
-		}
-		mappedCell.append("\t\t<entity1 rdf:resource=\"" + correspondence.getSourceEntityUri() + "\"/>\n");
-		mappedCell.append("\t\t<entity2 rdf:resource=\"" + correspondence.getTargetEntityUri() + "\"/>\n");
-		mappedCell.append("\t\t<measure rdf:datatype=\"xsd:float\">" + correspondence.getConfidence() + "</measure>\n");
-        mappedCell.append("\t\t<relation>" + mask(correspondence.getRelation().toString()) + "</relation>\n");
-		mappedCell.append("\t</Cell>\n");
-		mappedCell.append("</map>\n");
-		return mappedCell;
-	}
-	
-	
-	private String mask(String r) {
-		if (r.equals("<")) { return "&lt;"; }
-		else if (r.equals(">")) { return "&gt;"; }
-		else { return r; }
+		CorrespondenceWriterXml.writeFooter(out);
 	}
 
 }
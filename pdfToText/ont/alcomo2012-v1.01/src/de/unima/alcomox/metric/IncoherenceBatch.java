@@ -0,0 +1,279 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.metric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.exceptions.PCFException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.LocalOntology;
+import de.unima.alcomox.util.AlcomoLogger;
+
+/**
+* Computes the degree of incoherence (the max-card measure, see {@link IncoherenceMetric}) of many mappings 
+* between the same pair of ontologies. The ontologies are loaded once and shared by all evaluations, which
+* are run concurrently by a fixed number of worker threads. Each result is passed to a listener as soon as
+* its evaluation has finished.
+* 
+* Each evaluation has its own deadline, counted from its start. When the deadline has passed the evaluation
+* stops at the next point where the search checks for it and reports the score computed so far, which is
+* a lower bound for the correct value. The whole batch can be cancelled from any thread in the same way.
+* 
+* While the batch is running {@link Settings#ONE_TO_ONE} is switched off, thus, no other problem should
+* be solved in parallel.
+*/
+public class IncoherenceBatch {
+	
+	/**
+	* The default timeout of a single evaluation in milliseconds (5 minutes). 
+	*/
+	public static final long DEFAULT_TIMEOUT = 300000l;
+	
+	private AlcomoLogger log;
+	
+	private LocalOntology sourceOnt;
+	private LocalOntology targetOnt;
+	
+	private long timeout = DEFAULT_TIMEOUT;
+	private int parallelism = 1;
+	
+	private ArrayList<String> names;
+	private ArrayList<Mapping> mappings;
+	
+	// the problems currently solved, required to forward a cancellation
+	private Set<ExtractionProblem> running;
+	private volatile boolean cancelled = false;
+	
+	/**
+	* Constructs an empty batch for the given ontologies.
+	* 
+	* @param sourceOnt The source ontology of all mappings.
+	* @param targetOnt The target ontology of all mappings.
+	*/
+	public IncoherenceBatch(LocalOntology sourceOnt, LocalOntology targetOnt) {
+		this.log = new AlcomoLogger(this.getClass());
+		this.sourceOnt = sourceOnt;
+		this.targetOnt = targetOnt;
+		this.names = new ArrayList<String>();
+		this.mappings = new ArrayList<Mapping>();
+		this.running = Collections.newSetFromMap(new ConcurrentHashMap<ExtractionProblem, Boolean>());
+	}
+	
+	/**
+	* Sets the number of mappings that are evaluated concurrently. Default value is 1.
+	* 
+	* @param parallelism The number of worker threads.
+	* @throws PCFException Thrown if the number is less than 1.
+	*/
+	public void setParallelism(int parallelism) throws PCFException {
+		if (parallelism < 1) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"parallelism has to be at least 1, but is " + parallelism
+			);
+		}
+		this.parallelism = parallelism;
+	}
+	
+	public int getParallelism() {
+		return this.parallelism;
+	}
+	
+	/**
+	* Sets the time after which a single evaluation stops and reports a lower bound.
+	* 
+	* @param timeout The timeout in milliseconds, {@link #DEFAULT_TIMEOUT} by default, 0 for no timeout.
+	* @throws PCFException Thrown if the timeout is negative.
+	*/
+	public void setTimeout(long timeout) throws PCFException {
+		if (timeout < 0) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"timeout must not be negative, but is " + timeout
+			);
+		}
+		this.timeout = timeout;
+	}
+	
+	public long getTimeout() {
+		return this.timeout;
+	}
+	
+	/**
+	* Adds a mapping to the batch. Only its equivalence correspondences are evaluated, the mapping
+	* itself is not modified.
+	* 
+	* @param name The name that identifies the result of the mapping.
+	* @param mapping The mapping between source and target ontology.
+	*/
+	public void addMapping(String name, Mapping mapping) {
+		this.names.add(name);
+		this.mappings.add(mapping);
+	}
+	
+	/**
+	* @return The number of mappings in the batch.
+	*/
+	public int size() {
+		return this.mappings.size();
+	}
+	
+	/**
+	* Evaluates all mappings of the batch. The ontologies are initialized by the calling thread before
+	* the first evaluation starts. The method returns when all evaluations have finished or the calling 
+	* thread has been interrupted, which cancels the remaining evaluations.
+	* 
+	* @param listener The listener that is notified about each result as soon as it is available, might be null.
+	* @return The results in the order in which the mappings have been added, null for each mapping whose
+	* evaluation has not finished due to an interrupt.
+	* @throws AlcomoException Thrown if one of the ontologies cannot be initialized.
+	*/
+	public ArrayList<IncoherenceResult> run(IncoherenceListener listener) throws AlcomoException {
+		int numOfMappings = this.mappings.size();
+		IncoherenceResult[] results = new IncoherenceResult[numOfMappings];
+		// the initialization modifies the ontologies, afterwards they are only read by the evaluations
+		ExtractionProblem template = createProblem();
+		this.sourceOnt.init(template);
+		this.targetOnt.init(template);
+		this.log.infoS("evaluating " + numOfMappings + " mappings with " + this.parallelism + " thread(s) ...");
+		boolean oneToOne = Settings.ONE_TO_ONE;
+		Settings.ONE_TO_ONE = false;
+		ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+		try {
+			CompletionService<IncoherenceResult> completion = new ExecutorCompletionService<IncoherenceResult>(pool);
+			HashMap<Future<IncoherenceResult>, Integer> mappingIds = new HashMap<Future<IncoherenceResult>, Integer>();
+			for (int i = 0; i < numOfMappings; i++) {
+				final String name = this.names.get(i);
+				final Mapping mapping = this.mappings.get(i);
+				Future<IncoherenceResult> future = completion.submit(new Callable<IncoherenceResult>() {
+					public IncoherenceResult call() {
+						return evaluate(name, mapping);
+					}
+				});
+				mappingIds.put(future, i);
+			}
+			pool.shutdown();
+			for (int i = 0; i < numOfMappings; i++) {
+				Future<IncoherenceResult> future;
+				IncoherenceResult result;
+				try {
+					future = completion.take();
+					result = future.get();
+				}
+				catch (InterruptedException e) {
+					this.cancel();
+					Thread.currentThread().interrupt();
+					break;
+				}
+				catch (ExecutionException e) {
+					// evaluate catches everything, thus this should not happen
+					this.log.warnS("unexpected failure: " + e.getCause());
+					continue;
+				}
+				results[mappingIds.get(future)] = result;
+				if (listener != null) { listener.evaluated(result); }
+			}
+		}
+		finally {
+			// stops the remaining evaluations also at points where only an interrupt is checked
+			pool.shutdownNow();
+			Settings.ONE_TO_ONE = oneToOne;
+		}
+		this.log.infoS("... done");
+		ArrayList<IncoherenceResult> resultList = new ArrayList<IncoherenceResult>(numOfMappings);
+		for (IncoherenceResult result : results) { resultList.add(result); }
+		return resultList;
+	}
+	
+	/**
+	* Cancels all running and all pending evaluations. A running evaluation stops at the next point where
+	* it checks for its deadline and reports the score computed so far, a pending evaluation is reported as 
+	* failed. This method can be called by any thread.
+	*/
+	public void cancel() {
+		this.cancelled = true;
+		for (ExtractionProblem ep : this.running) { ep.cancel(); }
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private IncoherenceResult evaluate(String name, Mapping inputMapping) {
+		long start = System.currentTimeMillis();
+		if (this.cancelled) { return new IncoherenceResult(name, "evaluation cancelled", 0); }
+		ExtractionProblem ep = null;
+		try {
+			ep = createProblem();
+			if (this.timeout > 0) { ep.setDeadline(start + this.timeout); }
+			// a cancellation between the check above and this point is forwarded here
+			this.running.add(ep);
+			if (this.cancelled) { ep.cancel(); }
+			Mapping mapping = inputMapping.getCopy();
+			mapping.reduceToEquivalenceCorrespondences();
+			mapping.normalize(1.0);
+			ep.bindSourceOntology(this.sourceOnt);
+			ep.bindTargetOntology(this.targetOnt);
+			ep.bindMapping(mapping);
+			ep.init();
+			Mapping nonReferingInputMapping = ep.getNonReferingInputMapping();
+			if (nonReferingInputMapping.size() > 0) {
+				return new IncoherenceResult(name, "mapping contains non referring uris, e.g. " + nonReferingInputMapping.get(0), System.currentTimeMillis() - start);
+			}
+			boolean terminated = ep.solve();
+			return new IncoherenceResult(name, mapping.size(), ep.getExtractedMapping().size(), terminated, System.currentTimeMillis() - start);
+		}
+		catch (AlcomoException e) {
+			return new IncoherenceResult(name, e.getMessage(), System.currentTimeMillis() - start);
+		}
+		catch (RuntimeException e) {
+			return new IncoherenceResult(name, e.toString(), System.currentTimeMillis() - start);
+		}
+		finally {
+			if (ep != null) { this.running.remove(ep); }
+		}
+	}
+	
+	private static ExtractionProblem createProblem() throws PCFException {
+		return new ExtractionProblem(
+				ExtractionProblem.METHOD_OPTIMAL,
+				ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+				ExtractionProblem.REASONING_COMPLETE
+		);
+	}
+
+}
@@ -24,6 +24,7 @@
 
 package de.unima.alcomox.metric;
 
+import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.mapping.Mapping;
 import de.unima.alcomox.ontology.LocalOntology;
 
@@ -39,36 +40,44 @@ import de.unima.alcomox.ontology.LocalOntology;
 */
 public class IncoherenceMetric {
 	
-	// default is a 5 minute timeout
-	private final long DEFAULT_TIMEOUT = 300000l; 
+	private long timeout;
 	
-	private IncoherenceMetricThread imt;
+	private IncoherenceResult result = null;
 
 	
 	/**
 	* Constructs an incoherence metric with default timeout. 
 	*/
 	public IncoherenceMetric() {
-		this.imt = new IncoherenceMetricThread(DEFAULT_TIMEOUT);
+		this(IncoherenceBatch.DEFAULT_TIMEOUT);
 	}
 	
 	/**
 	* Constructs an incoherence metric with timeout specified in millis. 
 	*/
 	public IncoherenceMetric(long timeout) {
-		this.imt = new IncoherenceMetricThread(timeout);
+		this.timeout = timeout;
 	}
 	
 	/**
 	* Runs an evaluation by applying the incoherence metric a.k.a maximum cardinality
-	* incoherence measure (as defined in Meilicke,Stuckenschmidt OM 2008).
+	* incoherence measure (as defined in Meilicke,Stuckenschmidt OM 2008). To evaluate many
+	* mappings between the same ontologies use an {@link IncoherenceBatch}.
 	* 
-	* @param sourceOntPathOrUri Filepath or URL of the source ontology.
-	* @param targetOntPathOrUri Filepath or URL of the target ontology.
-	* @param mappingPathOrUri Filepath or URL of the target ontology.
+	* @param sourceOnt The source ontology.
+	* @param targetOnt The target ontology.
+	* @param mapping The mapping between source and target ontology.
 	*/
 	public void eval(LocalOntology sourceOnt, LocalOntology targetOnt, Mapping mapping) {
-		this.imt.eval(sourceOnt, targetOnt, mapping);
+		IncoherenceBatch batch = new IncoherenceBatch(sourceOnt, targetOnt);
+		batch.addMapping("mapping", mapping);
+		try {
+			batch.setTimeout(this.timeout);
+			this.result = batch.run(null).get(0);
+		}
+		catch (AlcomoException e) {
+			this.result = new IncoherenceResult("mapping", e.getMessage(), 0);
+		}
 	}
 	
 
@@ -78,7 +87,7 @@ public class IncoherenceMetric {
 	* expired; false otherwise (due to timeout or some interal problems).
 	*/
 	public boolean evaluationTerminated() {
-		return this.imt.evaluationTerminated();
+		return (this.result != null) && this.result.evaluationTerminated();
 	}
 
 	/**
@@ -91,7 +100,7 @@ public class IncoherenceMetric {
 	* could successfully work with the input data. 
 	*/
 	public boolean evaluationSuccessful() {
-		return this.imt.evaluationSuccessful();
+		return (this.result != null) && this.result.evaluationSuccessful();
 	}
 	
 	/**
@@ -101,7 +110,8 @@ public class IncoherenceMetric {
 	* @return An error message if an error has occured.
 	*/
 	public String getErrorMessage() {
-		return this.imt.getErrorMessage();
+		if (this.result == null) { return "call method eval before asking for the result"; }
+		return this.result.getErrorMessage();
 	}
 	
 	/**
@@ -111,7 +121,8 @@ public class IncoherenceMetric {
 	* finishing) or -1 (in case of an internal error).
 	*/
 	public double getDegreeOfIncoherence() {
-		return this.imt.getDegreeOfIncoherence();
+		if (this.result == null) { return -1.0; }
+		return this.result.getDegreeOfIncoherence();
 	}
 	
 }
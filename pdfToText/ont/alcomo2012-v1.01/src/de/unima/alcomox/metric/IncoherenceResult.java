@@ -0,0 +1,129 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.metric;
+
+/**
+* The degree of incoherence of one mapping evaluated by an {@link IncoherenceBatch}. Objects of
+* this class are immutable and can be passed between threads.
+*/
+public class IncoherenceResult {
+	
+	private String name;
+	private int numOfInput;
+	private int numOfExtracted;
+	private boolean terminated;
+	private String errorMessage;
+	private long elapsedMillis;
+	
+	/**
+	* Constructs the result of a successful evaluation.
+	* 
+	* @param name The name of the evaluated mapping.
+	* @param numOfInput The number of correspondences that have been evaluated.
+	* @param numOfExtracted The number of correspondences of the largest coherent subset found.
+	* @param terminated True if the evaluation terminated before its deadline.
+	* @param elapsedMillis The time required for the evaluation.
+	*/
+	IncoherenceResult(String name, int numOfInput, int numOfExtracted, boolean terminated, long elapsedMillis) {
+		this.name = name;
+		this.numOfInput = numOfInput;
+		this.numOfExtracted = numOfExtracted;
+		this.terminated = terminated;
+		this.errorMessage = null;
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	/**
+	* Constructs the result of a failed evaluation.
+	* 
+	* @param name The name of the evaluated mapping.
+	* @param errorMessage The reason of the failure.
+	* @param elapsedMillis The time passed until the evaluation failed.
+	*/
+	IncoherenceResult(String name, String errorMessage, long elapsedMillis) {
+		this.name = name;
+		this.terminated = false;
+		this.errorMessage = errorMessage;
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	/**
+	* @return The name under which the mapping has been added to the batch.
+	*/
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	* @return True if the evaluation terminated successful before its deadline expired; 
+	* false otherwise (due to the deadline, a cancellation, or some internal problems).
+	*/
+	public boolean evaluationTerminated() {
+		return this.terminated;
+	}
+	
+	/**
+	* Checks whether the evaluation was successful and generated a meaningful value. Such a value
+	* is also generated if the deadline expired, as long as the algorithm could work with the input data.
+	* 
+	* @return True if the evaluation was successful; false otherwise.
+	*/
+	public boolean evaluationSuccessful() {
+		return this.errorMessage == null;
+	}
+	
+	/**
+	* @return An error message if the evaluation has not been successful, an empty string otherwise.
+	*/
+	public String getErrorMessage() {
+		if (this.evaluationSuccessful()) { return ""; }
+		return this.errorMessage;
+	}
+	
+	/**
+	* Returns the degree of incoherence.
+	* 
+	* @return The degree of incoherence or a lower bound (if stopped prior to
+	* finishing) or -1 (in case of an internal error).
+	*/
+	public double getDegreeOfIncoherence() {
+		if (!this.evaluationSuccessful()) { return -1.0; }
+		if (this.numOfInput == 0) { return 0.0; }
+		return ((double)(this.numOfInput - this.numOfExtracted) / (double)this.numOfInput);
+	}
+	
+	/**
+	* @return The time in milliseconds required for the evaluation.
+	*/
+	public long getElapsedMillis() {
+		return this.elapsedMillis;
+	}
+	
+	public String toString() {
+		if (!this.evaluationSuccessful()) { return this.name + " failed: " + this.errorMessage; }
+		return this.name + " incoherence=" + this.getDegreeOfIncoherence() + (this.terminated ? "" : " (lower bound)") + " in " + this.elapsedMillis + "ms";
+	}
+
+}
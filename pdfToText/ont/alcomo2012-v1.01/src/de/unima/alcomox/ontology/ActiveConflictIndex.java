@@ -0,0 +1,256 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.mapping.Correspondence;
+
+/**
+* An incremental index over the correspondences of a growing mapping, e.g., the active mapping
+* of a greedy algorithm, that returns for a candidate correspondence those correspondences of
+* the mapping that might be in conflict with it due to efficient reasoning. Each propagation
+* pattern of the {@link EfficientReasoner} requires that the source entities or the target entities
+* of both correspondences are in a subsumption or disjointness relation, i.e., the id of one of
+* them is in the sub or disjointness intervals of the other one in the {@link TaxonomyIndex}.
+* 
+* For each side the index stores the ids of the indexed correspondences in a sorted map, which is
+* queried with the intervals of the candidate, and the intervals of the indexed correspondences in
+* a segment tree, which is queried with the id of the candidate. Adding a correspondence takes
+* O(log n) per interval. The returned correspondences are a superset of the conflicting ones, the same
+* superset as generated by the {@link ConflictCandidateIndex} for a static mapping.
+*/
+public class ActiveConflictIndex {
+	
+	private ArrayList<Correspondence> correspondences;
+	
+	private Side sourceSide;
+	private Side targetSide;
+	
+	// only required for the one-to-one settings
+	private HashMap<String, ArrayList<Integer>> bySource;
+	private HashMap<String, ArrayList<Integer>> byTarget;
+	
+	// used to report each indexed correspondence at most once per query
+	private int[] lastSeen;
+	private int queryCounter;
+	
+	/**
+	* Constructs an empty index.
+	* 
+	* @param sourceIndex The taxonomy index of the source ontology.
+	* @param targetIndex The taxonomy index of the target ontology.
+	*/
+	ActiveConflictIndex(TaxonomyIndex sourceIndex, TaxonomyIndex targetIndex) {
+		this.correspondences = new ArrayList<Correspondence>();
+		this.sourceSide = new Side(sourceIndex);
+		this.targetSide = new Side(targetIndex);
+		if (Settings.ONE_TO_ONE || Settings.ONE_TO_MANY || Settings.MANY_TO_ONE) {
+			this.bySource = new HashMap<String, ArrayList<Integer>>();
+			this.byTarget = new HashMap<String, ArrayList<Integer>>();
+		}
+		this.lastSeen = new int[16];
+		this.queryCounter = 0;
+	}
+	
+	/**
+	* Adds a correspondence to the index.
+	* 
+	* @param c The correspondence to be added.
+	*/
+	public void add(Correspondence c) {
+		int position = this.correspondences.size();
+		this.correspondences.add(c);
+		if (position == this.lastSeen.length) {
+			this.lastSeen = Arrays.copyOf(this.lastSeen, 2 * this.lastSeen.length);
+		}
+		this.sourceSide.add(c.getSourceEntity(), position);
+		this.targetSide.add(c.getTargetEntity(), position);
+		if (this.bySource != null) {
+			addToGroup(this.bySource, c.getSourceEntityUri(), position);
+			addToGroup(this.byTarget, c.getTargetEntityUri(), position);
+		}
+	}
+	
+	/**
+	* Returns the indexed correspondences that might be in conflict with a candidate. Indexed
+	* correspondences that are not returned are never in conflict with the candidate.
+	* 
+	* @param candidate The candidate correspondence, not necessarily indexed.
+	* @return The indexed correspondences that might be in conflict with the candidate.
+	*/
+	public ArrayList<Correspondence> getCandidates(Correspondence candidate) {
+		this.queryCounter++;
+		ArrayList<Correspondence> candidates = new ArrayList<Correspondence>();
+		this.sourceSide.collect(candidate.getSourceEntity(), candidates);
+		this.targetSide.collect(candidate.getTargetEntity(), candidates);
+		if (this.bySource != null) {
+			this.collect(this.bySource.get(candidate.getSourceEntityUri()), candidates);
+			this.collect(this.byTarget.get(candidate.getTargetEntityUri()), candidates);
+		}
+		return candidates;
+	}
+	
+	/**
+	* @return The number of indexed correspondences.
+	*/
+	public int size() {
+		return this.correspondences.size();
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private void collect(ArrayList<Integer> positions, ArrayList<Correspondence> candidates) {
+		if (positions == null) { return; }
+		for (int position : positions) {
+			this.collect(position, candidates);
+		}
+	}
+	
+	private void collect(int position, ArrayList<Correspondence> candidates) {
+		if (this.lastSeen[position] == this.queryCounter) { return; }
+		this.lastSeen[position] = this.queryCounter;
+		candidates.add(this.correspondences.get(position));
+	}
+	
+	private static void addToGroup(HashMap<String, ArrayList<Integer>> groups, String uri, int position) {
+		ArrayList<Integer> group = groups.get(uri);
+		if (group == null) {
+			group = new ArrayList<Integer>(1);
+			groups.put(uri, group);
+		}
+		group.add(position);
+	}
+	
+	private static int[] append(int[] list, int value) {
+		if (list == null) {
+			list = new int[] {0, 0, 0, 0};
+		}
+		// the first element is the number of values stored
+		if (list[0] + 1 == list.length) {
+			list = Arrays.copyOf(list, 2 * list.length);
+		}
+		list[++list[0]] = value;
+		return list;
+	}
+	
+	/**
+	* The index of one side of the correspondences.
+	*/
+	private class Side {
+		
+		private TaxonomyIndex taxonomy;
+		
+		// the positions of the indexed correspondences by the ids of their anchors
+		private TreeMap<Integer, int[]> anchors;
+		
+		// segment tree over the ids, each node stores the positions of the correspondences with an interval covering the node
+		private int[][] segments;
+		private int numOfLeaves;
+		
+		Side(TaxonomyIndex taxonomy) {
+			this.taxonomy = taxonomy;
+			this.anchors = new TreeMap<Integer, int[]>();
+			int numOfIds = taxonomy.getMaxId() - taxonomy.getMinId() + 1;
+			this.numOfLeaves = 1;
+			while (this.numOfLeaves < numOfIds) { this.numOfLeaves *= 2; }
+			this.segments = new int[2 * this.numOfLeaves][];
+		}
+		
+		void add(Entity entity, int position) {
+			for (int id : this.getAnchors(entity)) {
+				this.anchors.put(id, append(this.anchors.get(id), position));
+				this.addIntervals(this.taxonomy.getSubBounds(id), position);
+				this.addIntervals(this.taxonomy.getDisBounds(id), position);
+			}
+		}
+		
+		void collect(Entity entity, ArrayList<Correspondence> candidates) {
+			for (int id : this.getAnchors(entity)) {
+				// indexed correspondences whose anchor is a sub class or disjoint class of the candidate
+				this.collectAnchors(this.taxonomy.getSubBounds(id), candidates);
+				this.collectAnchors(this.taxonomy.getDisBounds(id), candidates);
+				// indexed correspondences that have the candidate as sub class or disjoint class
+				for (int node = id - this.taxonomy.getMinId() + this.numOfLeaves; node >= 1; node >>>= 1) {
+					int[] list = this.segments[node];
+					if (list == null) { continue; }
+					for (int i = 1; i <= list[0]; i++) {
+						ActiveConflictIndex.this.collect(list[i], candidates);
+					}
+				}
+			}
+		}
+		
+		private void collectAnchors(int[] bounds, ArrayList<Correspondence> candidates) {
+			for (int b = 0; b < bounds.length; b += 2) {
+				for (Map.Entry<Integer, int[]> entry : this.anchors.subMap(bounds[b], true, bounds[b + 1], true).entrySet()) {
+					int[] list = entry.getValue();
+					for (int i = 1; i <= list[0]; i++) {
+						ActiveConflictIndex.this.collect(list[i], candidates);
+					}
+				}
+			}
+		}
+		
+		private void addIntervals(int[] bounds, int position) {
+			int minId = this.taxonomy.getMinId();
+			for (int b = 0; b < bounds.length; b += 2) {
+				int left = bounds[b] - minId + this.numOfLeaves;
+				int right = bounds[b + 1] - minId + this.numOfLeaves + 1;
+				while (left < right) {
+					if ((left & 1) == 1) { this.segments[left] = append(this.segments[left], position); left++; }
+					if ((right & 1) == 1) { right--; this.segments[right] = append(this.segments[right], position); }
+					left >>>= 1;
+					right >>>= 1;
+				}
+			}
+		}
+		
+		private ArrayList<Integer> getAnchors(Entity entity) {
+			ArrayList<Integer> ids = new ArrayList<Integer>(2);
+			this.addAnchor(entity.getConcept(), ids);
+			this.addAnchor(entity.getDomain(), ids);
+			if (Settings.PROPERTY_RANGE_EXTENSION) {
+				this.addAnchor(entity.getRange(), ids);
+			}
+			return ids;
+		}
+		
+		private void addAnchor(OWLClass c, ArrayList<Integer> ids) {
+			if (c == null) { return; }
+			// unsatisfiable classes are not part of the tree, patterns never fire for them
+			int id = this.taxonomy.getId(c);
+			if (id >= 0 && !ids.contains(id)) { ids.add(id); }
+		}
+	}
+
+}
@@ -179,9 +179,20 @@ public abstract class AlcomoOntology {
 	}	
 	
 	public void freeReasoner() {
+		// the reasoner is registered as listener of the manager and has to be unregistered
+		if (this.reasoner != null) { this.reasoner.dispose(); }
 		this.reasoner = null;
 	}
 	
+	/**
+	* Returns the reasoner that answers the queries of the reasoner wrapper methods.
+	* 
+	* @return The reasoner of this ontology.
+	*/
+	protected OWLReasoner getReasoner() {
+		return this.reasoner;
+	}
+	
 	public ExtractionProblem getExtractionProblem() {
 		return this.extractionProblem;
 	}
@@ -227,10 +238,10 @@ public abstract class AlcomoOntology {
 	public boolean isSubClassOfClass(OWLClass c1, OWLClass c2) {
 		OWLAxiom subClassOfAxiom  = factory.getOWLSubClassOfAxiom(c1, c2);
 		OWLAxiom equivClassOfAxiom  = factory.getOWLEquivalentClassesAxiom(c1, c2);
-		if (this.reasoner.isEntailed(equivClassOfAxiom)) {
+		if (this.getReasoner().isEntailed(equivClassOfAxiom)) {
 			return true;
 		}
-		return this.reasoner.isEntailed(subClassOfAxiom);
+		return this.getReasoner().isEntailed(subClassOfAxiom);
 	}
 	
 	/**
@@ -241,7 +252,7 @@ public abstract class AlcomoOntology {
 	* @return The set of subclasses.
 	*/
 	public Set<OWLClass> getSubClassesOfClass(OWLClass c) {
-		NodeSet<OWLClass> subClsSets = this.reasoner.getSubClasses(c, false);
+		NodeSet<OWLClass> subClsSets = this.getReasoner().getSubClasses(c, false);
 		Set<OWLClass> subCls = subClsSets.getFlattened();
 		subCls.add(c);
 		subCls.remove(this.NOTHING);
@@ -256,7 +267,7 @@ public abstract class AlcomoOntology {
 	* @return The set of real superclasses.
 	*/
 	public Set<OWLClass> getRealDirectSuperClassesOfClass(OWLClass c) {
-		NodeSet<OWLClass> superClsSets = this.reasoner.getSuperClasses(c, false);
+		NodeSet<OWLClass> superClsSets = this.getReasoner().getSuperClasses(c, false);
 		Set<OWLClass> superCls = superClsSets.getFlattened();
 		superCls.remove(this.THING);
 		return superCls;
@@ -275,7 +286,7 @@ public abstract class AlcomoOntology {
 		if (c1.equals(c2)) return false;
 		OWLAxiom disAxiom  = factory.getOWLDisjointClassesAxiom(c1, c2);
 
-		return this.reasoner.isEntailed(disAxiom);
+		return this.getReasoner().isEntailed(disAxiom);
 	}
 	
 	/**
@@ -287,7 +298,7 @@ public abstract class AlcomoOntology {
 		// TODO maby the bug is here ... (maybe not)
 		Set<OWLClass> usatClasses = new HashSet<OWLClass>();
 		try {
-			Node<OWLClass> usatClassesSet = this.reasoner.getBottomClassNode();
+			Node<OWLClass> usatClassesSet = this.getReasoner().getBottomClassNode();
 			usatClasses = usatClassesSet.getEntities();
 		}
 		catch(InternalReasonerException e) {
@@ -305,7 +316,7 @@ public abstract class AlcomoOntology {
 	* @return The set of all classes (except THING and NOTHING).
 	*/
 	public Set<OWLClass> getClasses() {
-		// this.reasoner.get
+		// this.getReasoner().get
 		Set<OWLClass> classes = this.ontology.getClassesInSignature();
 		classes.remove(NOTHING);
 		classes.remove(THING);
@@ -320,7 +331,7 @@ public abstract class AlcomoOntology {
 	* @return True if c is unsatisfiable, false otherwise.
 	*/
 	public boolean isUnsatisfiable(OWLClass c) {
-		return (!(this.reasoner.isSatisfiable(c)));
+		return (!(this.getReasoner().isSatisfiable(c)));
 	}	
 	
 	/**
@@ -26,6 +26,7 @@ package de.unima.alcomox.ontology;
 
 import de.unima.alcomox.ExtractionProblem;
 import de.unima.alcomox.util.AlcomoLogger;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 /**
 * This abstract class represents a reasoner used in the alcomo system.
@@ -38,14 +39,23 @@ public abstract class AlcomoReasoner {
 	protected LocalOntology sourceOntology;
 	protected LocalOntology targetOntology;
 	protected ExtractionProblem extractionProblem;
+	protected ExtractionMetrics metrics;
 	
 	public AlcomoReasoner(LocalOntology sourceOntology, LocalOntology targetOntology, ExtractionProblem extractionProblem2) {
 		this.sourceOntology = sourceOntology;
 		this.targetOntology = targetOntology;
 		this.extractionProblem = extractionProblem2;
+		this.metrics = extractionProblem2.getMetrics();
 		this.log = new AlcomoLogger(this.getClass());
 		
 	}
 	
+	/**
+	* @return The metrics of the extraction problem that this reasoner is used for.
+	*/
+	public ExtractionMetrics getMetrics() {
+		return this.metrics;
+	}
+	
 	
 }
@@ -0,0 +1,341 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import de.unima.alcomox.Settings;
+
+/**
+* A snapshot of the classification of a local ontology, stored in a compact binary file. It contains
+* the packed taxonomy index, the unsatisfiable classes, and the uris of the indexed entities together
+* with the domain and range classes that have been created for the properties.
+* 
+* A snapshot is identified by a key that is a hash of the content of the ontology file and of all
+* settings that affect the classification. Thus, a snapshot is never used for a modified ontology. 
+* All class uris are stored once in a dictionary, all other parts refer to them by their position.
+* The ids of the taxonomy index are shifted when read, such that they do not collide with the ids
+* of ontologies classified in the current run.
+*/
+public class ClassificationSnapshot {
+	
+	private static final int MAGIC = 0x414c4353;
+	private static final int VERSION = 1;
+	
+	private static final String SUFFIX = ".snapshot";
+	
+	private TaxonomyIndex taxonomyIndex;
+	private Set<OWLClass> unsatisfiableClasses;
+	private ArrayList<String> conceptUris;
+	private ArrayList<String> propertyUris;
+	private ArrayList<String> domainUris;
+	private ArrayList<String> rangeUris;
+	
+	/**
+	* Constructs a snapshot of a classification.
+	* 
+	* @param taxonomyIndex The taxonomy index of the ontology.
+	* @param unsatisfiableClasses The unsatisfiable classes of the ontology.
+	* @param conceptUris The uris of the concept entities.
+	* @param propertyUris The uris of the property entities.
+	* @param domainUris The uris of the domain classes of the property entities.
+	* @param rangeUris The uris of the range classes of the property entities, empty if there is none.
+	*/
+	public ClassificationSnapshot(TaxonomyIndex taxonomyIndex, Set<OWLClass> unsatisfiableClasses, ArrayList<String> conceptUris, ArrayList<String> propertyUris, ArrayList<String> domainUris, ArrayList<String> rangeUris) {
+		this.taxonomyIndex = taxonomyIndex;
+		this.unsatisfiableClasses = unsatisfiableClasses;
+		this.conceptUris = conceptUris;
+		this.propertyUris = propertyUris;
+		this.domainUris = domainUris;
+		this.rangeUris = rangeUris;
+	}
+	
+	public TaxonomyIndex getTaxonomyIndex() {
+		return this.taxonomyIndex;
+	}
+	
+	public Set<OWLClass> getUnsatisfiableClasses() {
+		return this.unsatisfiableClasses;
+	}
+	
+	public ArrayList<String> getConceptUris() {
+		return this.conceptUris;
+	}
+	
+	public ArrayList<String> getPropertyUris() {
+		return this.propertyUris;
+	}
+	
+	public ArrayList<String> getDomainUris() {
+		return this.domainUris;
+	}
+	
+	public ArrayList<String> getRangeUris() {
+		return this.rangeUris;
+	}
+	
+	/**
+	* Renames classes of the snapshot. The names of the domain and range classes depend on the order
+	* in which the ontologies are loaded, thus they have to be renamed to the names of the current run.
+	* 
+	* @param renaming Maps a class of the snapshot to the class it is renamed to.
+	*/
+	public void renameClasses(HashMap<OWLClass, OWLClass> renaming) {
+		if (renaming.isEmpty()) { return; }
+		HashMap<OWLClass, Integer> ids = this.taxonomyIndex.getIds();
+		// first remove all renamed classes, a class might be renamed to the old name of another class
+		HashMap<OWLClass, Integer> renamedIds = new HashMap<OWLClass, Integer>();
+		for (Map.Entry<OWLClass, OWLClass> entry : renaming.entrySet()) {
+			Integer id = ids.remove(entry.getKey());
+			if (id != null) { renamedIds.put(entry.getValue(), id); }
+		}
+		ids.putAll(renamedIds);
+		Set<OWLClass> unsatisfiableClasses = new HashSet<OWLClass>();
+		for (OWLClass c : this.unsatisfiableClasses) {
+			unsatisfiableClasses.add(renaming.containsKey(c) ? renaming.get(c) : c);
+		}
+		this.unsatisfiableClasses = unsatisfiableClasses;
+	}
+	
+	/**
+	* Computes the key of the snapshot for an ontology file in the current settings.
+	* 
+	* @param ontologyFile The ontology file.
+	* @param entities The value of the parameter ENTITIES of the extraction problem.
+	* @return The key as hex string.
+	* @throws IOException Thrown if the ontology file cannot be read.
+	*/
+	public static String computeKey(File ontologyFile, int entities) throws IOException {
+		MessageDigest digest;
+		try { digest = MessageDigest.getInstance("SHA-1"); }
+		catch (NoSuchAlgorithmException e) { throw new IOException("SHA-1 not available: " + e); }
+		InputStream in = new FileInputStream(ontologyFile);
+		try {
+			byte[] buffer = new byte[65536];
+			int read;
+			while ((read = in.read(buffer)) > 0) { digest.update(buffer, 0, read); }
+		}
+		finally { in.close(); }
+		String settings = 
+			"version=" + VERSION + 
+			";entities=" + entities + 
+			";reasoner=" + Settings.BLACKBOX_REASONER + 
+			";removeIndividuals=" + Settings.REMOVE_INDIVIDUALS + 
+			";rangeExtension=" + Settings.PROPERTY_RANGE_EXTENSION;
+		digest.update(settings.getBytes("UTF-8"));
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xf, 16));
+			key.append(Character.forDigit(b & 0xf, 16));
+		}
+		return key.toString();
+	}
+	
+	/**
+	* Returns the file where the snapshot with the given key is stored.
+	* 
+	* @param directory The snapshot directory.
+	* @param key The key of the snapshot.
+	* @return The snapshot file.
+	*/
+	public static File getFile(String directory, String key) {
+		return new File(directory, key + SUFFIX);
+	}
+	
+	/**
+	* Writes this snapshot into a file. The snapshot is first written to a temporary file which is
+	* then renamed, such that a concurrent reader never sees an incomplete snapshot.
+	* 
+	* @param file The snapshot file.
+	* @throws IOException Thrown if the file cannot be written.
+	*/
+	public void write(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("could not create snapshot directory " + dir);
+		}
+		// the dictionary of all class uris
+		HashMap<OWLClass, Integer> dictionary = new HashMap<OWLClass, Integer>();
+		ArrayList<String> iris = new ArrayList<String>();
+		for (OWLClass c : this.taxonomyIndex.getIds().keySet()) { addToDictionary(c, dictionary, iris); }
+		for (OWLClass c : this.unsatisfiableClasses) { addToDictionary(c, dictionary, iris); }
+		File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeStrings(out, iris);
+			out.writeInt(this.taxonomyIndex.getIds().size());
+			for (Map.Entry<OWLClass, Integer> entry : this.taxonomyIndex.getIds().entrySet()) {
+				out.writeInt(dictionary.get(entry.getKey()));
+				out.writeInt(entry.getValue());
+			}
+			out.writeInt(this.taxonomyIndex.getMinId());
+			writeInts(out, this.taxonomyIndex.getSubOffsets());
+			writeInts(out, this.taxonomyIndex.getSubBounds());
+			writeInts(out, this.taxonomyIndex.getDisOffsets());
+			writeInts(out, this.taxonomyIndex.getDisBounds());
+			out.writeInt(this.unsatisfiableClasses.size());
+			for (OWLClass c : this.unsatisfiableClasses) { out.writeInt(dictionary.get(c)); }
+			writeStrings(out, this.conceptUris);
+			writeStrings(out, this.propertyUris);
+			writeStrings(out, this.domainUris);
+			writeStrings(out, this.rangeUris);
+		}
+		finally { out.close(); }
+		if (!tmp.renameTo(file)) {
+			// some platforms do not replace existing files
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+				throw new IOException("could not rename snapshot to " + file);
+			}
+		}
+	}
+	
+	/**
+	* Reads a snapshot from a memory mapped file. 
+	* 
+	* @param file The snapshot file.
+	* @param factory The factory used to create the classes.
+	* @param firstId The smallest id of the restored taxonomy index, all ids are shifted accordingly.
+	* @return The snapshot.
+	* @throws IOException Thrown if the file cannot be read or is not a valid snapshot.
+	*/
+	public static ClassificationSnapshot read(File file, OWLDataFactory factory, int firstId) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("invalid snapshot file " + file);
+			}
+			ArrayList<String> iris = readStrings(buffer);
+			OWLClass[] classes = new OWLClass[iris.size()];
+			for (int i = 0; i < classes.length; i++) {
+				classes[i] = factory.getOWLClass(IRI.create(iris.get(i)));
+			}
+			int numOfIds = buffer.getInt();
+			int[] pairs = readInts(buffer, 2 * numOfIds);
+			int base = buffer.getInt();
+			int[] subOffsets = readInts(buffer, buffer.getInt());
+			int[] subBounds = readInts(buffer, buffer.getInt());
+			int[] disOffsets = readInts(buffer, buffer.getInt());
+			int[] disBounds = readInts(buffer, buffer.getInt());
+			// an empty index has no valid base
+			int delta = (subOffsets.length > 1) ? firstId - base : 0;
+			HashMap<OWLClass, Integer> ids = new HashMap<OWLClass, Integer>(2 * numOfIds);
+			for (int i = 0; i < pairs.length; i += 2) {
+				ids.put(classes[pairs[i]], pairs[i + 1] + delta);
+			}
+			shift(subBounds, delta);
+			shift(disBounds, delta);
+			TaxonomyIndex taxonomyIndex = new TaxonomyIndex(ids, base + delta, subOffsets, subBounds, disOffsets, disBounds);
+			int numOfUnsatisfiable = buffer.getInt();
+			Set<OWLClass> unsatisfiableClasses = new HashSet<OWLClass>();
+			for (int i = 0; i < numOfUnsatisfiable; i++) {
+				unsatisfiableClasses.add(classes[buffer.getInt()]);
+			}
+			ArrayList<String> conceptUris = readStrings(buffer);
+			ArrayList<String> propertyUris = readStrings(buffer);
+			ArrayList<String> domainUris = readStrings(buffer);
+			ArrayList<String> rangeUris = readStrings(buffer);
+			return new ClassificationSnapshot(taxonomyIndex, unsatisfiableClasses, conceptUris, propertyUris, domainUris, rangeUris);
+		}
+		catch (RuntimeException e) {
+			// a truncated file or a dictionary reference out of range
+			throw new IOException("corrupted snapshot file " + file + ": " + e);
+		}
+		finally { raf.close(); }
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private static void addToDictionary(OWLClass c, HashMap<OWLClass, Integer> dictionary, ArrayList<String> iris) {
+		if (!dictionary.containsKey(c)) {
+			dictionary.put(c, iris.size());
+			iris.add(c.getIRI().toString());
+		}
+	}
+	
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) { out.writeInt(value); }
+	}
+	
+	private static void writeStrings(DataOutputStream out, ArrayList<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings) {
+			byte[] bytes = s.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+	
+	private static int[] readInts(ByteBuffer buffer, int length) {
+		int[] values = new int[length];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + 4 * length);
+		return values;
+	}
+	
+	private static ArrayList<String> readStrings(ByteBuffer buffer) throws IOException {
+		int size = buffer.getInt();
+		ArrayList<String> strings = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			strings.add(new String(bytes, "UTF-8"));
+		}
+		return strings;
+	}
+	
+	private static void shift(int[] values, int delta) {
+		if (delta == 0) { return; }
+		for (int i = 0; i < values.length; i++) { values[i] += delta; }
+	}
+
+}
@@ -0,0 +1,389 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+
+/**
+* A cache for the results of complete coherence checks that exploits the monotonicity of coherence:
+* each subset of a coherent mapping is coherent and each superset of an incoherent mapping is incoherent.
+* Thus, a check can be answered without reasoning if the mapping is a subset of a mapping that has been
+* stored as coherent, or a superset of a mapping that has been stored as incoherent.
+* 
+* Mappings are represented as bitsets over indices that are assigned to the correspondences when they
+* are seen for the first time. For each incoherent mapping the unsatisfiable class that has been detected
+* is stored as witness, it is unsatisfiable in each superset, too. A witness null means that the
+* merged ontology became inconsistent. Coherent and incoherent mappings are stored in two separate
+* tables, each of them bounded by the given capacity. If a table is full, the entry that has not been
+* used for the longest time is evicted.
+* 
+* The mappings have to comprise all correspondences that are part of the merged ontology, including an
+* attached validated mapping. Then the stored results are valid for each reasoner over the same ontologies
+* and a cache can be shared between reasoners. An attached mapping is passed as {@link Attachment},
+* which is extended incrementally and combined with the checked mapping without building their union.
+*/
+public class CoherenceCache {
+	
+	private int capacity;
+	
+	private HashMap<Correspondence, Integer> indices;
+	
+	private LinkedHashMap<BitKey, BitKey> coherent;
+	private LinkedHashMap<BitKey, OWLClass> incoherent;
+	
+	private OWLClass lastWitness = null;
+	
+	private int hits = 0;
+	private int misses = 0;
+	
+	/**
+	* Constructs an empty cache.
+	* 
+	* @param capacity The maximal number of coherent and the maximal number of incoherent mappings stored.
+	*/
+	public CoherenceCache(int capacity) {
+		this.capacity = capacity;
+		this.indices = new HashMap<Correspondence, Integer>();
+		this.coherent = this.createTable();
+		this.incoherent = this.createTable();
+	}
+	
+	/**
+	* Looks up if the coherence of a mapping can be derived from the stored results. If the
+	* mapping is known to be incoherent, the witness can be retrieved by {@link #getWitness()}.
+	* 
+	* @param mapping The mapping to be checked.
+	* @return True if the mapping is known to be coherent, false if it is known to be incoherent,
+	* and null if nothing is known.
+	*/
+	public Boolean isCoherent(Mapping mapping) {
+		return this.isCoherent(null, mapping);
+	}
+	
+	/**
+	* Looks up if the coherence of a mapping together with an attached mapping can be derived from
+	* the stored results.
+	* 
+	* @param attachment The attached mapping, null if nothing is attached.
+	* @param mapping The mapping to be checked.
+	* @return True if the mapping is known to be coherent, false if it is known to be incoherent,
+	* and null if nothing is known.
+	* @see #isCoherent(Mapping)
+	*/
+	public Boolean isCoherent(Attachment attachment, Mapping mapping) {
+		BitKey key = this.getKey(attachment, mapping);
+		if (this.findCoherentSuperset(key)) {
+			this.hits++;
+			return Boolean.TRUE;
+		}
+		if (this.findIncoherentSubset(key, null, false)) {
+			this.hits++;
+			return Boolean.FALSE;
+		}
+		this.misses++;
+		return null;
+	}
+	
+	/**
+	* Looks up if the unsatisfiability of a class in the merged ontology can be derived from the
+	* stored results.
+	* 
+	* @param mapping The mapping to be checked.
+	* @param unsatisfiableClass The class that is checked.
+	* @return True if the class is known to be unsatisfiable, false if it is known to be satisfiable,
+	* and null if nothing is known.
+	*/
+	public Boolean isUnsatisfiable(Mapping mapping, OWLClass unsatisfiableClass) {
+		return this.isUnsatisfiable(null, mapping, unsatisfiableClass);
+	}
+	
+	/**
+	* Looks up if the unsatisfiability of a class in the merged ontology with an attached mapping
+	* can be derived from the stored results.
+	* 
+	* @param attachment The attached mapping, null if nothing is attached.
+	* @param mapping The mapping to be checked.
+	* @param unsatisfiableClass The class that is checked.
+	* @return True if the class is known to be unsatisfiable, false if it is known to be satisfiable,
+	* and null if nothing is known.
+	*/
+	public Boolean isUnsatisfiable(Attachment attachment, Mapping mapping, OWLClass unsatisfiableClass) {
+		BitKey key = this.getKey(attachment, mapping);
+		if (this.findCoherentSuperset(key)) {
+			this.hits++;
+			return Boolean.FALSE;
+		}
+		if (this.findIncoherentSubset(key, unsatisfiableClass, true)) {
+			this.hits++;
+			return Boolean.TRUE;
+		}
+		this.misses++;
+		return null;
+	}
+	
+	/**
+	* Returns the witness of the last lookup that found an incoherent subset.
+	* 
+	* @return The unsatisfiable class, or null if the merged ontology was inconsistent.
+	*/
+	public OWLClass getWitness() {
+		return this.lastWitness;
+	}
+	
+	/**
+	* Stores a mapping that has been checked to be coherent. Stored subsets of the mapping
+	* are removed, as they are no longer required.
+	* 
+	* @param mapping The coherent mapping.
+	*/
+	public void storeCoherent(Mapping mapping) {
+		this.storeCoherent(null, mapping);
+	}
+	
+	/**
+	* Stores a mapping that has been checked to be coherent together with an attached mapping.
+	* 
+	* @param attachment The attached mapping, null if nothing is attached.
+	* @param mapping The coherent mapping.
+	*/
+	public void storeCoherent(Attachment attachment, Mapping mapping) {
+		BitKey key = this.getKey(attachment, mapping);
+		Iterator<BitKey> iterator = this.coherent.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isSubsetOf(key)) { iterator.remove(); }
+		}
+		this.coherent.put(key, key);
+	}
+	
+	/**
+	* Stores a mapping that has been checked to be incoherent. Stored supersets of the mapping
+	* with the same witness are removed, as they are no longer required.
+	* 
+	* @param mapping The incoherent mapping.
+	* @param witness The class that is unsatisfiable, null if the merged ontology is inconsistent.
+	*/
+	public void storeIncoherent(Mapping mapping, OWLClass witness) {
+		this.storeIncoherent(null, mapping, witness);
+	}
+	
+	/**
+	* Stores a mapping that has been checked to be incoherent together with an attached mapping.
+	* 
+	* @param attachment The attached mapping, null if nothing is attached.
+	* @param mapping The incoherent mapping.
+	* @param witness The class that is unsatisfiable, null if the merged ontology is inconsistent.
+	*/
+	public void storeIncoherent(Attachment attachment, Mapping mapping, OWLClass witness) {
+		BitKey key = this.getKey(attachment, mapping);
+		Iterator<Map.Entry<BitKey, OWLClass>> iterator = this.incoherent.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<BitKey, OWLClass> entry = iterator.next();
+			if (key.isSubsetOf(entry.getKey()) && isSameWitness(witness, entry.getValue())) { iterator.remove(); }
+		}
+		this.incoherent.put(key, witness);
+	}
+	
+	/**
+	* Creates an empty attachment whose correspondences are indexed by this cache.
+	* 
+	* @return The attachment.
+	*/
+	public Attachment createAttachment() {
+		return new Attachment();
+	}
+	
+	/**
+	* Removes all stored results. The statistics are not affected.
+	*/
+	public void clear() {
+		this.coherent.clear();
+		this.incoherent.clear();
+	}
+	
+	/**
+	* @return The number of lookups that have been answered by the cache.
+	*/
+	public int getHits() {
+		return this.hits;
+	}
+	
+	/**
+	* @return The number of lookups that could not be answered by the cache.
+	*/
+	public int getMisses() {
+		return this.misses;
+	}
+	
+	public String toString() {
+		return "hits=" + this.hits + " misses=" + this.misses + " coherent=" + this.coherent.size() + " incoherent=" + this.incoherent.size();
+	}
+	
+	// **********************************
+	//     private playground
+	// **********************************
+	
+	private <V> LinkedHashMap<BitKey, V> createTable() {
+		// access order is used to evict the least recently used entry
+		return new LinkedHashMap<BitKey, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<BitKey, V> eldest) {
+				return this.size() > CoherenceCache.this.capacity;
+			}
+		};
+	}
+	
+	private boolean findCoherentSuperset(BitKey key) {
+		BitKey found = null;
+		if (this.coherent.containsKey(key)) {
+			found = key;
+		}
+		else {
+			for (BitKey stored : this.coherent.keySet()) {
+				if (key.isSubsetOf(stored)) {
+					found = stored;
+					break;
+				}
+			}
+		}
+		if (found == null) { return false; }
+		// touch the entry after iterating, a lookup in access order modifies the table
+		this.coherent.get(found);
+		return true;
+	}
+	
+	private boolean findIncoherentSubset(BitKey key, OWLClass unsatisfiableClass, boolean matchWitness) {
+		BitKey found = null;
+		for (Map.Entry<BitKey, OWLClass> entry : this.incoherent.entrySet()) {
+			if (matchWitness && entry.getValue() != null && !entry.getValue().equals(unsatisfiableClass)) { continue; }
+			if (entry.getKey().isSubsetOf(key)) {
+				found = entry.getKey();
+				break;
+			}
+		}
+		if (found == null) { return false; }
+		this.lastWitness = this.incoherent.get(found);
+		return true;
+	}
+	
+	private BitKey getKey(Attachment attachment, Mapping mapping) {
+		int maxIndex = -1;
+		int[] positions = new int[mapping.size()];
+		for (int i = 0; i < mapping.size(); i++) {
+			positions[i] = this.getIndex(mapping.get(i));
+			maxIndex = Math.max(maxIndex, positions[i]);
+		}
+		int numOfWords = (maxIndex >> 6) + 1;
+		if (attachment != null) { numOfWords = Math.max(numOfWords, attachment.words.length); }
+		long[] words = new long[numOfWords];
+		if (attachment != null) { System.arraycopy(attachment.words, 0, words, 0, attachment.words.length); }
+		for (int index : positions) {
+			words[index >> 6] |= 1L << (index & 63);
+		}
+		return new BitKey(words);
+	}
+	
+	private int getIndex(Correspondence c) {
+		Integer index = this.indices.get(c);
+		if (index == null) {
+			index = this.indices.size();
+			this.indices.put(c, index);
+		}
+		return index;
+	}
+	
+	private static boolean isSameWitness(OWLClass c1, OWLClass c2) {
+		return (c1 == null) ? c2 == null : c1.equals(c2);
+	}
+	
+	/**
+	* A mapping that is attached permanently to a merged ontology, e.g., the validated mapping of
+	* the greedy algorithm. It is stored as bitset over the indices of the cache that created it,
+	* thus, it can only be used with this cache. Correspondences are never removed, instead, a new
+	* attachment has to be created.
+	*/
+	public class Attachment {
+		
+		private long[] words = new long[0];
+		
+		private Attachment() { }
+		
+		/**
+		* Adds a correspondence to the attached mapping.
+		* 
+		* @param c The correspondence.
+		*/
+		public void add(Correspondence c) {
+			int index = CoherenceCache.this.getIndex(c);
+			if ((index >> 6) >= this.words.length) {
+				this.words = Arrays.copyOf(this.words, Math.max((index >> 6) + 1, 2 * this.words.length));
+			}
+			this.words[index >> 6] |= 1L << (index & 63);
+		}
+	}
+	
+	/**
+	* An immutable bitset over correspondence indices. The highest word is always non-zero
+	* unless the set is empty.
+	*/
+	private static class BitKey {
+		
+		private long[] words;
+		private int hashCode;
+		
+		BitKey(long[] words) {
+			int length = words.length;
+			while (length > 0 && words[length - 1] == 0L) { length--; }
+			this.words = (length == words.length) ? words : Arrays.copyOf(words, length);
+			this.hashCode = Arrays.hashCode(this.words);
+		}
+		
+		boolean isSubsetOf(BitKey that) {
+			if (this.words.length > that.words.length) { return false; }
+			for (int w = 0; w < this.words.length; w++) {
+				if ((this.words[w] & ~that.words[w]) != 0L) { return false; }
+			}
+			return true;
+		}
+		
+		public boolean equals(Object object) {
+			if (!(object instanceof BitKey)) { return false; }
+			return Arrays.equals(this.words, ((BitKey)object).words);
+		}
+		
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+}
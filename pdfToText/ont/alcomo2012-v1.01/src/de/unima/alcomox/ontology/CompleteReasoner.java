@@ -30,26 +30,47 @@ import org.semanticweb.owlapi.apibinding.*;
 import org.semanticweb.owlapi.model.*;
 
 import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
 import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.exceptions.OntologyException;
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
 * This class represents a complete reasoner for conflict detection in mappings.
 * It is complete for  correspondences connecting classes with classes and object properties
 * with object properties. For data properties what is meant by completeness is explained in some paper.
+* 
+* If {@link Settings#INCREMENTAL_REASONING} is activated, one reasoner is kept alive over all checks and
+* only the differences between the mapping axioms of subsequent checks are passed to the reasoner.
+* Instead of classifying the merged ontology after each change, the satisfiability of each class is tested.
+* Call {@link #dispose()} if the reasoner is no longer required.
+* 
+* The results of the checks are stored in a {@link CoherenceCache} of size {@link Settings#COHERENCE_CACHE_SIZE},
+* which answers checks of subsets of coherent and supersets of incoherent mappings without reasoning.
+* The cache can be shared between reasoners over the same ontologies by {@link #setCoherenceCache(CoherenceCache)}.
 */
 public class CompleteReasoner extends AlcomoReasoner {
 
 	private MergedOntology mergedOntology;
 	private Set<OWLAxiom> attachedValidatedAxioms;
+	private Set<Correspondence> attachedValidatedCorrespondences;
 	
 	private OWLClass lastUnsatisfiableClass = null;
+	
+	private CoherenceCache coherenceCache = null;
+	// the attached validated mapping indexed by the coherence cache, null if caching is deactivated
+	private CoherenceCache.Attachment attachment = null;
+	
+	// the start of the current reasoning session, a complete reasoner is used by one thread only
+	private long reasoningStart;
 
 	/**
 	* Constructs an reasoner for complete conflict detection. 
@@ -62,7 +83,12 @@ public class CompleteReasoner extends AlcomoReasoner {
 	public CompleteReasoner(LocalOntology sourceOntology, LocalOntology targetOntology, ExtractionProblem extractionProblem) throws AlcomoException {
 		super(sourceOntology, targetOntology, extractionProblem);
 		this.attachedValidatedAxioms = new HashSet<OWLAxiom>();
+		this.attachedValidatedCorrespondences = new HashSet<Correspondence>();
 		this.mergedOntology = this.getMergedOntology();
+		if (Settings.COHERENCE_CACHE_SIZE > 0) {
+			this.coherenceCache = new CoherenceCache(Settings.COHERENCE_CACHE_SIZE);
+			this.attachment = this.coherenceCache.createAttachment();
+		}
 	}
 	
 	/**
@@ -73,12 +99,19 @@ public class CompleteReasoner extends AlcomoReasoner {
 	* @throws AlcomoException Thrown if the merging if the ontologies fails.
 	*/
 	public boolean isConflictSet(Mapping mapping) throws AlcomoException {
+		if (this.coherenceCache != null) {
+			Boolean coherent = this.coherenceCache.isCoherent(this.attachment, mapping);
+			if (coherent != null) {
+				if (!coherent) { this.setLastUnsatisfiableClass(this.coherenceCache.getWitness()); }
+				return !coherent;
+			}
+		}
 		boolean isConflictSet = false;
+		OWLClass witness = null;
 		Set<OWLAxiom> mappingAxioms = this.mergedOntology.toAxioms(mapping);
-		this.mergedOntology.addAxioms(mappingAxioms);
 		try {
-			this.mergedOntology.initReasoner();
-			Set<OWLClass> mergedUnsatisfiableClasses = this.mergedOntology.getUnsatisfiableClasses();
+			this.prepareReasoning(mappingAxioms, true);
+			Set<OWLClass> mergedUnsatisfiableClasses = this.getMergedUnsatisfiableClasses();
 			Set<OWLClass> sourceUnsatisfiableClasses = this.sourceOntology.getUnsatisfiableClasses();
 			Set<OWLClass> targetUnsatisfiableClasses = this.targetOntology.getUnsatisfiableClasses();
 			mergedUnsatisfiableClasses.removeAll(sourceUnsatisfiableClasses);
@@ -86,7 +119,7 @@ public class CompleteReasoner extends AlcomoReasoner {
 			isConflictSet = mergedUnsatisfiableClasses.size() > 0;
 			for (OWLClass c : mergedUnsatisfiableClasses) {
 				this.setLastUnsatisfiableClass(c);
-				
+				witness = c;
 				break;
 			}
 		}
@@ -94,19 +127,36 @@ public class CompleteReasoner extends AlcomoReasoner {
 			System.out.println("Inconsistent thing " + e);
 			isConflictSet = true;
 		}
-		finally { this.mergedOntology.freeReasoner(); }
-		this.mergedOntology.removeAxioms(mappingAxioms);
+		finally { this.finishReasoning(mappingAxioms); }
+		if (this.coherenceCache != null) {
+			if (isConflictSet) { this.coherenceCache.storeIncoherent(this.attachment, mapping, witness); }
+			else { this.coherenceCache.storeCoherent(this.attachment, mapping); }
+		}
 		return isConflictSet;
 	}
 	
+	/**
+	* Computes a minimal subset of a conflicting mapping that causes the unsatisfiability of the class that
+	* has been detected by the previous call of {@link #isConflictSet(Mapping)}. The strategy is chosen
+	* by {@link ExtractionProblem#setConflictSearch(int)}.
+	* 
+	* @param mapping The conflicting mapping, usually the mapping of the previous conflict check.
+	* @return A minimal conflict set.
+	* @throws OntologyException Thrown if no unsatisfiable class has been detected previously.
+	*/
 	public Mapping getConflictSet(Mapping mapping) throws OntologyException {
-		Mapping tempMapping = mapping.getCopy();
 		if (this.getLastUnsatisfiableClass() == null) {
 			throw new OntologyException(
 				OntologyException.REASONING_ERROR,
 				"can only search for conflict set if previously an unsatisfiable class has been detected"
 			);
 		}
+		if (this.extractionProblem.getConflictSearch() == ExtractionProblem.CONFLICT_SEARCH_QUICKXPLAIN) {
+			Mapping conflict = new Mapping(this.quickXplain(new ArrayList<Correspondence>(), false, mapping.getCorrespondences(), this.getLastUnsatisfiableClass()));
+			this.storeConflictSet(conflict);
+			return conflict;
+		}
+		Mapping tempMapping = mapping.getCopy();
 		for (int i = mapping.size() - 1; i >= 0; i--)  {
 			Correspondence c = tempMapping.remove(i);
 			// System.out.println(tempMapping);
@@ -115,7 +165,7 @@ public class CompleteReasoner extends AlcomoReasoner {
 			}
 		}
 		// System.out.println();
-		this.setLastUnsatisfiableClass(null);
+		this.storeConflictSet(tempMapping);
 		//System.out.println("CONFLICT: " + tempMapping);
 		return tempMapping;	
 	}
@@ -131,15 +181,13 @@ public class CompleteReasoner extends AlcomoReasoner {
 	public Set<OWLClass> getUnsatisfiableClasses(Mapping mapping) throws AlcomoException {
 		Set<OWLClass> unsatisfiableClasses = null;
 		Set<OWLAxiom> mappingAxioms = this.mergedOntology.toAxioms(mapping);
-		this.mergedOntology.addAxioms(mappingAxioms);
 		try {
-			this.mergedOntology.initReasoner();
-			unsatisfiableClasses = this.mergedOntology.getUnsatisfiableClasses();
+			this.prepareReasoning(mappingAxioms, true);
+			unsatisfiableClasses = this.getMergedUnsatisfiableClasses();
 		}
 		finally {
-			this.mergedOntology.freeReasoner();
+			this.finishReasoning(mappingAxioms);
 		}
-		this.mergedOntology.removeAxioms(mappingAxioms);
 		return unsatisfiableClasses;
 	}
 	
@@ -185,8 +233,14 @@ public class CompleteReasoner extends AlcomoReasoner {
 	*/
 	public void attachValidatedMapping(Mapping mapping) throws OntologyException {
 		Set<OWLAxiom> validatedAxioms = this.mergedOntology.toAxioms(mapping);
-		this.mergedOntology.addAxioms(validatedAxioms);
+		// axioms of the previous check might be part of the validated mapping, they have to be kept
+		this.mergedOntology.addPermanentAxioms(validatedAxioms);
 		this.attachedValidatedAxioms.addAll(validatedAxioms);
+		for (Correspondence c : mapping) {
+			this.attachedValidatedCorrespondences.add(c);
+			// the results of the cache refer to all correspondences in the merged ontology
+			if (this.attachment != null) { this.attachment.add(c); }
+		}
 	}
 	
 	/**
@@ -196,8 +250,51 @@ public class CompleteReasoner extends AlcomoReasoner {
 	*/
 	public void resetValidatedMapping() throws OntologyException {
 		this.mergedOntology.removeAxioms(this.attachedValidatedAxioms);
+		this.attachedValidatedCorrespondences.clear();
+		if (this.coherenceCache != null) { this.attachment = this.coherenceCache.createAttachment(); }
 	}	
 	
+	/**
+	* Frees the reasoner kept alive for incremental reasoning and removes the mapping axioms of
+	* the last check from the merged ontology.
+	* 
+	* @throws OntologyException
+	*/
+	public void dispose() throws OntologyException {
+		if (Settings.INCREMENTAL_REASONING) {
+			this.log.infoS("disposing reasoner after " + this.mergedOntology.getNumOfSessionUpdates() + " incremental updates");
+		}
+		if (this.coherenceCache != null) {
+			this.log.infoS("coherence cache: " + this.coherenceCache);
+		}
+		this.mergedOntology.closeReasoningSession();
+	}
+	
+	/**
+	* Returns the cache of complete reasoning results, which informs about the number of checks
+	* that have been answered without reasoning.
+	* 
+	* @return The cache or null, if caching is deactivated.
+	*/
+	public CoherenceCache getCoherenceCache() {
+		return this.coherenceCache;
+	}
+	
+	/**
+	* Sets the cache of complete reasoning results, e.g., to share the cache of another reasoner over
+	* the same source and target ontology.
+	* 
+	* @param coherenceCache The cache or null, to deactivate caching.
+	*/
+	public void setCoherenceCache(CoherenceCache coherenceCache) {
+		this.coherenceCache = coherenceCache;
+		this.attachment = null;
+		if (coherenceCache != null) {
+			this.attachment = coherenceCache.createAttachment();
+			for (Correspondence c : this.attachedValidatedCorrespondences) { this.attachment.add(c); }
+		}
+	}
+	
 	
 	// **********************************
 	//     private playground
@@ -267,22 +364,92 @@ public class CompleteReasoner extends AlcomoReasoner {
 	}
 	
 	private boolean isConflict(Mapping mapping, OWLClass lastUnsatisfiableClass) throws OntologyException {
+		if (this.coherenceCache != null) {
+			Boolean unsatisfiable = this.coherenceCache.isUnsatisfiable(this.attachment, mapping, lastUnsatisfiableClass);
+			if (unsatisfiable != null) { return unsatisfiable; }
+		}
 		boolean isConflictSet = false;
+		boolean inconsistent = false;
 		Set<OWLAxiom> mappingAxioms = this.mergedOntology.toAxioms(mapping);
-		this.mergedOntology.addAxioms(mappingAxioms);
 		try {
-			this.mergedOntology.initReasonerWithoutClassification();
+			this.prepareReasoning(mappingAxioms, false);
 			if (this.mergedOntology.isUnsatisfiable(lastUnsatisfiableClass)) {
 				isConflictSet = true;
 			}
 		}
 		catch(InconsistentOntologyException e) {
 			isConflictSet = true;
+			inconsistent = true;
+		}
+		finally { this.finishReasoning(mappingAxioms); }
+		if (this.coherenceCache != null && isConflictSet) {
+			this.coherenceCache.storeIncoherent(this.attachment, mapping, inconsistent ? null : lastUnsatisfiableClass);
 		}
-		finally { this.mergedOntology.freeReasoner(); }
-		this.mergedOntology.removeAxioms(mappingAxioms);
 		return isConflictSet;
 	}
+	
+	private void prepareReasoning(Set<OWLAxiom> mappingAxioms, boolean classify) throws OntologyException {
+		this.reasoningStart = ExtractionMetrics.startTimer();
+		if (Settings.INCREMENTAL_REASONING) {
+			this.mergedOntology.updateReasoningSession(mappingAxioms);
+		}
+		else {
+			this.mergedOntology.addAxioms(mappingAxioms);
+			if (classify) { this.mergedOntology.initReasoner(); }
+			else { this.mergedOntology.initReasonerWithoutClassification(); }
+		}
+	}
+	
+	private Set<OWLClass> getMergedUnsatisfiableClasses() {
+		if (Settings.INCREMENTAL_REASONING) {
+			return this.mergedOntology.getUnsatisfiableClassesWithoutClassification();
+		}
+		return this.mergedOntology.getUnsatisfiableClasses();
+	}
+	
+	private void finishReasoning(Set<OWLAxiom> mappingAxioms) throws OntologyException {
+		// the axioms are kept until the next check of the session
+		if (!Settings.INCREMENTAL_REASONING) {
+			this.mergedOntology.freeReasoner();
+			this.mergedOntology.removeAxioms(mappingAxioms);
+		}
+		this.metrics.stopTimer(ExtractionMetrics.Phase.COMPLETE_REASONING, this.reasoningStart);
+	}
+
+	/**
+	* QuickXplain: the background is known to be conflict free, unless it has been extended
+	* since the last check. Returns a minimal subset of the candidates that together with the
+	* background makes the given class unsatisfiable.
+	*/
+	private ArrayList<Correspondence> quickXplain(ArrayList<Correspondence> background, boolean backgroundExtended, List<Correspondence> candidates, OWLClass unsatisfiableClass) throws OntologyException {
+		if (backgroundExtended && this.isConflict(new Mapping(background), unsatisfiableClass)) {
+			return new ArrayList<Correspondence>();
+		}
+		if (candidates.isEmpty()) {
+			return new ArrayList<Correspondence>();
+		}
+		if (candidates.size() == 1) {
+			return new ArrayList<Correspondence>(candidates);
+		}
+		int split = candidates.size() / 2;
+		List<Correspondence> firstHalf = candidates.subList(0, split);
+		List<Correspondence> secondHalf = candidates.subList(split, candidates.size());
+		ArrayList<Correspondence> extended = new ArrayList<Correspondence>(background);
+		extended.addAll(firstHalf);
+		ArrayList<Correspondence> secondConflict = this.quickXplain(extended, true, secondHalf, unsatisfiableClass);
+		extended = new ArrayList<Correspondence>(background);
+		extended.addAll(secondConflict);
+		ArrayList<Correspondence> firstConflict = this.quickXplain(extended, !secondConflict.isEmpty(), firstHalf, unsatisfiableClass);
+		firstConflict.addAll(secondConflict);
+		return firstConflict;
+	}
+
+	private void storeConflictSet(Mapping conflictSet) {
+		if (this.coherenceCache != null) {
+			this.coherenceCache.storeIncoherent(this.attachment, conflictSet, this.getLastUnsatisfiableClass());
+		}
+		this.setLastUnsatisfiableClass(null);
+	}
 
 	private void setLastUnsatisfiableClass(OWLClass c) {
 		this.lastUnsatisfiableClass = c;
@@ -0,0 +1,245 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+
+/**
+* An index over the correspondences of a mapping that generates for each correspondence those
+* correspondences that might be in conflict with it due to efficient reasoning. Each propagation
+* pattern of the {@link EfficientReasoner} requires that the source entities or the target entities
+* of both correspondences are in a subsumption or disjointness relation. The index uses the interval
+* encoding of the {@link TaxonomyIndex} to find these pairs by range queries over the sorted concept ids.
+* Thus, most of the pairs of a large mapping are never generated. If one of the one-to-one settings
+* is active, correspondences that share an entity are candidates, too.
+* 
+* The candidates are a superset of the conflicting pairs, i.e., each pair that is detected by
+* {@link EfficientReasoner#isConflictPair(Correspondence, Correspondence)} is a pair of candidates.
+*/
+public class ConflictCandidateIndex {
+	
+	private int size;
+	
+	// the candidates of correspondence i are stored in partners[offsets[i]] to partners[offsets[i+1] - 1]
+	private int[] offsets;
+	private int[] partners;
+	
+	// the unordered candidate pairs collected while building the index
+	private long[] pairs;
+	private int numOfPairs;
+	
+	/**
+	* Constructs the candidate index for a mapping.
+	* 
+	* @param sourceIndex The taxonomy index of the source ontology.
+	* @param targetIndex The taxonomy index of the target ontology.
+	* @param mapping The mapping, the index refers to the positions of its correspondences.
+	*/
+	ConflictCandidateIndex(TaxonomyIndex sourceIndex, TaxonomyIndex targetIndex, Mapping mapping) {
+		this.size = mapping.size();
+		this.pairs = new long[Math.max(16, mapping.size())];
+		this.numOfPairs = 0;
+		this.addHierarchyPairs(sourceIndex, mapping, true);
+		this.addHierarchyPairs(targetIndex, mapping, false);
+		if (Settings.ONE_TO_ONE || Settings.ONE_TO_MANY || Settings.MANY_TO_ONE) {
+			this.addSharedEntityPairs(mapping);
+		}
+		this.buildAdjacency();
+		this.pairs = null;
+	}
+	
+	/**
+	* Returns the positions of all correspondences that might be in conflict with the
+	* correspondence at the given position.
+	* 
+	* @param index The position of a correspondence in the mapping.
+	* @return The positions of the candidates, sorted ascending.
+	*/
+	public int[] getCandidates(int index) {
+		return Arrays.copyOfRange(this.partners, this.offsets[index], this.offsets[index + 1]);
+	}
+	
+	/**
+	* Returns the number of candidates of the correspondence at the given position.
+	* 
+	* @param index The position of a correspondence in the mapping.
+	* @return The number of candidates.
+	*/
+	public int getNumOfCandidates(int index) {
+		return this.offsets[index + 1] - this.offsets[index];
+	}
+	
+	/**
+	* Returns the number of unordered candidate pairs. Compare this to n * (n - 1) / 2
+	* to see how many pairs are pruned.
+	* 
+	* @return The number of candidate pairs.
+	*/
+	public long getNumOfCandidatePairs() {
+		return this.partners.length / 2;
+	}
+	
+	/**
+	* @return The number of correspondences in the indexed mapping.
+	*/
+	public int size() {
+		return this.size;
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private void addHierarchyPairs(TaxonomyIndex taxonomy, Mapping mapping, boolean sourceSide) {
+		// the ids of the concepts that are checked in the patterns for each correspondence
+		ArrayList<ArrayList<Integer>> anchors = new ArrayList<ArrayList<Integer>>();
+		int numOfAnchors = 0;
+		for (Correspondence c : mapping) {
+			Entity entity = sourceSide ? c.getSourceEntity() : c.getTargetEntity();
+			ArrayList<Integer> entityAnchors = this.getAnchors(taxonomy, entity);
+			anchors.add(entityAnchors);
+			numOfAnchors += entityAnchors.size();
+		}
+		// all anchors sorted by their id in the interval tree
+		long[] sortedAnchors = new long[numOfAnchors];
+		int a = 0;
+		for (int i = 0; i < anchors.size(); i++) {
+			for (int anchor : anchors.get(i)) {
+				sortedAnchors[a++] = ((long)anchor << 32) | i;
+			}
+		}
+		Arrays.sort(sortedAnchors);
+		// each correspondence finds its sub classes and disjoint classes by a range query,
+		// super classes are found the other way round
+		for (int i = 0; i < anchors.size(); i++) {
+			for (int anchor : anchors.get(i)) {
+				this.addRangePairs(i, taxonomy.getSubBounds(anchor), sortedAnchors);
+				this.addRangePairs(i, taxonomy.getDisBounds(anchor), sortedAnchors);
+			}
+		}
+	}
+	
+	private void addRangePairs(int i, int[] bounds, long[] sortedAnchors) {
+		for (int b = 0; b < bounds.length; b += 2) {
+			int pos = Arrays.binarySearch(sortedAnchors, (long)bounds[b] << 32);
+			if (pos < 0) { pos = -pos - 1; }
+			while (pos < sortedAnchors.length && (int)(sortedAnchors[pos] >>> 32) <= bounds[b + 1]) {
+				int j = (int)sortedAnchors[pos];
+				if (i != j) { this.addPair(i, j); }
+				pos++;
+			}
+		}
+	}
+	
+	private ArrayList<Integer> getAnchors(TaxonomyIndex taxonomy, Entity entity) {
+		ArrayList<Integer> anchors = new ArrayList<Integer>(2);
+		this.addAnchor(taxonomy, entity.getConcept(), anchors);
+		this.addAnchor(taxonomy, entity.getDomain(), anchors);
+		if (Settings.PROPERTY_RANGE_EXTENSION) {
+			this.addAnchor(taxonomy, entity.getRange(), anchors);
+		}
+		return anchors;
+	}
+	
+	private void addAnchor(TaxonomyIndex taxonomy, OWLClass c, ArrayList<Integer> anchors) {
+		if (c == null) { return; }
+		// unsatisfiable classes are not part of the tree, patterns never fire for them
+		int id = taxonomy.getId(c);
+		if (id >= 0 && !anchors.contains(id)) { anchors.add(id); }
+	}
+	
+	private void addSharedEntityPairs(Mapping mapping) {
+		HashMap<String, List<Integer>> bySource = new HashMap<String, List<Integer>>();
+		HashMap<String, List<Integer>> byTarget = new HashMap<String, List<Integer>>();
+		for (int i = 0; i < mapping.size(); i++) {
+			this.addToGroup(bySource, mapping.get(i).getSourceEntityUri(), i);
+			this.addToGroup(byTarget, mapping.get(i).getTargetEntityUri(), i);
+		}
+		this.addGroupPairs(bySource);
+		this.addGroupPairs(byTarget);
+	}
+	
+	private void addToGroup(HashMap<String, List<Integer>> groups, String uri, int i) {
+		List<Integer> group = groups.get(uri);
+		if (group == null) {
+			group = new ArrayList<Integer>(1);
+			groups.put(uri, group);
+		}
+		group.add(i);
+	}
+	
+	private void addGroupPairs(HashMap<String, List<Integer>> groups) {
+		for (List<Integer> group : groups.values()) {
+			for (int x = 0; x < group.size(); x++) {
+				for (int y = x + 1; y < group.size(); y++) {
+					this.addPair(group.get(x), group.get(y));
+				}
+			}
+		}
+	}
+	
+	private void addPair(int i, int j) {
+		if (this.numOfPairs == this.pairs.length) {
+			this.pairs = Arrays.copyOf(this.pairs, 2 * this.pairs.length);
+		}
+		this.pairs[this.numOfPairs++] = (i < j) ? ((long)i << 32) | j : ((long)j << 32) | i;
+	}
+	
+	private void buildAdjacency() {
+		Arrays.sort(this.pairs, 0, this.numOfPairs);
+		// remove duplicates
+		int unique = 0;
+		for (int p = 0; p < this.numOfPairs; p++) {
+			if (unique == 0 || this.pairs[unique - 1] != this.pairs[p]) {
+				this.pairs[unique++] = this.pairs[p];
+			}
+		}
+		this.offsets = new int[this.size + 1];
+		for (int p = 0; p < unique; p++) {
+			this.offsets[(int)(this.pairs[p] >>> 32) + 1]++;
+			this.offsets[(int)this.pairs[p] + 1]++;
+		}
+		for (int i = 0; i < this.size; i++) {
+			this.offsets[i + 1] += this.offsets[i];
+		}
+		this.partners = new int[2 * unique];
+		int[] next = Arrays.copyOf(this.offsets, this.size);
+		// the pairs are sorted, thus the candidates of each correspondence are sorted, too
+		for (int p = 0; p < unique; p++) {
+			int i = (int)(this.pairs[p] >>> 32);
+			int j = (int)this.pairs[p];
+			this.partners[next[i]++] = j;
+			this.partners[next[j]++] = i;
+		}
+	}
+
+}
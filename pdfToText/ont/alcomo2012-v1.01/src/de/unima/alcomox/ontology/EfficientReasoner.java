@@ -33,6 +33,7 @@ import de.unima.alcomox.exceptions.CorrespondenceException;
 import de.unima.alcomox.mapping.Correspondence;
 import de.unima.alcomox.mapping.Mapping;
 import de.unima.alcomox.mapping.SemanticRelation;
+import de.unima.alcomox.util.ExtractionMetrics;
 
 /**
 * This class represents a reasoner for efficient pairwise but incomplete conflict detection. 
@@ -77,6 +78,22 @@ public class EfficientReasoner extends AlcomoReasoner {
 		return false;
 	}
 	
+	/**
+	* Checks whether a candidate is in conflict with one of the correspondences of an index. Other than
+	* {@link #conflictsWithMapping(Correspondence, Mapping)} only those correspondences are checked that
+	* might be in conflict with the candidate.
+	* 
+	* @param candidate The candidate correspondence.
+	* @param index The index of the correspondences the candidate is checked against.
+	* @return True if the candidate is in conflict with an indexed correspondence.
+	*/
+	public boolean conflictsWithIndex(Correspondence candidate, ActiveConflictIndex index) {
+		for (Correspondence c : index.getCandidates(candidate)) {		
+			if (this.isConflictPair(c, candidate)) { return true; }
+		}
+		return false;
+	}
+	
 	public boolean isConflictSet(Mapping mapping) {
 		for (int i = 0; i < mapping.size(); i++) {
 			for (int j = i + 1; j < mapping.size(); j++) {
@@ -98,6 +115,7 @@ public class EfficientReasoner extends AlcomoReasoner {
 	* conflict cannot be detected.
 	*/
 	public boolean isConflictPair(Correspondence c1, Correspondence c2) {
+		this.metrics.increment(ExtractionMetrics.Counter.CONFLICT_PAIR_CHECKS);
 		Entity s1 = c1.getSourceEntity();
 		Entity s2 = c2.getSourceEntity();
 		Entity t1 = c1.getTargetEntity();
@@ -173,6 +191,44 @@ public class EfficientReasoner extends AlcomoReasoner {
 		return false;
 	}
 	
+	/**
+	* Checks whether {@link #isConflictPair(Correspondence, Correspondence)} can be called by several threads
+	* at the same time. This is the case if both ontologies have a taxonomy index, because then
+	* no call to the underlying blackbox reasoner is required.
+	* 
+	* @return True if pairwise conflicts can be checked concurrently, false otherwise.
+	*/
+	public boolean supportsConcurrentChecks() {
+		if (TEST_INTERVALTREE_MODE) { return false; }
+		return this.hasTaxonomyIndices();
+	}
+	
+	/**
+	* Returns an index that generates for each correspondence of a mapping those correspondences
+	* that might be in conflict with it. Pairs that are not generated by the index are never
+	* in conflict, thus they do not have to be checked at all.
+	* 
+	* @param mapping The mapping to be indexed.
+	* @return The index or null, if one of the ontologies has no taxonomy index.
+	*/
+	public ConflictCandidateIndex getCandidateIndex(Mapping mapping) {
+		if (TEST_INTERVALTREE_MODE) { return null; }
+		if (!this.hasTaxonomyIndices()) { return null; }
+		return new ConflictCandidateIndex(this.sourceOntology.getTaxonomyIndex(), this.targetOntology.getTaxonomyIndex(), mapping);
+	}
+	
+	/**
+	* Creates an empty index that can be used to check candidates against a growing mapping
+	* by {@link #conflictsWithIndex(Correspondence, ActiveConflictIndex)}.
+	* 
+	* @return The index or null, if one of the ontologies has no taxonomy index.
+	*/
+	public ActiveConflictIndex createActiveConflictIndex() {
+		if (TEST_INTERVALTREE_MODE) { return null; }
+		if (!this.hasTaxonomyIndices()) { return null; }
+		return new ActiveConflictIndex(this.sourceOntology.getTaxonomyIndex(), this.targetOntology.getTaxonomyIndex());
+	}
+	
 	/**
 	* Estimates the conflict sensitivity by drawing a sample of randomly generated correspondences.
 	* 
@@ -195,6 +251,10 @@ public class EfficientReasoner extends AlcomoReasoner {
 	//     private playground
 	// **********************************
 	
+	private boolean hasTaxonomyIndices() {
+		return (this.sourceOntology.getTaxonomyIndex() != null) && (this.targetOntology.getTaxonomyIndex() != null);
+	}
+	
 	private Correspondence createRandomEquivCorrespondence() throws CorrespondenceException {
 		Entity sourceEntity = this.sourceOntology.getRandomEntity();
 		Entity targetEntity = this.targetOntology.getRandomEntity(sourceEntity.isConcept());
@@ -309,11 +369,11 @@ public class EfficientReasoner extends AlcomoReasoner {
 	private boolean checkAtomicSubsumptionPattern(OWLClass sc1, OWLClass sc2, OWLClass tc1, OWLClass tc2, LocalOntology sourceOnt, LocalOntology targetOnt) {
 		if (TEST_INTERVALTREE_MODE) return  checkAtomicSubsumptionPatternXXX(sc1, sc2, tc1, tc2, sourceOnt, targetOnt);
 		// uses interval based methods
-		if (sourceOnt instanceof IOntology && targetOnt instanceof IOntology) {
-			IOntology sourceIOnt = (IOntology)sourceOnt;
-			IOntology targetIOnt = (IOntology)targetOnt;
-			if (sourceIOnt.isISubClassOfClass(sc1, sc2)) {
-				if (targetIOnt.hasICommonSubDisjointClass(tc1, tc2)) {
+		TaxonomyIndex sourceIndex = sourceOnt.getTaxonomyIndex();
+		TaxonomyIndex targetIndex = targetOnt.getTaxonomyIndex();
+		if (sourceIndex != null && targetIndex != null) {
+			if (sourceIndex.isSubClassOf(sc1, sc2)) {
+				if (targetIndex.hasCommonSubDisjointClass(tc1, tc2)) {
 					return true;
 				}	
 			}
@@ -336,11 +396,11 @@ public class EfficientReasoner extends AlcomoReasoner {
 	private boolean checkAtomicDisjointnessPattern(OWLClass sc1, OWLClass sc2, OWLClass tc1, OWLClass tc2, LocalOntology sourceOnt, LocalOntology targetOnt) {
 		if (TEST_INTERVALTREE_MODE) return  checkAtomicDisjointnessPatternXXX(sc1, sc2, tc1, tc2, sourceOnt, targetOnt);
 		// uses interval based representation for reasoning requests
-		if (sourceOnt instanceof IOntology && targetOnt instanceof IOntology) {
-			IOntology sourceIOnt = (IOntology)sourceOnt;
-			IOntology targetIOnt = (IOntology)targetOnt;
-			if (sourceIOnt.isIDisjointClassWithClass(sc1, sc2)) {
-				if (targetIOnt.hasICommonSubClass(tc1, tc2)) {
+		TaxonomyIndex sourceIndex = sourceOnt.getTaxonomyIndex();
+		TaxonomyIndex targetIndex = targetOnt.getTaxonomyIndex();
+		if (sourceIndex != null && targetIndex != null) {
+			if (sourceIndex.isDisjointWith(sc1, sc2)) {
+				if (targetIndex.hasCommonSubClass(tc1, tc2)) {
 					return true;
 				}
 			}
@@ -371,10 +431,10 @@ public class EfficientReasoner extends AlcomoReasoner {
 		boolean intervalResult = false;
 		boolean standardResult = false;
 		String differentConcept = null;
-		IOntology sourceIOnt = (IOntology)sourceOnt;
-		IOntology targetIOnt = (IOntology)targetOnt;
-		if (sourceIOnt.isISubClassOfClass(sc1, sc2)) {
-			if (targetIOnt.hasICommonSubDisjointClass(tc1, tc2)) {
+		TaxonomyIndex sourceIndex = sourceOnt.getTaxonomyIndex();
+		TaxonomyIndex targetIndex = targetOnt.getTaxonomyIndex();
+		if (sourceIndex.isSubClassOf(sc1, sc2)) {
+			if (targetIndex.hasCommonSubDisjointClass(tc1, tc2)) {
 				intervalResult = true;
 			}
 			
@@ -401,10 +461,10 @@ public class EfficientReasoner extends AlcomoReasoner {
 		boolean intervalResult = false;
 		boolean standardResult = false;
 		String differentConcept = null;
-		IOntology sourceIOnt = (IOntology)sourceOnt;
-		IOntology targetIOnt = (IOntology)targetOnt;
-		if (sourceIOnt.isIDisjointClassWithClass(sc1, sc2)) {
-			if (targetIOnt.hasICommonSubClass(tc1, tc2)) {
+		TaxonomyIndex sourceIndex = sourceOnt.getTaxonomyIndex();
+		TaxonomyIndex targetIndex = targetOnt.getTaxonomyIndex();
+		if (sourceIndex.isDisjointWith(sc1, sc2)) {
+			if (targetIndex.hasCommonSubClass(tc1, tc2)) {
 				intervalResult = true;
 			}
 		}
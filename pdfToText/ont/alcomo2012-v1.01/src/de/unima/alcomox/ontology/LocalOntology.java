@@ -25,6 +25,7 @@
 package de.unima.alcomox.ontology;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -40,6 +41,7 @@ import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 
 
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.util.OWLEntityRemover;
 import org.semanticweb.owlapi.vocab.XSDVocabulary;
 
@@ -51,6 +53,7 @@ import de.unima.alcomox.ontology.extowlapi.NominalAxiomDetector;
 import de.unima.alcomox.ontology.extowlapi.NominalAxiomTranscriber;
 import de.unima.alcomox.util.AlcomoLogger;
 import de.unima.alcomox.util.DataStorage;
+import de.unima.alcomox.util.ExtractionMetrics;
 import de.unima.alcomox.util.Tools;
 
 
@@ -87,6 +90,19 @@ public class LocalOntology extends AlcomoOntology {
 	protected int myOntId;
 	
 	private Set<OWLClass> unsatisfiableClasses;
+	
+	// the interval tree, only used while building the taxonomy index
+	private HashMap<OWLClass, IConcept> hashedIConcepts;
+	private HashMap<Integer, IConcept> hashedByIdIConcepts;
+	// ids of the interval encoding, each ontology has its own ids as intervals of different ontologies are never compared
+	private int traversalCounter = 1;
+	
+	private TaxonomyIndex taxonomyIndex = null;
+	
+	// the file the ontology has been loaded from, null if loaded from an url
+	private File ontologyFile = null;
+	// true if the classification has been restored from a snapshot and the reasoner has not been created yet
+	private boolean classifyOnDemand = false;
 
 	
 	/**
@@ -115,6 +131,7 @@ public class LocalOntology extends AlcomoOntology {
 		}
 		else {
 			physicalURI = ontologyFile.toURI();
+			this.ontologyFile = ontologyFile;
 		}
 		
 		try {
@@ -275,9 +292,28 @@ public class LocalOntology extends AlcomoOntology {
 		else if (Settings.BLACKBOX_REASONER == Settings.BlackBoxReasoner.HERMIT){
 			reasonerDesc = "Hermit";
 		}
-		this.log.infoS("classify (with " + reasonerDesc + ")");
-		this.initReasoner();	
-		this.computeUnsatisfiableClasses();	
+		String snapshotKey = this.getSnapshotKey();
+		ClassificationSnapshot snapshot = this.readSnapshot(snapshotKey);
+		if (snapshot != null) {
+			// the reasoner is not required for the pattern based reasoning, it is created when queried directly
+			this.log.infoS("restored classification from snapshot " + snapshotKey);
+			this.unsatisfiableClasses.addAll(snapshot.getUnsatisfiableClasses());
+			this.taxonomyIndex = snapshot.getTaxonomyIndex();
+			this.classifyOnDemand = true;
+		}
+		else {
+			this.log.infoS("classify (with " + reasonerDesc + ")");
+			long start = ExtractionMetrics.startTimer();
+			this.initReasoner();	
+			this.computeUnsatisfiableClasses();	
+			extractionProblem.getMetrics().stopTimer(ExtractionMetrics.Phase.CLASSIFICATION, start);
+			extractionProblem.getMetrics().increment(ExtractionMetrics.Counter.CLASSIFICATIONS);
+			if (this.usesTaxonomyIndex()) {
+				AlcomoLogger.takeTime("init interval tree I");
+				this.buildIntervalTree();
+				this.writeSnapshot(snapshotKey);
+			}
+		}
 		this.log.infoS("... done (init)");
 		this.initialized = true;
 	
@@ -396,6 +432,55 @@ public class LocalOntology extends AlcomoOntology {
 		return this.unsatisfiableClasses.contains(c);
 	}
 	
+	/**
+	* Returns all unsatisfiable classes in this ontology. After {@link #init(ExtractionProblem)} the 
+	* classes computed during initialization are returned without asking the reasoner again. Thus,
+	* an initialized ontology can be shared by extraction problems that are solved concurrently.
+	* 
+	* @return The set of all unsatisfiable classes (except NOTHING).
+	*/
+	public Set<OWLClass> getUnsatisfiableClasses() {
+		if (!this.initialized) { return super.getUnsatisfiableClasses(); }
+		return new HashSet<OWLClass>(this.unsatisfiableClasses);
+	}
+	
+	/**
+	* Returns the reasoner of this ontology. If the classification has been restored from a snapshot, 
+	* the reasoner is created and the ontology is classified when this method is called the first time.
+	* 
+	* @return The reasoner of this ontology.
+	*/
+	protected synchronized OWLReasoner getReasoner() {
+		if (this.classifyOnDemand) {
+			this.classifyOnDemand = false;
+			this.log.infoS("classify " + this.toShortString() + " on demand");
+			try { this.initReasoner(); }
+			catch (OntologyException e) {
+				throw new IllegalStateException("could not classify " + this.toShortString() + " on demand", e);
+			}
+		}
+		return this.reasoner;
+	}
+	
+	/**
+	* Returns the taxonomy index that is built from the classification by {@link #init(ExtractionProblem)}.
+	* If available, the pattern based reasoning uses the index instead of the reasoner.
+	* 
+	* @return The taxonomy index, or null if the ontology has not been initialized or the index is deactivated.
+	*/
+	public TaxonomyIndex getTaxonomyIndex() {
+		return this.taxonomyIndex;
+	}
+	
+	/**
+	* Determines whether {@link #init(ExtractionProblem)} builds the taxonomy index.
+	* 
+	* @return The value of {@link Settings#TAXONOMY_INDEX}.
+	*/
+	protected boolean usesTaxonomyIndex() {
+		return Settings.TAXONOMY_INDEX;
+	}
+	
 	// **************************
 	// *** PRIVATE PLAYGROUND ***
 	// **************************	
@@ -498,6 +583,103 @@ public class LocalOntology extends AlcomoOntology {
 		return dataType;
 	}	
 	
+	/**
+	* Computes the key of the classification snapshot of this ontology.
+	* 
+	* @return The key, or null if snapshots are deactivated or not supported for this ontology.
+	*/
+	private String getSnapshotKey() {
+		if (Settings.SNAPSHOT_DIRECTORY == null || this.ontologyFile == null || !this.usesTaxonomyIndex()) {
+			return null;
+		}
+		try {
+			return ClassificationSnapshot.computeKey(this.ontologyFile, this.extractionProblem.getParam(ExtractionProblem.ENTITIES));
+		}
+		catch (IOException e) {
+			this.log.warnS("could not compute snapshot key for " + this.ontologyFile + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private ClassificationSnapshot readSnapshot(String snapshotKey) {
+		if (snapshotKey == null) { return null; }
+		File snapshotFile = ClassificationSnapshot.getFile(Settings.SNAPSHOT_DIRECTORY, snapshotKey);
+		if (!snapshotFile.exists()) { return null; }
+		ClassificationSnapshot snapshot;
+		try {
+			snapshot = ClassificationSnapshot.read(snapshotFile, this.factory, this.traversalCounter);
+		}
+		catch (IOException e) {
+			this.log.warnS("could not read snapshot " + snapshotFile + ": " + e.getMessage());
+			return null;
+		}
+		// the entities are created from the ontology in any case, they have to match the snapshot
+		HashMap<OWLClass, OWLClass> renaming = this.getSnapshotRenaming(snapshot);
+		if (renaming == null) {
+			this.log.warnS("snapshot " + snapshotFile + " does not match the entities of " + this.toShortString() + ", ignored");
+			return null;
+		}
+		snapshot.renameClasses(renaming);
+		TaxonomyIndex index = snapshot.getTaxonomyIndex();
+		if (index.size() > 0) { this.traversalCounter = index.getMaxId() + 1; }
+		return snapshot;
+	}
+	
+	/**
+	* Matches the entities of a snapshot against the entities of this ontology. 
+	* 
+	* @param snapshot The snapshot.
+	* @return Maps the domain and range classes of the snapshot to those of this ontology, or null if
+	* the snapshot refers to other entities.
+	*/
+	private HashMap<OWLClass, OWLClass> getSnapshotRenaming(ClassificationSnapshot snapshot) {
+		if (!(new HashSet<String>(snapshot.getConceptUris()).equals(new HashSet<String>(this.indexedConceptEntityUris)))) {
+			return null;
+		}
+		if (snapshot.getPropertyUris().size() != this.indexedPropertyEntityUris.size()) { return null; }
+		HashMap<OWLClass, OWLClass> renaming = new HashMap<OWLClass, OWLClass>();
+		for (int i = 0; i < snapshot.getPropertyUris().size(); i++) {
+			Entity property = this.entities.get(snapshot.getPropertyUris().get(i));
+			if (property == null) { return null; }
+			OWLClass domain = this.factory.getOWLClass(IRI.create(snapshot.getDomainUris().get(i)));
+			if (!domain.equals(property.getDomain())) { renaming.put(domain, property.getDomain()); }
+			String rangeUri = snapshot.getRangeUris().get(i);
+			if ((rangeUri.length() == 0) != (property.getRange() == null)) { return null; }
+			if (property.getRange() != null) {
+				OWLClass range = this.factory.getOWLClass(IRI.create(rangeUri));
+				if (!range.equals(property.getRange())) { renaming.put(range, property.getRange()); }
+			}
+		}
+		return renaming;
+	}
+	
+	private void writeSnapshot(String snapshotKey) {
+		if (snapshotKey == null) { return; }
+		File snapshotFile = ClassificationSnapshot.getFile(Settings.SNAPSHOT_DIRECTORY, snapshotKey);
+		ArrayList<String> domainUris = new ArrayList<String>();
+		ArrayList<String> rangeUris = new ArrayList<String>();
+		for (String propertyUri : this.indexedPropertyEntityUris) {
+			Entity property = this.entities.get(propertyUri);
+			domainUris.add(property.getDomain().getIRI().toString());
+			rangeUris.add((property.getRange() == null) ? "" : property.getRange().getIRI().toString());
+		}
+		ClassificationSnapshot snapshot = new ClassificationSnapshot(
+				this.taxonomyIndex,
+				this.unsatisfiableClasses,
+				this.indexedConceptEntityUris,
+				this.indexedPropertyEntityUris,
+				domainUris,
+				rangeUris
+		);
+		try {
+			snapshot.write(snapshotFile);
+			this.log.infoS("stored classification snapshot " + snapshotKey);
+		}
+		catch (IOException e) {
+			this.log.warnS("could not write snapshot " + snapshotFile + ": " + e.getMessage());
+		}
+	}
+	
 	private void computeUnsatisfiableClasses() throws OntologyException {
 		Set<OWLClass> unsatisfiableClasses = this.getUnsatisfiableClasses();
 		if (unsatisfiableClasses.size() > 0) {
@@ -510,6 +692,304 @@ public class LocalOntology extends AlcomoOntology {
 		}
 	}
 	
+	/**
+	 * Inits the representation as an interval tree for simple subsumption.
+	 */
+	public void intitIntervalTree() throws OntologyException {
+		
+		this.initReasoner();
+		this.buildIntervalTree();
+	}
+	
+	/**
+	* Builds the interval tree based on the classification of the current reasoner
+	* and packs it into the taxonomy index.
+	*/
+	private void buildIntervalTree() {
+		this.hashedIConcepts = new HashMap<OWLClass, IConcept>();
+		this.hashedByIdIConcepts = new HashMap<Integer, IConcept>();
+		// System.out.println("building interval tree ...");
+		this.buildTree(this.THING, null);
+		IConcept root = this.hashedIConcepts.get(this.THING);
+		this.extendByStatedDisjointness();
+		this.extendTreeByDerivedDisjointness(root);
+		this.extendTreeByUnionOfDisjointness();
+		this.extendTreeByDerivedDisjointness(root);
+		this.refineTree();
+		// root.displaySubtree(0);
+		this.taxonomyIndex = new TaxonomyIndex(this.hashedIConcepts);
+		// the tree is no longer required, all queries are answered by the compact index
+		this.hashedIConcepts = null;
+		this.hashedByIdIConcepts = null;
+		// System.out.println("... building interval tree finished!");		
+	}
+	
+
+
+	/**
+	* Builds up a subsumption tree starting at a given concept.
+	* Iterates via depth first search through the subsumption tree.
+	* 
+	* @param concept The concept that is the root of the tree. 
+	* @param concept The super concept of the concept.  
+	*/
+	private IConcept buildTree(OWLClass concept, OWLClass superConcept) {
+		IConcept ic = null;
+		IConcept superIc = null;
+		if (this.NOTHING.equals(concept)) return null;
+		if (superConcept != null) superIc = this.hashedIConcepts.get(superConcept);
+		// default case: graph is a tree
+		if (!this.hashedIConcepts.containsKey(concept)) {
+			ic = new IConcept(concept, this.traversalCounter);
+			this.hashedIConcepts.put(concept, ic);
+			this.hashedByIdIConcepts.put(ic.getId(), ic);
+			ic.openInterval(this.traversalCounter);
+			setParentChildRelation(ic, superIc);
+			this.traversalCounter++;
+			Set<OWLClass> subConcepts = this.reasoner.getSubClasses(concept, true).getFlattened();
+			for (OWLClass subConcept : subConcepts) { 
+				IConcept conceptMH = this.buildTree(subConcept, concept);
+				// if there is a return value, this refer to a cycle that has
+				// been blocked in previous step, subclass interval is directly added
+				if (conceptMH != null) ic.addSubIntervals(conceptMH.getSubIntervals());
+				for (IConcept child : ic.getChildren()) {
+					if (child.getSubIntervals().size() > 1) {
+						ic.addSubIntervals(child.getSubIntervals());
+					}
+				}
+			}
+			// now index also each equivalent class by letting it refer to the same index
+			Set<OWLClass> equivConcepts = this.reasoner.getEquivalentClasses(concept).getEntities();
+			for (OWLClass equivConcept : equivConcepts) {
+				if (!equivConcept.equals(concept)) {
+					this.hashedIConcepts.put(equivConcept, ic);
+				}
+			}
+			ic.closeInterval(this.traversalCounter - 1);
+			// in the case of a "pure tree" null is returned
+			return null;
+		}
+		// exceptional case: graph is not a tree
+		// a concept has more than one parent
+		else {
+			ic = this.hashedIConcepts.get(concept);
+			setParentChildRelation(ic, superIc);
+			// stop the recursion here
+			return ic;
+		}
+
+	}
+	
+	/**
+	* Extends the tree by adding all stated disjointness intervals.
+	*/
+	private void extendByStatedDisjointness() {
+		// variant that uses no reasoner at all
+		// taking care of disjointness axioms
+		Set<OWLDisjointClassesAxiom> disAxioms = this.ontology.getAxioms(AxiomType.DISJOINT_CLASSES);
+		// System.out.println("number of disjointness axioms before: " + disAxioms.size());
+		// taking care of disjointness in disjoint union axioms
+		Set<OWLDisjointUnionAxiom> disUAxioms = this.ontology.getAxioms(AxiomType.DISJOINT_UNION);
+		for (OWLDisjointUnionAxiom disUAxiom : disUAxioms) {
+			disAxioms.add(disUAxiom.getOWLDisjointClassesAxiom());
+		}
+		// now add for each disjoint pair the subinterval of the other class as disjoint interval
+		for (OWLDisjointClassesAxiom disAxiom : disAxioms) {
+			Set<OWLClassExpression> conceptExpressions = disAxiom.getClassExpressions();
+			for (OWLClassExpression conceptEx1 : conceptExpressions) {
+				for (OWLClassExpression conceptEx2 : conceptExpressions) {
+					// do not add disjointness for something and itself
+					if (conceptEx1.equals(conceptEx2)) continue;
+					extendByStatedDisjointness(conceptEx1, conceptEx2);
+				}
+			}
+		}
+	}
+	
+	/**
+	* Extends the tree by adding all disjointness information that follows from expanding
+	* axioms with unionOf statements.
+	* 
+	*/
+	private void extendTreeByUnionOfDisjointness() {
+		Set<OWLAxiom> axioms = this.ontology.getAxioms();
+		// collecting all object union description
+		Set<OWLObjectUnionOf> objectUnionExpressions = new HashSet<OWLObjectUnionOf>();
+		for (OWLAxiom axiom : axioms) {
+			Set<OWLClassExpression> expressions = axiom.getNestedClassExpressions();
+			for (OWLClassExpression expression : expressions) {
+				if (expression instanceof OWLObjectUnionOf) {
+					objectUnionExpressions.add((OWLObjectUnionOf)expression);
+				}
+			}
+		}
+		// transfer in sets of owl classes and do the disjointness extension
+		for (OWLObjectUnionOf unionOf : objectUnionExpressions) {
+			Set<OWLClass> unionOfClassSet = new HashSet<OWLClass>();
+			Set<OWLClassExpression> unionOfExpressionSet = unionOf.asDisjunctSet();
+			// first check if each involved entity is named class
+			boolean containsNonClass = false;
+			for (OWLClassExpression unionOfExpression : unionOfExpressionSet) {
+				if (unionOfExpression instanceof OWLClass) {
+					unionOfClassSet.add((OWLClass)unionOfExpression);
+				}
+				else {
+					containsNonClass = true;
+					break;
+					
+				}
+			}
+			// if each involved class is a named class
+			if (!containsNonClass) {
+				ArrayList<Interval> intersectionIntervals = null;
+				//System.out.println(">>> detected unionof that consist of only OWLClasses:");
+				for (OWLClass unionOfClass : unionOfClassSet) {
+					// System.out.println(">>> >>> " +  unionOfClass);
+					IConcept unionOfIConcept = this.hashedIConcepts.get(unionOfClass);
+					if (intersectionIntervals == null) {
+						intersectionIntervals = new ArrayList<Interval>();
+						intersectionIntervals.addAll(unionOfIConcept.getDisIntervals());
+					}
+					else {
+						reduceToIntersection(intersectionIntervals, unionOfIConcept.getDisIntervals());
+					}
+				}				
+				if (intersectionIntervals != null) {
+					/*
+					for (Interval interval : intersectionIntervals) {
+						System.out.println(">>> >>> interval ::: " + interval);
+					}
+					*/
+					Set<OWLClass> subclasses = this.reasoner.getSubClasses(unionOf, true).getFlattened();
+					// add disjointness information too each subclass
+					for (OWLClass subclass : subclasses) {
+						// System.out.println(">>>  adding to " +  subclass +  " " + intersectionIntervals.size() + " disjoint intervalls");
+						
+						IConcept iconcept = this.hashedIConcepts.get(subclass);
+						iconcept.addDisIntervals(intersectionIntervals);
+					}
+					// add disjointess information to each class specifeid by the id in the disjointness intervals
+					for (Interval interval : intersectionIntervals) {
+						int id = interval.getId();
+						IConcept iconcept = this.hashedByIdIConcepts.get(id);
+						if (iconcept != null) {
+							for (OWLClass subclass : subclasses) {
+								IConcept disiconcept = this.hashedIConcepts.get(subclass);
+								iconcept.addDisIntervals(disiconcept.getSubIntervals());
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+
+	
+	
+	
+	/**
+	* 
+	* @param conceptEx1
+	* @param conceptEx2
+	*/
+	private void extendByStatedDisjointness(OWLClassExpression conceptEx1, OWLClassExpression conceptEx2) {
+		//System.out.println();
+		if (!(conceptEx1 instanceof OWLClass)) {
+			// System.out.println("XXX " + conceptEx1 );
+			Set<OWLClass> subclasses = this.reasoner.getSubClasses(conceptEx1, true).getFlattened();
+			subclasses.addAll(this.reasoner.getEquivalentClasses(conceptEx1).getEntities());
+			for (OWLClass subclass : subclasses) {
+				this.extendByStatedDisjointness(subclass, conceptEx2);
+			}
+			return;
+		}
+		if (!(conceptEx2 instanceof OWLClass)) {
+			Set<OWLClass> subclasses = this.reasoner.getSubClasses(conceptEx2, true).getFlattened();
+			subclasses.addAll(this.reasoner.getEquivalentClasses(conceptEx2).getEntities());
+			for (OWLClass subclass : subclasses) {
+				this.extendByStatedDisjointness(conceptEx1, subclass);
+			}
+			return;
+		}
+		OWLClass casted1 = (OWLClass)conceptEx1;
+		OWLClass casted2 = (OWLClass)conceptEx2;
+		if (casted1.equals(casted2)) return;
+		IConcept icasted1 = this.hashedIConcepts.get(casted1);
+		IConcept icasted2 = this.hashedIConcepts.get(casted2);
+		if (icasted1 != null && icasted2 != null) {
+			icasted1.addDisIntervals(icasted2.getSubIntervals());
+		}
+	}
+	
+	
+	private void refineTree() {
+		for (IConcept iconcept : this.hashedIConcepts.values()) {
+			iconcept.refine();
+		}
+		
+	}
+	
+	/**
+	* Extends stated disjointness statement of a tree specified by iconcept as root
+	* by the disjointness that can be derived from stated disjointness and
+	* subsumption hierarchy. Makes a recursive call to all children.
+	* 
+	* @param iconcept The root of the tree.
+	*/
+	private void extendTreeByDerivedDisjointness(IConcept iconcept) {
+		// System.out.println("scanning " + iconcept);
+		for(IConcept child : iconcept.getChildren()) {
+			if (child == null) continue;
+			child.addDisIntervals(iconcept.getDisIntervals());
+			this.extendTreeByDerivedDisjointness(child);
+		}
+	}	
+	
+	/**
+	 * Simply helper methods that established the relations between child and parent
+	 * in case that the parent is not null. Take care that the method is never called
+	 * if the child is null.
+	 *  
+	 */
+	private void setParentChildRelation(IConcept ic, IConcept superIc) {
+		if (superIc != null) {
+			superIc.addChild(ic);
+			ic.addParent(superIc);
+		}
+	}
+	
+	
+	/**
+	* Removes from the core list all intervals that are not in the some list.
+	*  
+	* @param core The ArrayList that is replaced 
+	* @param some
+	* @return
+	*/
+	private static void reduceToIntersection(ArrayList<Interval> core, ArrayList<Interval> some) {
+		for (int i = 0; i < core.size(); i++) {
+			boolean remove = true;
+			for (int j = 0; j < some.size(); j++) {
+				if (core.get(i).equals(some.get(j))) {
+					remove = false;
+					continue;
+				}
+				else if (some.get(j).contains(core.get(i))) {
+					remove = false;
+					continue;
+				}
+				else if (core.get(i).contains(some.get(j))) {
+					core.add(some.get(j));
+				}
+			}
+			if (remove) {
+				core.remove(i);
+				i--;
+			}
+		}
+	}
+	
 	public int getNextExtId() {
 		this.extCounter++;
 		return this.extCounter;
@@ -31,8 +31,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.mindswap.pellet.PelletOptions;
 import org.semanticweb.owlapi.model.*;
 
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.Settings.BlackBoxReasoner;
 
 import de.unima.alcomox.exceptions.AlcomoException;
 import de.unima.alcomox.exceptions.OntologyException;
@@ -49,6 +52,15 @@ public class MergedOntology extends AlcomoOntology {
 	
 	private HashMap<String, OWLClass> uriToClass;	
 	
+	// mapping axioms added to the ontology by the current reasoning session
+	private Set<OWLAxiom> sessionAxioms = null;
+	private int numOfSessionUpdates = 0;
+	
+	// pellet tracing is a global option, it is activated while at least one session requires it and
+	// afterwards set back to the value it had before the first of these sessions
+	private static int numOfTracingSessions = 0;
+	private static boolean tracingBefore;
+	private boolean tracing = false;
 
 	
 	public MergedOntology(OWLOntology owlOntology, OWLOntologyManager owlManager) throws AlcomoException {
@@ -101,6 +113,102 @@ public class MergedOntology extends AlcomoOntology {
 		}
 	}	
 	
+	/**
+	* Replaces the mapping axioms of the previous call by the given axioms and prepares the reasoner
+	* for queries about the resulting ontology. The ontology is not classified, use
+	* {@link #getUnsatisfiableClassesWithoutClassification()} to detect unsatisfiable classes.
+	* The reasoner is created by the first call and kept alive until the session is closed.
+	* Subsequent calls only add and remove the axioms that differ, these changes are buffered by
+	* the reasoner and applied incrementally if the reasoner supports it, otherwise the reasoner
+	* reloads the ontology. Axioms that are already part of the ontology are neither added nor removed.
+	* 
+	* @param mappingAxioms The mapping axioms to be added to the ontology.
+	* @throws OntologyException Thrown if the ontology cannot be modified.
+	*/
+	public void updateReasoningSession(Set<OWLAxiom> mappingAxioms) throws OntologyException {
+		if (this.sessionAxioms == null) {
+			this.sessionAxioms = new HashSet<OWLAxiom>();
+		}
+		Set<OWLAxiom> removedAxioms = new HashSet<OWLAxiom>(this.sessionAxioms);
+		removedAxioms.removeAll(mappingAxioms);
+		Set<OWLAxiom> addedAxioms = new HashSet<OWLAxiom>();
+		for (OWLAxiom axiom : mappingAxioms) {
+			if (!this.sessionAxioms.contains(axiom) && !this.ontology.containsAxiom(axiom)) {
+				addedAxioms.add(axiom);
+			}
+		}
+		this.removeAxioms(removedAxioms);
+		this.sessionAxioms.removeAll(removedAxioms);
+		this.addAxioms(addedAxioms);
+		this.sessionAxioms.addAll(addedAxioms);
+		if (this.reasoner == null) {
+			// pellet removes axioms without reloading the ontology only if tracing is activated
+			if (Settings.BLACKBOX_REASONER == BlackBoxReasoner.PELLET && !this.tracing) {
+				MergedOntology.acquireTracing();
+				this.tracing = true;
+			}
+			this.initReasonerWithoutClassification();
+		}
+		else {
+			this.reasoner.flush();
+		}
+		this.numOfSessionUpdates++;
+	}
+	
+	/**
+	* Adds axioms that are kept when the mapping axioms of the current reasoning session change or the
+	* session is closed. Axioms that have been added by the session are taken over from it. The reasoner
+	* of the session is informed about the changes by the next update of the session.
+	* 
+	* @param axioms The axioms to be added to the ontology.
+	* @throws OntologyException Thrown if the ontology cannot be modified.
+	*/
+	public void addPermanentAxioms(Set<OWLAxiom> axioms) throws OntologyException {
+		if (this.sessionAxioms != null) {
+			this.sessionAxioms.removeAll(axioms);
+		}
+		this.addAxioms(axioms);
+	}
+	
+	/**
+	* Returns all unsatisfiable classes by testing the satisfiability of each class. Other than
+	* {@link #getUnsatisfiableClasses()} this does not require to classify the ontology, which
+	* is the more expensive way if the ontology changes between two queries.
+	* 
+	* @return The set of all unsatisfiable classes (except NOTHING).
+	*/
+	public Set<OWLClass> getUnsatisfiableClassesWithoutClassification() {
+		Set<OWLClass> unsatisfiableClasses = new HashSet<OWLClass>();
+		for (OWLClass c : this.getClasses()) {
+			if (this.isUnsatisfiable(c)) { unsatisfiableClasses.add(c); }
+		}
+		return unsatisfiableClasses;
+	}
+	
+	/**
+	* Removes the mapping axioms of the current reasoning session and frees the reasoner.
+	* 
+	* @throws OntologyException Thrown if the axioms cannot be removed.
+	*/
+	public void closeReasoningSession() throws OntologyException {
+		if (this.sessionAxioms != null) {
+			this.removeAxioms(this.sessionAxioms);
+			this.sessionAxioms = null;
+		}
+		this.freeReasoner();
+		if (this.tracing) {
+			MergedOntology.releaseTracing();
+			this.tracing = false;
+		}
+	}
+	
+	/**
+	* @return The number of updates of reasoning sessions.
+	*/
+	public int getNumOfSessionUpdates() {
+		return this.numOfSessionUpdates;
+	}
+	
 	public Set<OWLAxiom> toAxioms(Mapping mapping) throws OntologyException {
 		HashSet<OWLAxiom> axioms = new HashSet<OWLAxiom>();
 		for (Correspondence c : mapping) {
@@ -244,5 +352,18 @@ public class MergedOntology extends AlcomoOntology {
 
 		
 	}
+	
+	private static synchronized void acquireTracing() {
+		if (numOfTracingSessions == 0) {
+			tracingBefore = PelletOptions.USE_TRACING;
+			PelletOptions.USE_TRACING = true;
+		}
+		numOfTracingSessions++;
+	}
+	
+	private static synchronized void releaseTracing() {
+		numOfTracingSessions--;
+		if (numOfTracingSessions == 0) { PelletOptions.USE_TRACING = tracingBefore; }
+	}
 
 }
@@ -0,0 +1,131 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.exceptions.PCFException;
+import de.unima.alcomox.util.AlcomoLogger;
+
+/**
+* A registry that loads and classifies each ontology only once, no matter how many extraction problems
+* refer to it. The registered ontologies are initialized when they are loaded and not modified afterwards,
+* thus they can be bound to several extraction problems that are solved concurrently. Note that all
+* problems that share the ontologies of a registry have to use the same value for the parameter 
+* {@link ExtractionProblem#ENTITIES}.
+*/
+public class OntologyRegistry {
+	
+	private AlcomoLogger log;
+	
+	private int entities;
+	private HashMap<String, LocalOntology> ontologies;
+	
+	/**
+	* Constructs an empty registry.
+	* 
+	* @param entities The value of the parameter {@link ExtractionProblem#ENTITIES} that is used to initialize the ontologies.
+	* @throws PCFException Thrown if the value is not valid.
+	*/
+	public OntologyRegistry(int entities) throws PCFException {
+		if ((entities != ExtractionProblem.ENTITIES_ONLYCONCEPTS) && (entities != ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES)) {
+			throw new PCFException(
+					PCFException.INVALID_PARAM,
+					"value " + entities + " is not valid for parameter " + ExtractionProblem.ENTITIES 
+			);
+		}
+		this.log = new AlcomoLogger(this.getClass());
+		this.entities = entities;
+		this.ontologies = new HashMap<String, LocalOntology>();
+	}
+	
+	/**
+	* Returns the ontology stored at the given filepath or URL. The ontology is loaded and initialized,
+	* including its classification, only when it is requested the first time.
+	* 
+	* @param filepathOrUrl The filepath or URL of the ontology.
+	* @return The initialized ontology.
+	* @throws AlcomoException Thrown if the ontology cannot be loaded or initialized.
+	*/
+	public synchronized LocalOntology get(String filepathOrUrl) throws AlcomoException {
+		String key = this.getKey(filepathOrUrl);
+		LocalOntology ontology = this.ontologies.get(key);
+		if (ontology == null) {
+			this.log.infoS("loading and classifying ontology " + filepathOrUrl + " ...");
+			ontology = new LocalOntology(filepathOrUrl);
+			// the parameters of this problem are only used to decide which entities are created
+			ExtractionProblem template = new ExtractionProblem(
+					this.entities,
+					ExtractionProblem.METHOD_GREEDY,
+					ExtractionProblem.REASONING_EFFICIENT
+			);
+			ontology.init(template);
+			this.ontologies.put(key, ontology);
+			this.log.infoS("... done, " + this.ontologies.size() + " ontologies registered");
+		}
+		return ontology;
+	}
+	
+	/**
+	* Checks whether the ontology stored at the given filepath or URL has already been loaded.
+	* 
+	* @param filepathOrUrl The filepath or URL of the ontology.
+	* @return True if the ontology is registered, false otherwise.
+	*/
+	public synchronized boolean contains(String filepathOrUrl) {
+		return this.ontologies.containsKey(this.getKey(filepathOrUrl));
+	}
+	
+	/**
+	* Returns a read only view on the registered ontologies, keyed by their normalized filepath or URL.
+	* 
+	* @return The registered ontologies.
+	*/
+	public synchronized Map<String, LocalOntology> getOntologies() {
+		return Collections.unmodifiableMap(new HashMap<String, LocalOntology>(this.ontologies));
+	}
+	
+	public synchronized int size() {
+		return this.ontologies.size();
+	}
+	
+	public int getEntities() {
+		return this.entities;
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	private String getKey(String filepathOrUrl) {
+		File file = new File(filepathOrUrl);
+		if (file.exists()) { return file.getAbsoluteFile().toURI().normalize().toString(); }
+		return filepathOrUrl;
+	}
+
+}
@@ -0,0 +1,351 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.ontology;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+/**
+* A compact representation of the interval tree of an ontology that answers the subsumption and
+* disjointness queries of the pattern based reasoning without any call to the reasoner.
+* 
+* Each satisfiable class is identified by the int id of its node in the interval tree, equivalent
+* classes share the same id. The sub intervals and the disjointness intervals of all nodes are packed
+* into two int arrays, where the intervals of the node with id i are stored as sorted pairs of lower
+* and upper bound from offsets[i - base] to offsets[i - base + 1] - 1. Thus, membership is
+* checked by a binary search and overlaps are detected by merging two sorted interval lists.
+*/
+public class TaxonomyIndex {
+	
+	private HashMap<OWLClass, Integer> ids;
+	
+	// the smallest id in the tree, ids of different ontologies are not starting at the same value
+	private int base;
+	
+	private int[] subOffsets;
+	private int[] subBounds;
+	private int[] disOffsets;
+	private int[] disBounds;
+	
+	/**
+	* Packs the intervals of an interval tree.
+	* 
+	* @param iconcepts The nodes of the interval tree, indexed by each class they represent.
+	*/
+	TaxonomyIndex(HashMap<OWLClass, IConcept> iconcepts) {
+		this.ids = new HashMap<OWLClass, Integer>();
+		int minId = Integer.MAX_VALUE;
+		int maxId = Integer.MIN_VALUE;
+		for (Map.Entry<OWLClass, IConcept> entry : iconcepts.entrySet()) {
+			int id = entry.getValue().getId();
+			this.ids.put(entry.getKey(), id);
+			minId = Math.min(minId, id);
+			maxId = Math.max(maxId, id);
+		}
+		this.base = minId;
+		int numOfNodes = iconcepts.isEmpty() ? 0 : maxId - minId + 1;
+		IConcept[] nodes = new IConcept[numOfNodes];
+		for (IConcept ic : iconcepts.values()) {
+			nodes[ic.getId() - this.base] = ic;
+		}
+		this.subOffsets = new int[numOfNodes + 1];
+		this.disOffsets = new int[numOfNodes + 1];
+		int numOfSubBounds = 0;
+		int numOfDisBounds = 0;
+		for (int n = 0; n < numOfNodes; n++) {
+			if (nodes[n] != null) {
+				numOfSubBounds += 2 * countClosed(nodes[n].getSubIntervals());
+				numOfDisBounds += 2 * countClosed(nodes[n].getDisIntervals());
+			}
+			this.subOffsets[n + 1] = numOfSubBounds;
+			this.disOffsets[n + 1] = numOfDisBounds;
+		}
+		this.subBounds = new int[numOfSubBounds];
+		this.disBounds = new int[numOfDisBounds];
+		for (int n = 0; n < numOfNodes; n++) {
+			if (nodes[n] == null) { continue; }
+			pack(nodes[n].getSubIntervals(), this.subBounds, this.subOffsets[n]);
+			pack(nodes[n].getDisIntervals(), this.disBounds, this.disOffsets[n]);
+		}
+	}
+	
+	/**
+	* Restores an index from its packed arrays, e.g., when read from a {@link ClassificationSnapshot}.
+	* The arrays are not copied.
+	*/
+	TaxonomyIndex(HashMap<OWLClass, Integer> ids, int base, int[] subOffsets, int[] subBounds, int[] disOffsets, int[] disBounds) {
+		this.ids = ids;
+		this.base = base;
+		this.subOffsets = subOffsets;
+		this.subBounds = subBounds;
+		this.disOffsets = disOffsets;
+		this.disBounds = disBounds;
+	}
+	
+	/**
+	* Returns the id of a class.
+	* 
+	* @param c The class.
+	* @return The id of the class, or -1 if the class is unsatisfiable or unknown.
+	*/
+	public int getId(OWLClass c) {
+		Integer id = this.ids.get(c);
+		return (id == null) ? -1 : id;
+	}
+	
+	/**
+	* @return The smallest id of a node, all ids are in the range from this id to {@link #getMaxId()}.
+	*/
+	public int getMinId() {
+		return this.base;
+	}
+	
+	/**
+	* @return The largest id of a node.
+	*/
+	public int getMaxId() {
+		return this.base + this.subOffsets.length - 2;
+	}
+	
+	/**
+	* @return The number of classes indexed.
+	*/
+	public int size() {
+		return this.ids.size();
+	}
+	
+	public boolean isSubClassOf(OWLClass c1, OWLClass c2) {
+		return this.isSubClassOf(this.getId(c1), this.getId(c2));
+	}
+	
+	public boolean isDisjointWith(OWLClass c1, OWLClass c2) {
+		return this.isDisjointWith(this.getId(c1), this.getId(c2));
+	}
+	
+	public boolean hasCommonSubClass(OWLClass c1, OWLClass c2) {
+		return this.hasCommonSubClass(this.getId(c1), this.getId(c2));
+	}
+	
+	public boolean hasCommonSubDisjointClass(OWLClass c1, OWLClass c2) {
+		return this.hasCommonSubDisjointClass(this.getId(c1), this.getId(c2));
+	}
+	
+	/**
+	* Checks whether the node with id1 is in one of the sub intervals of the node with id2.
+	* 
+	* @param id1 The id of the sub class.
+	* @param id2 The id of the super class.
+	* @return True if the first class is a subclass of the second one.
+	*/
+	public boolean isSubClassOf(int id1, int id2) {
+		if (id1 < 0 || id2 < 0) { return false; }
+		return contains(this.subBounds, this.subOffsets[id2 - this.base], this.subOffsets[id2 - this.base + 1], id1);
+	}
+	
+	/**
+	* Checks whether the node with id2 is in one of the disjointness intervals of the node with id1.
+	* 
+	* @param id1 The id of the first class.
+	* @param id2 The id of the second class.
+	* @return True if both classes are disjoint.
+	*/
+	public boolean isDisjointWith(int id1, int id2) {
+		if (id1 < 0 || id2 < 0) { return false; }
+		return contains(this.disBounds, this.disOffsets[id1 - this.base], this.disOffsets[id1 - this.base + 1], id2);
+	}
+	
+	/**
+	* Checks whether two classes have a common named subclass (except NOTHING).
+	* 
+	* @param id1 The id of the first class.
+	* @param id2 The id of the second class.
+	* @return True if a sub interval of the first class overlaps with a sub interval of the second class.
+	*/
+	public boolean hasCommonSubClass(int id1, int id2) {
+		if (id1 < 0 || id2 < 0) { return false; }
+		return overlaps(
+			this.subBounds, this.subOffsets[id1 - this.base], this.subOffsets[id1 - this.base + 1],
+			this.subBounds, this.subOffsets[id2 - this.base], this.subOffsets[id2 - this.base + 1]
+		);
+	}
+	
+	/**
+	* Checks whether there exists a class that is both a subclass of the first class and
+	* disjoint with the second class.
+	* 
+	* @param id1 The id of the class for which subclasses are implicitly checked.
+	* @param id2 The id of the class for which disjoint classes are implicitly checked.
+	* @return True if a sub interval of the first class overlaps with a disjointness interval of the second class.
+	*/
+	public boolean hasCommonSubDisjointClass(int id1, int id2) {
+		if (id1 < 0 || id2 < 0) { return false; }
+		return overlaps(
+			this.subBounds, this.subOffsets[id1 - this.base], this.subOffsets[id1 - this.base + 1],
+			this.disBounds, this.disOffsets[id2 - this.base], this.disOffsets[id2 - this.base + 1]
+		);
+	}
+	
+	/**
+	* Returns the sub intervals of a node as pairs of lower and upper bounds, sorted by the lower bound.
+	* 
+	* @param id The id of the node.
+	* @return The packed intervals, a copy.
+	*/
+	public int[] getSubBounds(int id) {
+		return copy(this.subBounds, this.subOffsets[id - this.base], this.subOffsets[id - this.base + 1]);
+	}
+	
+	/**
+	* Returns the disjointness intervals of a node as pairs of lower and upper bounds, sorted by the lower bound.
+	* 
+	* @param id The id of the node.
+	* @return The packed intervals, a copy.
+	*/
+	public int[] getDisBounds(int id) {
+		return copy(this.disBounds, this.disOffsets[id - this.base], this.disOffsets[id - this.base + 1]);
+	}
+	
+	// the packed representation, only used for writing snapshots
+	
+	HashMap<OWLClass, Integer> getIds() {
+		return this.ids;
+	}
+	
+	int[] getSubOffsets() {
+		return this.subOffsets;
+	}
+	
+	int[] getSubBounds() {
+		return this.subBounds;
+	}
+	
+	int[] getDisOffsets() {
+		return this.disOffsets;
+	}
+	
+	int[] getDisBounds() {
+		return this.disBounds;
+	}
+	
+	// ******** PRIVATE PLAYGROUND *****
+	
+	private static int countClosed(ArrayList<Interval> intervals) {
+		int counter = 0;
+		for (Interval interval : intervals) {
+			if (interval.isClosed()) { counter++; }
+		}
+		return counter;
+	}
+	
+	private static void pack(ArrayList<Interval> intervals, int[] bounds, int from) {
+		// the intervals have been sorted by the refinement of the tree, nevertheless a nested interval might
+		// still be contained, it does not affect the queries as long as the lower bounds are sorted
+		int b = from;
+		for (Interval interval : intervals) {
+			if (!interval.isClosed()) { continue; }
+			bounds[b++] = interval.getLower();
+			bounds[b++] = interval.getUpper();
+		}
+		sortPairs(bounds, from, b);
+	}
+	
+	private static void sortPairs(int[] bounds, int from, int to) {
+		// insertion sort, the lists are short and usually already sorted
+		for (int i = from + 2; i < to; i += 2) {
+			int lower = bounds[i];
+			int upper = bounds[i + 1];
+			int j = i - 2;
+			while (j >= from && bounds[j] > lower) {
+				bounds[j + 2] = bounds[j];
+				bounds[j + 3] = bounds[j + 1];
+				j -= 2;
+			}
+			bounds[j + 2] = lower;
+			bounds[j + 3] = upper;
+		}
+	}
+	
+	private static boolean contains(int[] bounds, int from, int to, int id) {
+		// search for the last interval with a lower bound not greater than the id
+		int low = 0;
+		int high = (to - from) / 2 - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (bounds[from + 2 * mid] <= id) {
+				found = mid;
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		if (found == -1) { return false; }
+		// an interval might be nested into a previous one, check all candidates to the left
+		for (int i = found; i >= 0; i--) {
+			if (bounds[from + 2 * i + 1] >= id) { return true; }
+		}
+		return false;
+	}
+	
+	private static boolean overlaps(int[] bounds1, int from1, int to1, int[] bounds2, int from2, int to2) {
+		int i = from1;
+		int j = from2;
+		// both lists are sorted by lower bounds, the upper bounds seen so far are kept
+		int maxUpper1 = Integer.MIN_VALUE;
+		int maxUpper2 = Integer.MIN_VALUE;
+		while (i < to1 && j < to2) {
+			if (bounds1[i] <= bounds2[j]) {
+				if (maxUpper2 >= bounds1[i]) { return true; }
+				maxUpper1 = Math.max(maxUpper1, bounds1[i + 1]);
+				i += 2;
+			}
+			else {
+				if (maxUpper1 >= bounds2[j]) { return true; }
+				maxUpper2 = Math.max(maxUpper2, bounds2[j + 1]);
+				j += 2;
+			}
+		}
+		while (i < to1) {
+			if (maxUpper2 >= bounds1[i]) { return true; }
+			i += 2;
+		}
+		while (j < to2) {
+			if (maxUpper1 >= bounds2[j]) { return true; }
+			j += 2;
+		}
+		return false;
+	}
+	
+	private static int[] copy(int[] bounds, int from, int to) {
+		int[] copy = new int[to - from];
+		System.arraycopy(bounds, from, copy, 0, to - from);
+		return copy;
+	}
+
+}
@@ -25,7 +25,6 @@
 package de.unima.alcomox.util;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import org.apache.log4j.Logger;
 
@@ -36,8 +35,17 @@ public class AlcomoLogger {
 	
 	private Logger log;
 	
-	private static ArrayList<String> breakpoints = new ArrayList<String>();
-	private static HashMap<String, Long> timestamps = new HashMap<String, Long>();
+	// each thread has its own breakpoints, thus problems solved concurrently do not interfere
+	private static ThreadLocal<ArrayList<String>> breakpoints = new ThreadLocal<ArrayList<String>>() {
+		protected ArrayList<String> initialValue() {
+			return new ArrayList<String>();
+		}
+	};
+	private static ThreadLocal<ArrayList<Long>> timestamps = new ThreadLocal<ArrayList<Long>>() {
+		protected ArrayList<Long> initialValue() {
+			return new ArrayList<Long>();
+		}
+	};
 	
 	/**
 	* Constructs a wrapper logger for the log4j logger for a certain class.
@@ -113,31 +121,31 @@ public class AlcomoLogger {
 		this.log.warn("[!WARN! " + statement + " !WARN!]\n");
 	}
 	
+	/**
+	* Stores a named point in time for the calling thread. The time between the breakpoints of a thread
+	* is printed by {@link #printTimestamps()}. For structured measurements use {@link ExtractionMetrics}.
+	* 
+	* @param breakpoint The name of the breakpoint.
+	*/
 	public static void takeTime(String breakpoint) {
-		if (breakpoints.contains(breakpoint)) {
-			if (breakpoint.endsWith(" I")) {
-				breakpoint = breakpoint + "I";
-			}
-		}
-		breakpoints.add(breakpoint);
-		timestamps.put(breakpoint, System.currentTimeMillis());
+		breakpoints.get().add(breakpoint);
+		timestamps.get().add(System.currentTimeMillis());
 	}
 	
-	
+	/**
+	* Prints the time between the breakpoints stored by the calling thread.
+	*/
 	public static void printTimestamps() {
-		String first = breakpoints.get(0);
-		String last = breakpoints.get(breakpoints.size() - 1);
-		long firstTimer = timestamps.get(first);
-		long lastTimer = timestamps.get(last);
-		long whole = lastTimer - firstTimer;
+		ArrayList<String> breakpoints = AlcomoLogger.breakpoints.get();
+		ArrayList<Long> timestamps = AlcomoLogger.timestamps.get();
+		if (breakpoints.isEmpty()) { return; }
+		long whole = timestamps.get(timestamps.size() - 1) - timestamps.get(0);
 		
 		
 		for (int i = 0; i < breakpoints.size() - 1; i++) {
 			String current = breakpoints.get(i);
 			String next =  breakpoints.get(i+1);
-			long l1 = timestamps.get(current);
-			long l2 = timestamps.get(next);
-			long l = l2 - l1;
+			long l = timestamps.get(i + 1) - timestamps.get(i);
 			long secs = l / 1000;
 			long millis = l % 1000;
 			System.out.print("(" + i + ") " + current + " -> " + next + " \t" + secs + "." + millis);
@@ -147,8 +155,11 @@ public class AlcomoLogger {
 		}
 	}
 
+	/**
+	* Removes the breakpoints stored by the calling thread.
+	*/
 	public static void resetTimer() {
-		breakpoints.clear();
-		timestamps.clear();	
+		breakpoints.get().clear();
+		timestamps.get().clear();	
 	}
 }
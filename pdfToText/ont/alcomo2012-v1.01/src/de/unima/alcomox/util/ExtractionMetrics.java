@@ -0,0 +1,222 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.unima.alcomox.Settings;
+
+/**
+* Collects the time spent in the phases of solving an extraction problem and counts the operations
+* that dominate this time. Each extraction problem has its own metrics, see 
+* {@link de.unima.alcomox.ExtractionProblem#getMetrics()}, which are updated by the algorithms and
+* reasoners that work on the problem. All methods can be called by several threads at the same time,
+* thus, the metrics can also be read while the problem is being solved.
+* 
+* The phases might be nested, e.g., the complete reasoning is part of the search. If available
+* (Java 11 or later and {@link Settings#JFR_EVENTS} activated), each finished phase and each solved
+* problem is also emitted as Java Flight Recorder event. 
+*/
+public class ExtractionMetrics {
+	
+	/**
+	* The phases for which the time is measured. 
+	*/
+	public enum Phase {
+		/** Initializing the ontologies for the problem, including their classification. */
+		LOAD,
+		/** Classifying an ontology. */
+		CLASSIFICATION,
+		/** Precomputing the conflicts detected by efficient reasoning. */
+		CONFLICT_PRECOMPUTATION,
+		/** Running the algorithm, including the precomputation and the complete reasoning. */
+		SEARCH,
+		/** Checking the merged ontology with complete reasoning. */
+		COMPLETE_REASONING
+	}
+	
+	/**
+	* The operations that are counted.
+	*/
+	public enum Counter {
+		/** Pairs of correspondences checked by efficient reasoning. */
+		CONFLICT_PAIR_CHECKS,
+		/** Classifications of the ontologies. */
+		CLASSIFICATIONS,
+		/** Search nodes whose conflicts have been checked. */
+		NODES_EXPANDED,
+		/** Search nodes that have been stored for expansion. */
+		NODES_GENERATED,
+		/** The maximal number of nodes stored for expansion at the same time (not a sum). */
+		PEAK_QUEUE_SIZE
+	}
+	
+	private AtomicLongArray phaseNanos;
+	private AtomicLongArray phaseCalls;
+	private AtomicLongArray counts;
+	
+	/**
+	* Constructs metrics where all times and counts are zero.
+	*/
+	public ExtractionMetrics() {
+		this.phaseNanos = new AtomicLongArray(Phase.values().length);
+		this.phaseCalls = new AtomicLongArray(Phase.values().length);
+		this.counts = new AtomicLongArray(Counter.values().length);
+	}
+	
+	/**
+	* Returns the current time that has to be passed to {@link #stopTimer(Phase, long)} at the end of a phase.
+	* 
+	* @return The current time in nanoseconds.
+	*/
+	public static long startTimer() {
+		return System.nanoTime();
+	}
+	
+	/**
+	* Adds the time passed since the start of a phase to the time of this phase.
+	* 
+	* @param phase The finished phase.
+	* @param start The start of the phase as returned by {@link #startTimer()}.
+	*/
+	public void stopTimer(Phase phase, long start) {
+		long elapsed = System.nanoTime() - start;
+		this.phaseNanos.addAndGet(phase.ordinal(), elapsed);
+		this.phaseCalls.incrementAndGet(phase.ordinal());
+		if (Settings.JFR_EVENTS && RecorderHolder.RECORDER != null) { RecorderHolder.RECORDER.phaseFinished(phase, elapsed); }
+	}
+	
+	/**
+	* Increments a counter by one.
+	* 
+	* @param counter The counter.
+	*/
+	public void increment(Counter counter) {
+		this.counts.incrementAndGet(counter.ordinal());
+	}
+	
+	/**
+	* Increments a counter.
+	* 
+	* @param counter The counter.
+	* @param delta The value that is added.
+	*/
+	public void add(Counter counter, long delta) {
+		this.counts.addAndGet(counter.ordinal(), delta);
+	}
+	
+	/**
+	* Sets a counter to the given value if this value is higher than the current one.
+	* 
+	* @param counter The counter.
+	* @param value The new candidate for the maximum.
+	*/
+	public void updateMaximum(Counter counter, long value) {
+		int i = counter.ordinal();
+		long current = this.counts.get(i);
+		while (value > current && !this.counts.compareAndSet(i, current, value)) {
+			current = this.counts.get(i);
+		}
+	}
+	
+	/**
+	* @param phase A phase.
+	* @return The time spent in this phase in nanoseconds.
+	*/
+	public long getNanos(Phase phase) {
+		return this.phaseNanos.get(phase.ordinal());
+	}
+	
+	/**
+	* @param phase A phase.
+	* @return The time spent in this phase in milliseconds.
+	*/
+	public long getMillis(Phase phase) {
+		return this.getNanos(phase) / 1000000l;
+	}
+	
+	/**
+	* @param phase A phase.
+	* @return How often this phase has been finished.
+	*/
+	public long getNumOfCalls(Phase phase) {
+		return this.phaseCalls.get(phase.ordinal());
+	}
+	
+	/**
+	* @param counter A counter.
+	* @return The value of the counter.
+	*/
+	public long getCount(Counter counter) {
+		return this.counts.get(counter.ordinal());
+	}
+	
+	/**
+	* Emits a flight recorder event that summarizes the metrics of a solved problem.
+	* 
+	* @param method The value of the parameter {@link de.unima.alcomox.ExtractionProblem#METHOD}.
+	* @param reasoning The value of the parameter {@link de.unima.alcomox.ExtractionProblem#REASONING}.
+	* @param numOfInput The number of correspondences of the input mapping.
+	* @param numOfExtracted The number of correspondences of the extracted mapping.
+	*/
+	public void emitSummary(int method, int reasoning, int numOfInput, int numOfExtracted) {
+		if (Settings.JFR_EVENTS && RecorderHolder.RECORDER != null) { RecorderHolder.RECORDER.problemSolved(this, method, reasoning, numOfInput, numOfExtracted); }
+	}
+	
+	/**
+	* Returns a string representation with one line per phase and one line per counter.
+	* 
+	* @return A string representation.
+	*/
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (Phase phase : Phase.values()) {
+			sb.append(phase.name().toLowerCase() + ": " + this.getMillis(phase) + "ms (" + this.getNumOfCalls(phase) + "x)\n");
+		}
+		for (Counter counter : Counter.values()) {
+			sb.append(counter.name().toLowerCase() + ": " + this.getCount(counter) + "\n");
+		}
+		return sb.toString();
+	}
+	
+	// *** PRIVATE PLAYGROUND ***
+	
+	// the recorder is loaded when the first event is emitted, it is null if flight recorder events are not supported
+	private static class RecorderHolder {
+		
+		static final MetricsRecorder RECORDER = createRecorder();
+		
+		private static MetricsRecorder createRecorder() {
+			// the recorder is not compiled if the flight recorder api is missing
+			try {
+				return (MetricsRecorder)Class.forName("de.unima.alcomox.util.JfrMetricsRecorder").getDeclaredConstructor().newInstance();
+			}
+			catch (Throwable e) {
+				return null;
+			}
+		}
+	}
+
+}
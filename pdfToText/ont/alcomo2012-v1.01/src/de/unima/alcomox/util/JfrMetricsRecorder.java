@@ -0,0 +1,123 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+* Emits the measurements of {@link ExtractionMetrics} as Java Flight Recorder events. This class requires
+* Java 11 or later, it is not compiled by older versions and loaded only if available.
+*/
+class JfrMetricsRecorder implements MetricsRecorder {
+	
+	public void phaseFinished(ExtractionMetrics.Phase phase, long elapsedNanos) {
+		PhaseEvent event = new PhaseEvent();
+		if (!event.shouldCommit()) { return; }
+		event.phase = phase.name();
+		event.elapsed = elapsedNanos;
+		event.commit();
+	}
+	
+	public void problemSolved(ExtractionMetrics metrics, int method, int reasoning, int numOfInput, int numOfExtracted) {
+		ExtractionEvent event = new ExtractionEvent();
+		if (!event.shouldCommit()) { return; }
+		event.method = method;
+		event.reasoning = reasoning;
+		event.numOfInput = numOfInput;
+		event.numOfExtracted = numOfExtracted;
+		event.load = metrics.getNanos(ExtractionMetrics.Phase.LOAD);
+		event.classification = metrics.getNanos(ExtractionMetrics.Phase.CLASSIFICATION);
+		event.conflictPrecomputation = metrics.getNanos(ExtractionMetrics.Phase.CONFLICT_PRECOMPUTATION);
+		event.search = metrics.getNanos(ExtractionMetrics.Phase.SEARCH);
+		event.completeReasoning = metrics.getNanos(ExtractionMetrics.Phase.COMPLETE_REASONING);
+		event.completeReasoningCalls = metrics.getNumOfCalls(ExtractionMetrics.Phase.COMPLETE_REASONING);
+		event.conflictPairChecks = metrics.getCount(ExtractionMetrics.Counter.CONFLICT_PAIR_CHECKS);
+		event.classifications = metrics.getCount(ExtractionMetrics.Counter.CLASSIFICATIONS);
+		event.nodesExpanded = metrics.getCount(ExtractionMetrics.Counter.NODES_EXPANDED);
+		event.nodesGenerated = metrics.getCount(ExtractionMetrics.Counter.NODES_GENERATED);
+		event.peakQueueSize = metrics.getCount(ExtractionMetrics.Counter.PEAK_QUEUE_SIZE);
+		event.commit();
+	}
+	
+	@Name("de.unima.alcomox.Phase")
+	@Label("Alcomo Phase")
+	@Category("Alcomo")
+	@Description("A finished phase of solving an extraction problem")
+	static class PhaseEvent extends Event {
+		@Label("Phase")
+		String phase;
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+	}
+	
+	@Name("de.unima.alcomox.Extraction")
+	@Label("Alcomo Extraction")
+	@Category("Alcomo")
+	@Description("The metrics of a solved extraction problem")
+	static class ExtractionEvent extends Event {
+		@Label("Method")
+		int method;
+		@Label("Reasoning")
+		int reasoning;
+		@Label("Input Correspondences")
+		int numOfInput;
+		@Label("Extracted Correspondences")
+		int numOfExtracted;
+		@Label("Load")
+		@Timespan(Timespan.NANOSECONDS)
+		long load;
+		@Label("Classification")
+		@Timespan(Timespan.NANOSECONDS)
+		long classification;
+		@Label("Conflict Precomputation")
+		@Timespan(Timespan.NANOSECONDS)
+		long conflictPrecomputation;
+		@Label("Search")
+		@Timespan(Timespan.NANOSECONDS)
+		long search;
+		@Label("Complete Reasoning")
+		@Timespan(Timespan.NANOSECONDS)
+		long completeReasoning;
+		@Label("Complete Reasoning Calls")
+		long completeReasoningCalls;
+		@Label("Conflict Pair Checks")
+		long conflictPairChecks;
+		@Label("Classifications")
+		long classifications;
+		@Label("Nodes Expanded")
+		long nodesExpanded;
+		@Label("Nodes Generated")
+		long nodesGenerated;
+		@Label("Peak Queue Size")
+		long peakQueueSize;
+	}
+
+}
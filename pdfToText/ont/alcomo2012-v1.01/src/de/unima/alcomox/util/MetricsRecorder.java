@@ -0,0 +1,51 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.util;
+
+/**
+* Receives the measurements of {@link ExtractionMetrics} as soon as they are taken. 
+*/
+interface MetricsRecorder {
+	
+	/**
+	* Called each time a phase has been finished.
+	* 
+	* @param phase The phase.
+	* @param elapsedNanos The duration of the phase.
+	*/
+	public void phaseFinished(ExtractionMetrics.Phase phase, long elapsedNanos);
+	
+	/**
+	* Called after an extraction problem has been solved.
+	* 
+	* @param metrics The metrics of the problem.
+	* @param method The value of the parameter {@link de.unima.alcomox.ExtractionProblem#METHOD}.
+	* @param reasoning The value of the parameter {@link de.unima.alcomox.ExtractionProblem#REASONING}.
+	* @param numOfInput The number of correspondences of the input mapping.
+	* @param numOfExtracted The number of correspondences of the extracted mapping.
+	*/
+	public void problemSolved(ExtractionMetrics metrics, int method, int reasoning, int numOfInput, int numOfExtracted);
+
+}
@@ -30,9 +30,12 @@ import java.util.Timer;
 import java.util.TimerTask;
 
 /**
+ * @deprecated Will be removed in following AlcomoVersions, an extraction problem can be
+ * stopped by {@link de.unima.alcomox.ExtractionProblem#setDeadline(long)} instead.
  *
  * @author Dominique Ritze
  */
+@Deprecated
 public class ThreadTimer {
 
     private Thread thread;
@@ -0,0 +1,140 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.unima.alcomox.ExtractionProblem;
+import de.unima.alcomox.Settings;
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.ontology.EfficientReasoner;
+import de.unima.alcomox.ontology.IOntology;
+
+/**
+* Compares the optimal extraction with efficient reasoning to a brute force enumeration of all subsets of the
+* conflicting correspondences, with an unbounded queue and with node budgets that are exceeded immediately, such
+* that the search continues as iterative deepening search. Has to be started in the directory that contains the
+* testdata, the alignments are chosen such that they contain between 11 and 17 conflicting correspondences.
+*/
+public class AStarSearchTest {
+	
+	private static final String[] ALIGNMENTS = {
+		"agrmaker-cmt-conference", "agrmaker-edas-ekaw", "agrmaker-conference-ekaw", "aroma-edas-iasted", "aroma-cmt-ekaw"
+	};
+	
+	private static final int[] NODE_BUDGETS = {1, 2, 5};
+	
+	private static final double EPSILON = 0.000001;
+	
+	
+	@Test
+	public void testIterativeDeepening() throws AlcomoException {
+		Settings.BLACKBOX_REASONER = Settings.BlackBoxReasoner.PELLET;
+		for (String alignment : ALIGNMENTS) {
+			String[] names = alignment.split("-");
+			IOntology sourceOnt = new IOntology(this.getOntologyFile(names[1]));
+			IOntology targetOnt = new IOntology(this.getOntologyFile(names[2]));
+			String alignmentFile = "testdata/conference/alignments/" + alignment + ".rdf";
+			
+			ExtractionProblem ep = this.createProblem(sourceOnt, targetOnt, alignmentFile, ExtractionProblem.METHOD_OPTIMAL);
+			Mapping mapping = ep.getReferingInputMapping();
+			ConflictStore conflictStore = new ConflictStore(new EfficientReasoner(sourceOnt, targetOnt, ep), mapping);
+			double trust = this.getBruteForceTrust(mapping, conflictStore);
+			ep.solve();
+			assertEquals(alignment + ", unbounded", trust, this.getTrust(ep), EPSILON);
+			
+			for (int nodeBudget : NODE_BUDGETS) {
+				ExtractionProblem bounded = this.createProblem(sourceOnt, targetOnt, alignmentFile, ExtractionProblem.METHOD_OPTIMAL_BOUNDED);
+				bounded.setNodeBudget(nodeBudget);
+				bounded.solve();
+				assertEquals(alignment + ", node budget " + nodeBudget, trust, this.getTrust(bounded), EPSILON);
+			}
+		}
+	}
+	
+	
+	// ****************************************
+	// ********** PRIVATE PLAYGROUND **********
+	// ****************************************
+	
+	private ExtractionProblem createProblem(IOntology sourceOnt, IOntology targetOnt, String alignmentFile, int method) throws AlcomoException {
+		ExtractionProblem ep = new ExtractionProblem(
+			ExtractionProblem.ENTITIES_CONCEPTSPROPERTIES,
+			method,
+			ExtractionProblem.REASONING_EFFICIENT
+		);
+		ep.bindSourceOntology(sourceOnt);
+		ep.bindTargetOntology(targetOnt);
+		ep.bindMapping(new Mapping(alignmentFile));
+		ep.init();
+		return ep;
+	}
+	
+	// the trust of the extracted correspondences that refer to the ontologies
+	private double getTrust(ExtractionProblem ep) throws AlcomoException {
+		return ep.getReferingInputMapping().getConfidenceTotal() - ep.getDiscardedMapping().getConfidenceTotal();
+	}
+	
+	// the maximal trust of a subset without conflicts, correspondences that are not blamed are part of each subset
+	private double getBruteForceTrust(Mapping mapping, ConflictStore conflictStore) {
+		ArrayList<Integer> fixed = new ArrayList<Integer>();
+		ArrayList<Integer> blamed = new ArrayList<Integer>();
+		for (int i = 0; i < mapping.size(); i++) {
+			if (conflictStore.isBlamed(i)) { blamed.add(i); }
+			else { fixed.add(i); }
+		}
+		assertTrue("too many conflicting correspondences for brute force: " + blamed.size(), blamed.size() <= 20);
+		double bestTrust = Double.NEGATIVE_INFINITY;
+		for (int subset = 0; subset < (1 << blamed.size()); subset++) {
+			ArrayList<Integer> indices = new ArrayList<Integer>(fixed);
+			for (int b = 0; b < blamed.size(); b++) {
+				if ((subset & (1 << b)) != 0) { indices.add(blamed.get(b)); }
+			}
+			if (conflictStore.getConflictingIndices(indices) == null) {
+				double trust = 0.0;
+				for (int index : indices) { trust += mapping.get(index).getConfidence(); }
+				bestTrust = Math.max(bestTrust, trust);
+			}
+		}
+		return bestTrust;
+	}
+	
+	// the file names of the ontologies differ in case from the names in the alignments, e.g. confOf and confof
+	private String getOntologyFile(String name) {
+		String[] files = new File("testdata/conference/ontologies").list();
+		for (String file : files) {
+			if (file.equalsIgnoreCase(name + ".owl")) { return "testdata/conference/ontologies/" + file; }
+		}
+		return "testdata/conference/ontologies/" + name + ".owl";
+	}
+
+}
@@ -0,0 +1,189 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.mapping.MappingMatrix;
+import de.unima.alcomox.mapping.SemanticRelation;
+
+/**
+* Compares the dense and the sparse assignment method with a brute force enumeration of all assignments
+* on random small matrices. The locks are changed along random paths of a search tree, including locks
+* of whole rows and columns, such that the incremental repair of the solutions is covered as well.
+*/
+public class AssignmentMethodTest {
+	
+	// just the seed, no need to worry ;-)
+	private static final int NUMBER_OF_THE_BEAST = 666;
+	
+	private static final int NUMBER_OF_MATRICES = 300;
+	private static final int NUMBER_OF_STEPS = 30;
+	private static final double EPSILON = 0.000001;
+	
+	
+	@Test
+	public void testDenseMethod() throws AlcomoException {
+		this.compareWithBruteForce(new HungarianMethod());
+	}
+	
+	@Test
+	public void testSparseMethod() throws AlcomoException {
+		this.compareWithBruteForce(new SparseHungarianMethod());
+	}
+	
+	
+	// ****************************************
+	// ********** PRIVATE PLAYGROUND **********
+	// ****************************************
+	
+	private void compareWithBruteForce(AssignmentMethod method) throws AlcomoException {
+		Random rand = new Random(NUMBER_OF_THE_BEAST);
+		for (int i = 0; i < NUMBER_OF_MATRICES; i++) {
+			MappingMatrix matrix = this.createMatrix(rand);
+			ArrayList<Coord> entries = this.getEntries(matrix);
+			// the same method is used for several matrices, as in a hungarian search
+			method.setInputMatrix(matrix);
+			LockMarker root = new LockMarker();
+			LockMarker marker = root;
+			ArrayList<LockMarker> visited = new ArrayList<LockMarker>();
+			for (int step = 0; step < NUMBER_OF_STEPS; step++) {
+				String problem = "matrix " + i + ", step " + step + ", locks " + marker.getLocks() + "\n" + matrix;
+				method.setLocks(marker);
+				Set<Coord> locks = new HashSet<Coord>(marker.getLocks());
+				double minimum = this.getBruteForceMinimum(matrix, locks);
+				assertEquals(problem, minimum, method.getMinimum(), EPSILON);
+				this.checkSolution(problem, matrix, locks, method, minimum);
+				// the minimum for an additional lock does not affect the solution of the current locks
+				Coord lock = entries.get(rand.nextInt(entries.size()));
+				locks.add(lock);
+				assertEquals(problem + "\nadditional lock " + lock, this.getBruteForceMinimum(matrix, locks), method.getMinimum(lock), EPSILON);
+				locks.remove(lock);
+				assertEquals(problem, minimum, method.getMinimum(), EPSILON);
+				this.checkSolution(problem, matrix, locks, method, minimum);
+				visited.add(marker);
+				marker = this.getNextMarker(rand, matrix, entries, visited, marker);
+			}
+		}
+	}
+	
+	// a child with a lock on a cell, a row or a column, or a node visited before which releases locks
+	private LockMarker getNextMarker(Random rand, MappingMatrix matrix, ArrayList<Coord> entries, ArrayList<LockMarker> visited, LockMarker marker) {
+		int choice = rand.nextInt(10);
+		if (choice < 6) {
+			Coord lock = entries.get(rand.nextInt(entries.size()));
+			if (!marker.containsLock(lock)) { marker = marker.getChild(lock); }
+		}
+		else if (choice < 8) {
+			boolean row = rand.nextBoolean();
+			int line = rand.nextInt(row ? matrix.getNumOfSourceEntities() : matrix.getNumOfTargetEntities());
+			for (Coord lock : entries) {
+				if ((row ? lock.getX() : lock.getY()) == line && !marker.containsLock(lock)) {
+					marker = marker.getChild(lock);
+				}
+			}
+		}
+		else {
+			marker = visited.get(rand.nextInt(visited.size()));
+		}
+		return marker;
+	}
+	
+	// the chosen correspondences are unlocked, use each entity at most once and sum up to the minimum
+	private void checkSolution(String problem, MappingMatrix matrix, Set<Coord> locks, AssignmentMethod method, double minimum) {
+		Set<Integer> rows = new HashSet<Integer>();
+		Set<Integer> cols = new HashSet<Integer>();
+		double aggregated = 0.0;
+		for (int index : method.getSolution(matrix)) {
+			Coord coord = matrix.getCoord(index);
+			assertFalse(problem + "\nlocked cell " + coord + " chosen", locks.contains(coord));
+			assertTrue(problem + "\nrow of " + coord + " chosen twice", rows.add(coord.getX()));
+			assertTrue(problem + "\ncolumn of " + coord + " chosen twice", cols.add(coord.getY()));
+			aggregated += matrix.getDistance(coord.getX(), coord.getY()) - 1.0;
+		}
+		aggregated += matrix.getNumOfSourceEntities() + matrix.getNumOfTargetEntities();
+		assertEquals(problem, minimum, aggregated, EPSILON);
+	}
+	
+	private double getBruteForceMinimum(MappingMatrix matrix, Set<Coord> locks) {
+		boolean[] usedCols = new boolean[matrix.getNumOfTargetEntities()];
+		return this.getBruteForceMinimum(matrix, locks, 0, usedCols) + matrix.getNumOfSourceEntities() + matrix.getNumOfTargetEntities();
+	}
+	
+	// as in the padded matrix, each chosen cell costs its distance instead of 1.0 for an unassigned entity
+	private double getBruteForceMinimum(MappingMatrix matrix, Set<Coord> locks, int x, boolean[] usedCols) {
+		if (x == matrix.getNumOfSourceEntities()) { return 0.0; }
+		double minimum = this.getBruteForceMinimum(matrix, locks, x + 1, usedCols);
+		for (int y = 0; y < usedCols.length; y++) {
+			if (usedCols[y] || !matrix.containsCorrespondence(x, y) || locks.contains(new Coord(x, y))) { continue; }
+			usedCols[y] = true;
+			double value = matrix.getDistance(x, y) - 1.0 + this.getBruteForceMinimum(matrix, locks, x + 1, usedCols);
+			usedCols[y] = false;
+			minimum = Math.min(minimum, value);
+		}
+		return minimum;
+	}
+	
+	// up to 6 x 6 entities, the confidences are drawn from a coarse grid to produce ties
+	private MappingMatrix createMatrix(Random rand) throws AlcomoException {
+		int numOfSources = 1 + rand.nextInt(6);
+		int numOfTargets = 1 + rand.nextInt(6);
+		double density = 0.2 + 0.8 * rand.nextDouble();
+		SemanticRelation equiv = new SemanticRelation(SemanticRelation.EQUIV);
+		Mapping mapping = new Mapping();
+		for (int x = 0; x < numOfSources; x++) {
+			for (int y = 0; y < numOfTargets; y++) {
+				if (rand.nextDouble() < density || mapping.size() == 0) {
+					double confidence = rand.nextInt(11) / 10.0;
+					mapping.push(new Correspondence("http://source.org/onto#S" + x, "http://target.org/onto#T" + y, equiv, confidence));
+				}
+			}
+		}
+		return new MappingMatrix(mapping);
+	}
+	
+	private ArrayList<Coord> getEntries(MappingMatrix matrix) {
+		ArrayList<Coord> entries = new ArrayList<Coord>();
+		for (int x = 0; x < matrix.getNumOfSourceEntities(); x++) {
+			for (int entry = matrix.getRowStart(x); entry < matrix.getRowStart(x + 1); entry++) {
+				entries.add(new Coord(x, matrix.getEntryCol(entry)));
+			}
+		}
+		return entries;
+	}
+
+}
@@ -0,0 +1,174 @@
+// *****************************************************************************
+//
+// Copyright (c) 2011 Christian Meilicke (University of Mannheim)
+//
+// Permission is hereby granted, free of charge, to any person
+// obtaining a copy of this software and associated documentation
+// files (the "Software"), to deal in the Software without restriction,
+// including without limitation the rights to use, copy, modify, merge,
+// publish, distribute, sublicense, and/or sell copies of the Software,
+// and to permit persons to whom the Software is furnished to do so,
+// subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+// IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+// *********************************************************************************
+
+package de.unima.alcomox.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.unima.alcomox.exceptions.AlcomoException;
+import de.unima.alcomox.mapping.Correspondence;
+import de.unima.alcomox.mapping.Mapping;
+import de.unima.alcomox.mapping.SemanticRelation;
+
+/**
+* Compares index markers with an array of flags along random search trees. The mapping spans several
+* chunks, thus, markers that share some chunks and own others are covered. Each marker has to keep its
+* flags while its children and their scratch markers deactivate correspondences, and markers with the
+* same flags have to be equal and share their hash code regardless of the order of deactivation.
+*/
+public class IndexMarkerTest {
+	
+	// just the seed, no need to worry ;-)
+	private static final int NUMBER_OF_THE_BEAST = 666;
+	
+	// three chunks of 512 flags, the last one only partially used
+	private static final int SIZE = 1300;
+	private static final int NUMBER_OF_CONFLICTS = 300;
+	private static final int NUMBER_OF_NODES = 150;
+	private static final double EPSILON = 0.000001;
+	
+	
+	@Test
+	public void testWithoutConflicts() throws AlcomoException {
+		Mapping mapping = this.createMapping(new Random(NUMBER_OF_THE_BEAST));
+		this.compareWithFlags(mapping, new ConflictStore(mapping), new Random(NUMBER_OF_THE_BEAST));
+	}
+	
+	@Test
+	public void testWithConflicts() throws AlcomoException {
+		Random rand = new Random(NUMBER_OF_THE_BEAST);
+		Mapping mapping = this.createMapping(rand);
+		ConflictStore conflictStore = new ConflictStore(mapping);
+		for (int i = 0; i < NUMBER_OF_CONFLICTS; i++) {
+			// pairs and a few larger conflicts, also across chunks
+			Mapping conflict = new Mapping();
+			int size = (i % 10 == 0) ? 3 : 2;
+			while (conflict.size() < size) {
+				Correspondence c = mapping.get(rand.nextInt(SIZE));
+				if (!conflict.contains(c)) { conflict.push(c); }
+			}
+			conflictStore.getIndicesAndSetConflicts(conflict);
+		}
+		this.compareWithFlags(mapping, conflictStore, rand);
+	}
+	
+	
+	// ****************************************
+	// ********** PRIVATE PLAYGROUND **********
+	// ****************************************
+	
+	private void compareWithFlags(Mapping mapping, ConflictStore conflictStore, Random rand) {
+		ArrayList<IndexMarker> markers = new ArrayList<IndexMarker>();
+		ArrayList<boolean[]> flags = new ArrayList<boolean[]>();
+		IndexMarker root = new IndexMarker(mapping, conflictStore);
+		boolean[] rootFlags = new boolean[SIZE];
+		for (int i = 0; i < SIZE; i++) { rootFlags[i] = true; }
+		markers.add(root);
+		flags.add(rootFlags);
+		this.checkFlags("root", mapping, root, rootFlags);
+		while (markers.size() < NUMBER_OF_NODES) {
+			// a child of a random node, such that markers share chunks with parents, siblings and cousins
+			int parent = rand.nextInt(markers.size());
+			boolean[] childFlags = flags.get(parent).clone();
+			int index = this.getRandomActive(rand, childFlags);
+			childFlags[index] = false;
+			IndexMarker child = markers.get(parent).getChild(index, conflictStore);
+			markers.add(child);
+			flags.add(childFlags);
+			for (int n = 0; n < markers.size(); n++) {
+				this.checkFlags("node " + n + " after " + markers.size() + " nodes", mapping, markers.get(n), flags.get(n));
+			}
+			// the same flags deactivated in a different order
+			IndexMarker other = this.getMarker(rand, mapping, conflictStore, childFlags);
+			assertTrue("node " + (markers.size() - 1), child.equals(other));
+			assertEquals("node " + (markers.size() - 1), child.hashCode(), other.hashCode());
+			assertEquals("node " + (markers.size() - 1), child.getFinalTrust(), other.getFinalTrust(), EPSILON);
+			assertFalse("node " + (markers.size() - 1), child.equals(markers.get(parent)));
+		}
+	}
+	
+	private void checkFlags(String node, Mapping mapping, IndexMarker marker, boolean[] flags) {
+		double trust = 0.0;
+		int activeSize = 0;
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(node + ", flag " + i, flags[i], marker.isActive(i));
+			if (flags[i]) {
+				trust += mapping.get(i).getConfidence();
+				activeSize++;
+			}
+		}
+		assertEquals(node, activeSize, marker.activeSize());
+		assertEquals(node, trust, marker.getTrust(), EPSILON);
+		// the active indices in ascending order
+		marker.initOrResetIndex();
+		int previous = -1;
+		int numOfActive = 0;
+		while (marker.hasNext()) {
+			int index = marker.next();
+			assertTrue(node + ", index " + index, index > previous && flags[index]);
+			previous = index;
+			numOfActive++;
+		}
+		assertEquals(node, activeSize, numOfActive);
+	}
+	
+	private IndexMarker getMarker(Random rand, Mapping mapping, ConflictStore conflictStore, boolean[] flags) {
+		ArrayList<Integer> inactive = new ArrayList<Integer>();
+		for (int i = 0; i < SIZE; i++) {
+			if (!flags[i]) { inactive.add(i); }
+		}
+		Collections.shuffle(inactive, rand);
+		IndexMarker marker = new IndexMarker(mapping, conflictStore);
+		for (int index : inactive) {
+			marker = marker.getChild(index, conflictStore);
+		}
+		return marker;
+	}
+	
+	private int getRandomActive(Random rand, boolean[] flags) {
+		while (true) {
+			int index = rand.nextInt(SIZE);
+			if (flags[index]) { return index; }
+		}
+	}
+	
+	private Mapping createMapping(Random rand) throws AlcomoException {
+		SemanticRelation equiv = new SemanticRelation(SemanticRelation.EQUIV);
+		Mapping mapping = new Mapping();
+		for (int i = 0; i < SIZE; i++) {
+			double confidence = 0.05 + 0.95 * rand.nextDouble();
+			mapping.push(new Correspondence("http://source.org/onto#S" + i, "http://target.org/onto#T" + i, equiv, confidence));
+		}
+		return mapping;
+	}
+
+}